@@ -0,0 +1,31 @@
+// Action.java
+// Gordon Lin
+// Enum of each action a player can play, with the input of the game engine it plays
+
+package tetris;
+
+public enum Action {
+    LEFT(GameEngine.INPUT_LEFT),
+    RIGHT(GameEngine.INPUT_RIGHT),
+    SOFT_DROP(GameEngine.INPUT_SOFT_DROP),
+    HARD_DROP(GameEngine.INPUT_HARD_DROP),
+    ROTATE_CLOCKWISE(GameEngine.INPUT_ROTATE_CLOCKWISE),
+    ROTATE_COUNTERCLOCKWISE(GameEngine.INPUT_ROTATE_COUNTERCLOCKWISE),
+    HOLD(GameEngine.INPUT_HOLD);
+
+    // Constant which stores every action by its ordinal, so looking one up doesn't create a new array each time as values() does
+    private static final Action[] ACTIONS = values();
+
+    // Input of the game engine the action plays
+    private final int input;
+
+    Action(int input){
+        this.input = input;
+    }
+
+    // Gets the input of the game engine the action plays
+    public int getInput() { return input; }
+
+    // Gets the action with the ordinal
+    public static Action get(int ordinal) { return ACTIONS[ordinal]; }
+}
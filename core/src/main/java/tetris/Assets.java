@@ -0,0 +1,106 @@
+// Assets.java
+// Gordon Lin
+// Class which loads the images, fonts and sounds of the game from the classpath, or from a zip of assets set with the tetris.assetBundle property
+// Each asset is loaded on its own loader thread as soon as it's first asked for, so every asset loads at the same time and the screen isn't held up waiting for them
+// Each asset is only loaded once, and the same future is given to everything that asks for it
+
+package tetris;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+public class Assets {
+    // Constant which stores the number of threads that load assets, set with the tetris.assetThreads property
+    // Loading is mostly waiting on the disk, so there can be more threads than cores
+    public static final int LOADER_THREADS = Integer.getInteger("tetris.assetThreads", 4);
+    // Constant which stores the zip of assets to load from instead of the classpath, or null to load from the classpath
+    public static final String BUNDLE = System.getProperty("tetris.assetBundle");
+
+    // Threads which load the assets, which don't stop the program from closing
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "Asset Loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Future of each asset that has been asked for, by its path
+    private static final ConcurrentHashMap<String, CompletableFuture<?>> LOADED = new ConcurrentHashMap<>();
+
+    // Class which holds the zip of assets, so it's only opened once something is loaded from it
+    private static class Bundle {
+        static final ZipFile ZIP = open();
+
+        // Opens the zip, which can be read from each loader thread at once
+        private static ZipFile open(){
+            try{
+                return new ZipFile(BUNDLE);
+            } catch(IOException e){
+                throw new UncheckedIOException("Couldn't open asset bundle " + BUNDLE, e);
+            }
+        }
+    }
+
+    // Only has static methods
+    private Assets(){}
+
+    // Loads the bytes of an asset as they're stored
+    public static CompletableFuture<byte[]> bytes(String path){
+        return load(path, in -> in.readAllBytes());
+    }
+
+    // Loads an image and decodes all of it, so it can be drawn straight away
+    public static CompletableFuture<BufferedImage> image(String path){
+        return load(path, in -> {
+            BufferedImage image = ImageIO.read(in);
+            if(image == null) throw new IOException("Not an image: " + path);
+            return image;
+        });
+    }
+
+    // Loads a TrueType font
+    public static CompletableFuture<Font> font(String path){
+        return load(path, in -> {
+            try{
+                return Font.createFont(Font.TRUETYPE_FONT, in);
+            } catch(FontFormatException e){
+                throw new IOException("Not a font: " + path, e);
+            }
+        });
+    }
+
+    // Interface for what turns the stream of an asset into the asset
+    private interface Reader<T> {
+        T read(InputStream in) throws IOException;
+    }
+
+    // Starts loading the asset on a loader thread the first time it's asked for, and gets the future of it
+    // The future completes with an UncheckedIOException if the asset can't be found or read
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> load(String path, Reader<T> reader){
+        return (CompletableFuture<T>) LOADED.computeIfAbsent(path, key -> CompletableFuture.supplyAsync(() -> {
+            try(InputStream in = new BufferedInputStream(open(key))){
+                return reader.read(in);
+            } catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }, LOADER));
+    }
+
+    // Opens the stream of an asset from the zip of assets if there is one, or from the classpath
+    // Used directly for assets that are read as they're played instead of loaded all at once (such as music), which aren't kept
+    public static InputStream open(String path) throws IOException {
+        if(BUNDLE != null){
+            // Entries in the zip are named without the leading slash of classpath paths
+            ZipFile zip = Bundle.ZIP;
+            ZipEntry entry = zip.getEntry(path.startsWith("/") ? path.substring(1) : path);
+            if(entry == null) throw new FileNotFoundException(path + " in " + BUNDLE);
+            return zip.getInputStream(entry);
+        }
+        InputStream in = Assets.class.getResourceAsStream(path);
+        if(in == null) throw new FileNotFoundException(path);
+        return in;
+    }
+}
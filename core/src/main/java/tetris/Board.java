@@ -0,0 +1,665 @@
+// Board.java
+// Gordon Lin
+// Board class that stores the squares and blocks of the game board, as well as other blocks
+// Also keeps the features of the board used to score it (heights, holes, wells, transitions, bumpiness) up to date as blocks are added and rows cleared, only for the columns and rows that changed
+// The colours of each row are stored in a row of the colour array found through rowSlots, so rows are moved by moving their index, and clearing rows only moves the rows between the top of the stack and the rows cleared
+// Clearing k rows takes O(s + k * width) time, where s is the number of rows of the stack at or above the lowest row cleared: those rows are moved down by swapping indexes, and only the k rows cleared are emptied square by square
+// Finding the new height of each column then scans down from its old height, usually over only the k rows cleared and never below the stack, so the time grows with the height of the stack and the width of the board, not the height of the board
+
+package tetris;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.Arrays;
+
+public class Board {
+    // Constant to add on the width and height to include border of board
+    public static int PLUS_BORDER = 2;
+    // Constant that gets the Square object for the border
+    public static Square BORDER_BLOCK = Square.SHARED_SQUARES[Square.GRAY];
+    // Constant that stores the maximum width of the board, as each row is packed into a single long
+    public static final int MAX_WIDTH = Long.SIZE;
+    // Constant that stores the colour of a square of the board that's empty
+    public static final byte EMPTY = -1;
+
+    // Interface for reading the features of the board without being able to change the board
+    public interface Features {
+        // Gets the height of the column (from the bottom of the board to its topmost square), and the number of empty squares below its topmost square
+        int getColumnHeight(int x);
+        int getColumnHoles(int x);
+        // Gets how far the column is below both columns beside it (where the walls are as high as the board), or 0 if it isn't
+        int getWellDepth(int x);
+        // Gets the number of changes between empty and occupied squares along the row, counting the walls as occupied, or 0 if the row is empty
+        int getRowTransitions(int y);
+
+        // Gets the totals of the features over the whole board, and the height of the highest column
+        int getAggregateHeight();
+        int getMaxHeight();
+        int getHoles();
+        int getWellDepths();
+        int getRowTransitions();
+        int getBumpiness();
+    }
+
+    // Class which holds the colours used to draw the board, so they're only created once the board is first drawn, and not when the game runs without a screen
+    private static class Colours {
+        // Constant that stores Color for a transparent black
+        static final Color TRANSPARENT_BLACK = new Color(0, 0, 0, 200);
+    }
+
+    // Integers for x, y of the centre of board (by pixel on the screen), size of each square, top left X and Y value (by pixel on the screen), and width and height of the board
+    private final int x, y, squareSize, topLeftX, topLeftY, width, height;
+    // Array for the colour of each square of the board, row by row, or EMPTY if there's no square
+    private final byte[] board;
+    // Array for the row of the colour array each row of the board is stored in
+    private final int[] rowSlots;
+    // Array for each row of the board, with bit x set when the square at column x of the row is occupied
+    private final long[] rows;
+    // Value of a row where every column is occupied
+    private final long fullRow;
+    // Topmost and bottommost rows that have changed since the board was last drawn, with top greater than bottom when no rows have changed
+    private int dirtyTop, dirtyBottom;
+    // Number of times the squares of the board have changed, so what's worked out from them can be kept until they change again
+    private int version;
+    // Boolean which stores if the time each clear of rows takes is recorded into the metrics, which is only done for the board being played (and not boards searched)
+    private boolean metered;
+
+    // Arrays for the height and number of squares of each column, and the number of transitions of each row
+    private final int[] columnHeights, columnSquares, rowTransitions;
+    // Totals of the height, squares, bumpiness (differences between neighbouring columns), well depths, and row transitions of the board
+    private int aggregateHeight, totalSquares, bumpiness, wellDepths, totalRowTransitions;
+    // Read only view of the features of the board
+    private final Features features;
+
+    public Board(int x, int y, int squareSize, int width, int height){
+        // Checks if each row of the board can fit in a long
+        if(width > MAX_WIDTH) throw new IllegalArgumentException("Board width cannot be greater than " + MAX_WIDTH);
+
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.squareSize = squareSize;
+
+        // Sets the top left corner position, by subtracting the half the width * square size and half the height * square
+        topLeftX = x - squareSize * width / 2;
+        topLeftY = y - squareSize * height / 2;
+
+        // Generates an array width x height full of empty squares, and the empty rows of the board
+        board = new byte[width * height];
+        Arrays.fill(board, EMPTY);
+        // Each row starts stored in the row of the colour array with the same index
+        rowSlots = new int[height];
+        for(int row = 0; row < height; row++) rowSlots[row] = row;
+        rows = new long[height];
+        // Sets the bit of every column for a full row
+        fullRow = width == MAX_WIDTH ? -1L : (1L << width) - 1;
+        // Every column and row of an empty board has no features, apart from the columns beside the walls being wells as deep as the board
+        columnHeights = new int[width];
+        columnSquares = new int[width];
+        rowTransitions = new int[height];
+        features = new FeatureView();
+        updateColumnTotals();
+        // Every row needs to be drawn the first time
+        markDirty(0, height - 1);
+    }
+
+    // Constructor for a board that's never drawn, which only takes in the width and height
+    public Board(int width, int height){
+        this(0, 0, 0, width, height);
+    }
+
+    // Getter methods for width and height
+    public int getWidth(){ return width; }
+    public int getHeight() { return height; }
+
+    // Getter methods for the pixel position of the top left of the board on the screen and size of each square
+    public int getTopLeftX() { return topLeftX; }
+    public int getTopLeftY() { return topLeftY; }
+    public int getSquareSize() { return squareSize; }
+
+    // Getter methods for the topmost and bottommost rows that have changed since the board was last drawn
+    public int getDirtyTop() { return dirtyTop; }
+    public int getDirtyBottom() { return dirtyBottom; }
+
+    // Sets if the time each clear of rows takes is recorded into the metrics, when they're recorded
+    public void setMetered(boolean metered) { this.metered = metered; }
+
+    // Checks if any row has changed since the board was last drawn
+    public boolean isDirty() { return dirtyTop <= dirtyBottom; }
+
+    // Marks the rows from top to bottom as changed
+    private void markDirty(int top, int bottom){
+        // Every change to the squares marks the rows it changed, so it also counts as a change to the board
+        version++;
+        dirtyTop = Math.min(dirtyTop, top);
+        dirtyBottom = Math.max(dirtyBottom, bottom);
+    }
+
+    // Clears the rows that have changed once they've been drawn
+    public void clearDirty(){
+        dirtyTop = height;
+        dirtyBottom = -1;
+    }
+
+    // Gets the number of times the squares of the board have changed
+    public int getVersion() { return version; }
+
+    // Gets the read only view of the features of the board, which always shows the board as it is now
+    public Features getFeatures() { return features; }
+
+    // Gets the colour of the square at x, y of the board, or EMPTY if there's no square
+    public int getSquare(int x, int y) { return board[rowSlots[y] * width + x]; }
+
+    // Draw method which just draw the board itself
+    public void draw(Graphics2D g2d, ImageObserver imageObserver){
+        drawFrame(g2d, imageObserver);
+        drawSquares(g2d, imageObserver);
+    }
+
+    // Draws the parts of the board that never change, the border and background of the board
+    public void drawFrame(Graphics2D g2d, ImageObserver imageObserver){
+        // Loops through each x position of the board (by square), including border, and draws the border block on the top and bottom
+        for(int i = 0; i < width + PLUS_BORDER; i++){
+            BORDER_BLOCK.draw(g2d, topLeftX - squareSize + squareSize * i, topLeftY - squareSize, squareSize, imageObserver);
+            BORDER_BLOCK.draw(g2d, topLeftX - squareSize + squareSize * i, topLeftY + squareSize * height, squareSize, imageObserver);
+        }
+        // Loops through each y value of the board (by square), and draws the border block on the left and right
+        for(int i = 0; i < height; i++){
+            BORDER_BLOCK.draw(g2d, topLeftX - squareSize, topLeftY + squareSize * i, squareSize, imageObserver);
+            BORDER_BLOCK.draw(g2d, topLeftX + squareSize * width, topLeftY + squareSize * i, squareSize, imageObserver);
+        }
+        // Draws a transparent black background on the whole board
+        g2d.setColor(Colours.TRANSPARENT_BLACK);
+        g2d.fillRect(topLeftX, topLeftY, squareSize * width, squareSize * height);
+    }
+
+    // Draws the squares on the board
+    public void drawSquares(Graphics2D g2d, ImageObserver imageObserver){
+        // Loops through each square in the array and draws the shared square of its colour at the position on the board if it exists
+        for(int rows = 0; rows < height; rows++){
+            int slot = rowSlots[rows] * width;
+            for(int columns = 0; columns < width; columns++){
+                int colour = board[slot + columns];
+                if(colour != EMPTY) Square.SHARED_SQUARES[colour].draw(g2d, topLeftX + columns * squareSize, topLeftY + rows * squareSize, squareSize, imageObserver);
+            }
+        }
+    }
+
+    // Draws the board with a block on it
+    public void draw(Graphics2D g2d, Tetrominoes currentTetromino, ImageObserver imageObserver){
+        drawFrame(g2d, imageObserver);
+        drawSquares(g2d, currentTetromino, 0, 0, imageObserver);
+    }
+
+    // Draws the squares of the board with a block on it, with the block offset by offsetX and offsetY pixels from its position on the board
+    // The frame of the board isn't drawn, as it's drawn with the rest of what doesn't change on the screen
+    public void drawSquares(Graphics2D g2d, Tetrominoes currentTetromino, int offsetX, int offsetY, ImageObserver imageObserver){
+        // Draws the squares on the grid using the method previously mentioned
+        drawSquares(g2d, imageObserver);
+        // If the block isn't null
+        if(currentTetromino != null)
+            drawBlock(g2d, currentTetromino, offsetX, offsetY, imageObserver);
+    }
+
+    // Draws a block on the board, offset by offsetX and offsetY pixels from its position on the board
+    public void drawBlock(Graphics2D g2d, Tetrominoes currentTetromino, int offsetX, int offsetY, ImageObserver imageObserver){
+        // Draws the block, with the position of the board on the screen
+        currentTetromino.draw(g2d, topLeftX + offsetX, topLeftY + offsetY, squareSize, imageObserver);
+    }
+
+    // Draws the ghost of a block at the row ghostY where it lands, with the composite the graphics already has (which fades it over the board)
+    // The ghost isn't offset like the block is, as where it lands doesn't move in between steps
+    public void drawGhost(Graphics2D g2d, Tetrominoes currentTetromino, int ghostY, ImageObserver imageObserver){
+        currentTetromino.draw(g2d, topLeftX, topLeftY + (ghostY - (int) currentTetromino.getY()) * squareSize, squareSize, imageObserver);
+    }
+
+    // Method that clears the rows and returns the number of rows cleared
+    public int clearRows(){
+        return clearRows(0, height - 1);
+    }
+
+    // Clears the full rows from top to bottom, which must be the only rows that can be full (such as the rows of the block just added), and returns the number of rows cleared
+    public int clearRows(int top, int bottom){
+        // Times the clear for the metrics, only when they're recorded
+        if(Metrics.ENABLED && metered){
+            long start = System.nanoTime();
+            int rowsCleared = removeFullRows(top, bottom);
+            Metrics.clearRows(start, System.nanoTime(), rowsCleared);
+            return rowsCleared;
+        }
+        return removeFullRows(top, bottom);
+    }
+
+    // Removes the full rows from top to bottom, moving the rows above them down, and returns the number of rows removed
+    private int removeFullRows(int top, int bottom){
+        // Rows above the highest column are empty, so they're never full and are never moved
+        int stackTop = height - features.getMaxHeight();
+        top = Math.max(top, stackTop);
+        bottom = Math.min(bottom, height - 1);
+        // Finds the bottommost full row, and returns straight away if there isn't one
+        int bottomCleared = bottom;
+        while(bottomCleared >= top && rows[bottomCleared] != fullRow) bottomCleared--;
+        if(bottomCleared < top) return 0;
+
+        // Stores number of rows cleared, and the row that the next row that isn't cleared will be moved to
+        int rowsCleared = 0, writeRow = bottomCleared;
+        // Loops through each row from the bottommost row cleared up to the top of the stack
+        for(int readRow = bottomCleared; readRow >= stackTop; readRow--){
+            // If all the columns of the row are occupied, the row is cleared by not being moved down
+            if(readRow >= top && rows[readRow] == fullRow){
+                rowsCleared++;
+                continue;
+            }
+            // Shifts the row down by the number of rows cleared below it, swapping the rows of the colour array they're stored in, so the rows cleared end up above the rows moved
+            if(writeRow != readRow){
+                rows[writeRow] = rows[readRow];
+                rowTransitions[writeRow] = rowTransitions[readRow];
+                int slot = rowSlots[writeRow];
+                rowSlots[writeRow] = rowSlots[readRow];
+                rowSlots[readRow] = slot;
+            }
+            writeRow--;
+        }
+        // Empties the rows cleared, which are now the rows left at the top of the stack after shifting
+        for(; writeRow >= stackTop; writeRow--){
+            rows[writeRow] = 0;
+            rowTransitions[writeRow] = 0;
+            Arrays.fill(board, rowSlots[writeRow] * width, (rowSlots[writeRow] + 1) * width, EMPTY);
+        }
+        // Every row from the top of the stack to the bottommost row cleared has been shifted
+        markDirty(stackTop, bottomCleared);
+        // Full rows have no transitions, so the total doesn't change, but every column loses a square and usually height for each row cleared
+        totalSquares -= rowsCleared * width;
+        for(int column = 0; column < width; column++){
+            columnSquares[column] -= rowsCleared;
+            columnHeights[column] = findColumnHeight(column, columnHeights[column] - rowsCleared);
+        }
+        updateColumnTotals();
+        // Returns number of rows cleared
+        return rowsCleared;
+    }
+
+    // Pushes every row up and adds the number of rows of gray garbage at the bottom, full apart from a hole at holeColumn
+    // Returns false if a square was pushed off the top of the board, in which case only the rows that fit are kept
+    public boolean addGarbage(int numRows, int holeColumn){
+        if(numRows <= 0) return true;
+        numRows = Math.min(numRows, height);
+        // Checks if any of the top rows, which are pushed off, have squares
+        boolean fits = true;
+        for(int row = 0; row < numRows; row++) if(rows[row] != 0) fits = false;
+
+        // Shifts the rows up by the number of garbage rows, and moves the rows of the colour array pushed off the top to the bottom, where they're reused for the garbage
+        System.arraycopy(rows, numRows, rows, 0, height - numRows);
+        System.arraycopy(rowTransitions, numRows, rowTransitions, 0, height - numRows);
+        reverseSlots(0, numRows - 1);
+        reverseSlots(numRows, height - 1);
+        reverseSlots(0, height - 1);
+        // Fills the bottom rows with garbage
+        long garbage = fullRow & ~(1L << holeColumn);
+        for(int row = height - numRows; row < height; row++){
+            rows[row] = garbage;
+            Arrays.fill(board, rowSlots[row] * width, (rowSlots[row] + 1) * width, (byte) Square.GRAY);
+            board[rowSlots[row] * width + holeColumn] = EMPTY;
+        }
+
+        // Counts the features of the board again, as every row moved
+        totalSquares = 0;
+        totalRowTransitions = 0;
+        Arrays.fill(columnSquares, 0);
+        for(int row = 0; row < height; row++){
+            if(row >= height - numRows) rowTransitions[row] = transitions(rows[row]);
+            totalRowTransitions += rowTransitions[row];
+            for(long columns = rows[row]; columns != 0; columns &= columns - 1) columnSquares[Long.numberOfTrailingZeros(columns)]++;
+        }
+        for(int column = 0; column < width; column++){
+            totalSquares += columnSquares[column];
+            columnHeights[column] = findColumnHeight(column, Math.min(height, columnHeights[column] + numRows));
+        }
+        updateColumnTotals();
+        markDirty(0, height - 1);
+        return fits;
+    }
+
+    // Reverses the order of the rows of the colour array the rows from first to last are stored in
+    private void reverseSlots(int first, int last){
+        for(; first < last; first++, last--){
+            int slot = rowSlots[first];
+            rowSlots[first] = rowSlots[last];
+            rowSlots[last] = slot;
+        }
+    }
+
+    // Checks if a block will collide with the board with changes of vx, vy, and rotate
+    public boolean isCollide(Tetrominoes currentTetromino, int vx, double vy, int rotate){
+        // Gets the position of the block on the board (by square) after the changes, and current rotation state after the changes
+        int tetrominoX = currentTetromino.getX() + vx, tetrominoY = (int) (currentTetromino.getY() + vy),
+                tetrominoRotate = (currentTetromino.getRotate() + rotate + Tetrominoes.NUM_ROTATIONS) % Tetrominoes.NUM_ROTATIONS;
+
+        return isCollide(currentTetromino.getTetrominoNum(), tetrominoRotate, tetrominoX, tetrominoY);
+    }
+
+    // Checks if a block with the tetrominoNum and rotation state would collide with the board, with the top left of its boundary at x, y
+    public boolean isCollide(int tetrominoNum, int rotate, int x, int y){
+        // Gets the masks of each row of the block, and the position of the leftmost and topmost square of the block on the board
+        long[] masks = Tetrominoes.TETROMINO_ROW_MASKS[tetrominoNum][rotate];
+        int left = x + Tetrominoes.TETROMINO_MIN_X[tetrominoNum][rotate], top = y + Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate];
+
+        // Checks if any square of the block is out of bounds of the board
+        if(left < 0 || left + Tetrominoes.TETROMINO_SPAN_X[tetrominoNum][rotate] > width || top < 0 || top + masks.length > height) return true;
+
+        // Loops through each row of the block, and checks if the row shifted to the position of the block overlaps with any occupied square of the board
+        for(int i = 0; i < masks.length; i++){
+            if((rows[top + i] & (masks[i] << left)) != 0) return true;
+        }
+        // Returns false for no collision
+        return false;
+    }
+
+    // Gets the row of the board, with bit x set when the square at column x is occupied
+    public long getRow(int y){
+        return rows[y];
+    }
+
+    // Checks if the row is full and can be cleared
+    public boolean isRowFull(int y){
+        return rows[y] == fullRow;
+    }
+
+    // Checks for collisions for rotating on the spot
+    public boolean isCollide(Tetrominoes currentTetromino, int rotate){
+        return isCollide(currentTetromino, 0, 0, rotate);
+    }
+
+    // Checks for collision for moving vertically and horizontally but no rotation
+    public boolean isCollide(Tetrominoes currentTetromino, int vx, double vy){
+        return isCollide(currentTetromino, vx, vy, 0);
+    }
+
+    // Checks for collision at the block's current location
+    public boolean isCollide(Tetrominoes currentTetromino){
+        return isCollide(currentTetromino, 0, 0, 0);
+    }
+
+    // Adds the squares of the block to the board
+    public void addBlock(Tetrominoes currentTetromino){
+        addBlock(currentTetromino.getTetrominoNum(), currentTetromino.getRotate(), currentTetromino.getX(), (int) currentTetromino.getY());
+    }
+
+    // Adds the squares of a block with the tetrominoNum and rotation state to the board, with the top left of its boundary at x, y
+    public void addBlock(int tetrominoNum, int rotate, int x, int y){
+        // Loops through all the squares of the block
+        for(Square square : Tetrominoes.TETROMINOES[tetrominoNum][rotate]){
+            // Sets each square where the block was on the board to the colour of the block
+            board[rowSlots[square.getY() + y] * width + square.getX() + x] = (byte) tetrominoNum;
+        }
+
+        // Gets the masks of each row of the block, and the position of the leftmost and topmost square of the block on the board
+        long[] masks = Tetrominoes.TETROMINO_ROW_MASKS[tetrominoNum][rotate];
+        int left = x + Tetrominoes.TETROMINO_MIN_X[tetrominoNum][rotate], top = y + Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate];
+        // Sets the bits of each row of the block on the rows of the board, and counts the transitions of each row again
+        for(int i = 0; i < masks.length; i++){
+            rows[top + i] |= masks[i] << left;
+            totalRowTransitions -= rowTransitions[top + i];
+            rowTransitions[top + i] = transitions(rows[top + i]);
+            totalRowTransitions += rowTransitions[top + i];
+        }
+        markDirty(top, top + masks.length - 1);
+
+        // Updates the features of only the columns the block covers, and the columns beside them
+        int right = left + Tetrominoes.TETROMINO_SPAN_X[tetrominoNum][rotate] - 1;
+        updateColumnTerms(left, right, -1);
+        for(Square square : Tetrominoes.TETROMINOES[tetrominoNum][rotate]){
+            int column = square.getX() + x;
+            columnSquares[column]++;
+            totalSquares++;
+            columnHeights[column] = Math.max(columnHeights[column], height - (square.getY() + y));
+        }
+        updateColumnTerms(left, right, 1);
+    }
+
+    // Adds a block and clears the rows it fills, the same as addBlock then clearRows, pushing what's needed to undo it onto the log, and returns the number of rows cleared
+    // The board can't have full rows before the block is added, which it never does once its rows have been cleared
+    public int make(int tetrominoNum, int rotate, int x, int y, UndoLog log){
+        long[] masks = Tetrominoes.TETROMINO_ROW_MASKS[tetrominoNum][rotate];
+        int left = x + Tetrominoes.TETROMINO_MIN_X[tetrominoNum][rotate], top = y + Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate];
+        int right = left + Tetrominoes.TETROMINO_SPAN_X[tetrominoNum][rotate] - 1, bottom = top + masks.length - 1;
+        // Checks if the block fills any row, as clearing rows changes the height of every column, and not only the columns the block covers
+        boolean clears = false;
+        for(int i = 0; i < masks.length; i++) if((rows[top + i] | masks[i] << left) == fullRow) clears = true;
+
+        // Pushes the rows the block covers as they are, with their squares and transitions, so undoing only copies them back
+        for(int row = top; row <= bottom; row++){
+            log.pushBytes(board, rowSlots[row] * width, width);
+            log.pushLong(rows[row]);
+            log.pushInt(rowTransitions[row]);
+        }
+        // Pushes the number of squares of the columns the block covers, the heights of the columns that change (every column if rows are cleared), and the totals of the features
+        for(int column = left; column <= right; column++) log.pushInt(columnSquares[column]);
+        int from = clears ? 0 : left, to = clears ? width - 1 : right;
+        for(int column = from; column <= to; column++) log.pushInt(columnHeights[column]);
+        log.pushInt(from);
+        log.pushInt(to);
+        log.pushInt(aggregateHeight);
+        log.pushInt(totalSquares);
+        log.pushInt(bumpiness);
+        log.pushInt(wellDepths);
+        log.pushInt(totalRowTransitions);
+
+        addBlock(tetrominoNum, rotate, x, y);
+        // Pushes each row the block filled, which can only be rows the block covers, so their squares are already pushed
+        int rowsCleared = 0;
+        for(int row = top; clears && row <= bottom; row++){
+            if(rows[row] != fullRow) continue;
+            log.pushInt(row);
+            rowsCleared++;
+        }
+        log.pushInt(rowsCleared);
+        // Only looks for full rows if the block filled one, as the board had none before, and only in the rows the block covers
+        if(rowsCleared > 0) clearRows(top, bottom);
+
+        // Pushes where the block was, which is where the board changed
+        log.pushInt(top);
+        log.pushInt(bottom);
+        log.pushInt(left);
+        log.pushInt(right);
+        log.pushRecord();
+        return rowsCleared;
+    }
+
+    // Undoes the last block added by make, popping it off the log, so the squares, rows and features of the board are exactly as they were before it
+    public void unmake(UndoLog log){
+        log.popRecord();
+        int right = log.popInt(), left = log.popInt(), bottom = log.popInt(), top = log.popInt();
+
+        // Moves each row above the bottommost row cleared back up by the number of rows cleared below it, starting from the top so no row is moved onto before it's moved
+        // The rows cleared are left as they are, as they're rows the block covered, which are copied back after
+        int rowsCleared = log.popInt(), dirtyTop = top;
+        if(rowsCleared > 0){
+            int cleared = 0;
+            for(int i = 0; i < rowsCleared; i++) cleared |= 1 << (log.popInt() - top);
+            // Rows above the highest column are empty, so moving starts the number of rows cleared above the top of the stack, where the empty rows are swapped down into the rows cleared
+            int shift = rowsCleared, row = height - features.getMaxHeight() - rowsCleared;
+            dirtyTop = row;
+            for(; shift > 0; row++){
+                if(row >= top && (cleared & (1 << (row - top))) != 0){
+                    shift--;
+                    continue;
+                }
+                rows[row] = rows[row + shift];
+                rowTransitions[row] = rowTransitions[row + shift];
+                int slot = rowSlots[row];
+                rowSlots[row] = rowSlots[row + shift];
+                rowSlots[row + shift] = slot;
+            }
+            // Every column lost a square for each row cleared, and the columns the block covers are copied back after
+            for(int column = 0; column < width; column++) columnSquares[column] += rowsCleared;
+        }
+
+        // Pops the totals of the features, the heights and number of squares of the columns, and the rows the block covered
+        totalRowTransitions = log.popInt();
+        wellDepths = log.popInt();
+        bumpiness = log.popInt();
+        totalSquares = log.popInt();
+        aggregateHeight = log.popInt();
+        int to = log.popInt(), from = log.popInt();
+        for(int column = to; column >= from; column--) columnHeights[column] = log.popInt();
+        for(int column = right; column >= left; column--) columnSquares[column] = log.popInt();
+        for(int row = bottom; row >= top; row--){
+            rowTransitions[row] = log.popInt();
+            rows[row] = log.popLong();
+            log.popBytes(board, rowSlots[row] * width, width);
+        }
+        markDirty(dirtyTop, bottom);
+    }
+
+    // Gets the number of transitions between empty and occupied squares along a row, with the walls counted as occupied, or 0 for an empty row
+    private int transitions(long row){
+        if(row == 0) return 0;
+        // Changes between each column and the column to its right, then the changes from the left wall to the first column and the last column to the right wall
+        return Long.bitCount((row ^ (row >>> 1)) & (fullRow >>> 1)) + (int) (~row & 1) + (int) ((~row >>> (width - 1)) & 1);
+    }
+
+    // Gets the height of the column, starting from the height it's expected to have, and moving down while the square at the top is empty
+    private int findColumnHeight(int column, int expected){
+        int columnHeight = expected;
+        while(columnHeight > 0 && (rows[height - columnHeight] & (1L << column)) == 0) columnHeight--;
+        return columnHeight;
+    }
+
+    // Gets how far the column is below both columns beside it, with the walls as high as the board
+    private int wellDepth(int column){
+        int leftHeight = column == 0 ? height : columnHeights[column - 1], rightHeight = column == width - 1 ? height : columnHeights[column + 1];
+        return Math.max(0, Math.min(leftHeight, rightHeight) - columnHeights[column]);
+    }
+
+    // Adds (sign 1) or takes away (sign -1) the parts of the totals that depend on the heights of the columns from left to right
+    // Called with -1 before the heights change and with 1 after, so only the columns that changed and the columns beside them are counted again
+    private void updateColumnTerms(int left, int right, int sign){
+        for(int column = left; column <= right; column++) aggregateHeight += sign * columnHeights[column];
+        for(int column = Math.max(left - 1, 0); column <= Math.min(right, width - 2); column++) bumpiness += sign * Math.abs(columnHeights[column] - columnHeights[column + 1]);
+        for(int column = Math.max(left - 1, 0); column <= Math.min(right + 1, width - 1); column++) wellDepths += sign * wellDepth(column);
+    }
+
+    // Counts the totals that depend on the heights of every column again
+    private void updateColumnTotals(){
+        aggregateHeight = 0;
+        bumpiness = 0;
+        wellDepths = 0;
+        updateColumnTerms(0, width - 1, 1);
+    }
+
+    // Class which reads the features of the board
+    private class FeatureView implements Features {
+        public int getColumnHeight(int x) { return columnHeights[x]; }
+        public int getColumnHoles(int x) { return columnHeights[x] - columnSquares[x]; }
+        public int getWellDepth(int x) { return wellDepth(x); }
+        public int getRowTransitions(int y) { return rowTransitions[y]; }
+
+        public int getAggregateHeight() { return aggregateHeight; }
+        public int getHoles() { return aggregateHeight - totalSquares; }
+        public int getWellDepths() { return wellDepths; }
+        public int getRowTransitions() { return totalRowTransitions; }
+        public int getBumpiness() { return bumpiness; }
+
+        public int getMaxHeight(){
+            int maxHeight = 0;
+            for(int columnHeight : columnHeights) maxHeight = Math.max(maxHeight, columnHeight);
+            return maxHeight;
+        }
+    }
+
+    // Finds every position the block can come to rest at from its current position, with the finder's reusable buffers, and returns the number found
+    public int findPlacements(Tetrominoes currentTetromino, PlacementFinder finder){
+        return finder.find(this, currentTetromino);
+    }
+
+    // Gets the distance for a block to hard drop
+    public int drop(Tetrominoes currentTetromino){
+        // Gets the block, rotation and position of the block once, so each check is only a few row comparisons
+        return drop(currentTetromino.getTetrominoNum(), currentTetromino.getRotate(), currentTetromino.getX(), (int) Math.floor(currentTetromino.getY()));
+    }
+
+    // Gets the distance for a block with the tetrominoNum and rotation state to hard drop, with the top left of its boundary at x, y
+    public int drop(int tetrominoNum, int rotate, int x, int y){
+        // Finds the lowest row the block can be on before one of its columns reaches the top of the column of the board below it
+        int[] bottoms = Tetrominoes.TETROMINO_COLUMN_BOTTOM[tetrominoNum][rotate];
+        int left = x + Tetrominoes.TETROMINO_MIN_X[tetrominoNum][rotate], landing = Integer.MAX_VALUE;
+        for(int i = 0; i < bottoms.length; i++){
+            landing = Math.min(landing, height - columnHeights[left + i] - 1 - bottoms[i]);
+        }
+        // If the block is above the top of every column it covers, everything below it down to there is empty, so it lands there
+        if(landing >= y) return landing - y;
+
+        // Else the block is under an overhang, so checks while it doesn't collide if it moves down 1, incrementing the distance being dropped
+        int dy = 0;
+        while(!isCollide(tetrominoNum, rotate, x, y + dy + 1)){
+            dy++;
+        }
+        // Returns distance dropped
+        return dy;
+    }
+
+
+    // Copies every square and row of another board of the same size onto this board
+    public void copyFrom(Board other){
+        System.arraycopy(other.board, 0, board, 0, board.length);
+        System.arraycopy(other.rowSlots, 0, rowSlots, 0, height);
+        System.arraycopy(other.rows, 0, rows, 0, rows.length);
+        System.arraycopy(other.columnHeights, 0, columnHeights, 0, width);
+        System.arraycopy(other.columnSquares, 0, columnSquares, 0, width);
+        System.arraycopy(other.rowTransitions, 0, rowTransitions, 0, height);
+        aggregateHeight = other.aggregateHeight;
+        totalSquares = other.totalSquares;
+        bumpiness = other.bumpiness;
+        wellDepths = other.wellDepths;
+        totalRowTransitions = other.totalRowTransitions;
+        markDirty(0, height - 1);
+    }
+
+    // Writes every square of the board, as the occupied columns of each row followed by the colour of each occupied square, so an empty row takes one byte
+    public void save(DataOutput out) throws IOException {
+        for(int y = 0; y < height; y++){
+            VarInts.writeLong(out, rows[y]);
+            // Loops through the occupied columns from left to right
+            for(long columns = rows[y]; columns != 0; columns &= columns - 1){
+                out.writeByte(board[rowSlots[y] * width + Long.numberOfTrailingZeros(columns)]);
+            }
+        }
+    }
+
+    // Reads every square of a board of the same size written by save, and counts the features of the board again
+    public void load(DataInput in) throws IOException {
+        reset();
+        for(int y = 0; y < height; y++){
+            long row = VarInts.readLong(in);
+            if((row & ~fullRow) != 0) throw new IOException("Row " + y + " is wider than the board");
+            rows[y] = row;
+            for(long columns = row; columns != 0; columns &= columns - 1){
+                int column = Long.numberOfTrailingZeros(columns), colour = in.readByte();
+                if(colour < 0 || colour >= Square.NUM_COLOURS) throw new IOException("Square " + column + ", " + y + " has no colour");
+                board[rowSlots[y] * width + column] = (byte) colour;
+                columnSquares[column]++;
+                totalSquares++;
+            }
+            rowTransitions[y] = transitions(row);
+            totalRowTransitions += rowTransitions[y];
+        }
+        for(int column = 0; column < width; column++) columnHeights[column] = findColumnHeight(column, height);
+        updateColumnTotals();
+    }
+
+    // Resets the board by emptying every square and row
+    public void reset(){
+        Arrays.fill(board, EMPTY);
+        Arrays.fill(rows, 0);
+        markDirty(0, height - 1);
+        Arrays.fill(columnHeights, 0);
+        Arrays.fill(columnSquares, 0);
+        Arrays.fill(rowTransitions, 0);
+        totalSquares = 0;
+        totalRowTransitions = 0;
+        updateColumnTotals();
+    }
+}
@@ -0,0 +1,46 @@
+// BufferPool.java
+// Gordon Lin
+// Class which keeps direct buffers of one size that have been given back, so connections reuse them instead of allocating new ones outside the heap
+// Only used by one thread (each server worker has its own), so it's never locked
+
+package tetris;
+
+import java.nio.*;
+import java.util.ArrayDeque;
+
+public class BufferPool {
+    // Size of each buffer in bytes, and the most buffers kept while they aren't used
+    private final int bufferSize, maxKept;
+    // Buffers that have been given back and can be taken again
+    private final ArrayDeque<ByteBuffer> free;
+    // Number of buffers ever allocated, for the statistics of the server
+    private int allocated;
+
+    // Constructor which takes in the size of each buffer and the most buffers kept while they aren't used
+    public BufferPool(int bufferSize, int maxKept){
+        this.bufferSize = bufferSize;
+        this.maxKept = maxKept;
+        free = new ArrayDeque<>();
+    }
+
+    // Getter methods for the size of each buffer, the number allocated, and the number waiting to be taken
+    public int getBufferSize() { return bufferSize; }
+    public int getAllocated() { return allocated; }
+    public int getFree() { return free.size(); }
+
+    // Takes an empty buffer, reusing one that was given back if there is one
+    public ByteBuffer take(){
+        ByteBuffer buffer = free.pollLast();
+        if(buffer == null){
+            buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.BIG_ENDIAN);
+            allocated++;
+        }
+        return buffer;
+    }
+
+    // Gives a buffer back once it's no longer used, so it can be taken again
+    public void give(ByteBuffer buffer){
+        buffer.clear();
+        if(free.size() < maxKept) free.addLast(buffer);
+    }
+}
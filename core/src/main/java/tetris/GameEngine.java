@@ -0,0 +1,466 @@
+// GameEngine.java
+// Gordon Lin
+// Class which runs the rules of the Tetris game (holding, hard and soft dropping, wall kicks, levelling up) one step at a time
+// Doesn't use Swing or AWT, so the game can be played without a screen, and as fast as the steps are called
+
+package tetris;
+
+import java.io.*;
+
+public class GameEngine {
+    // Constants for each input in the input mask given to each step
+    // Left, right and soft drop are used while they're held, while hold, hard drop and the rotations are only used on the step they're first pressed
+    public static final int INPUT_LEFT = 1, INPUT_RIGHT = 1 << 1, INPUT_SOFT_DROP = 1 << 2, INPUT_HARD_DROP = 1 << 3,
+            INPUT_ROTATE_CLOCKWISE = 1 << 4, INPUT_ROTATE_COUNTERCLOCKWISE = 1 << 5, INPUT_HOLD = 1 << 6;
+    // Constants for the result returned by each step, where the lowest bits store the number of rows cleared, and the rest are flags of what happened in the step
+    public static final int RESULT_ROWS_CLEARED_MASK = 0b111, RESULT_LOCKED = 1 << 3, RESULT_HELD = 1 << 4, RESULT_LEVEL_UP = 1 << 5, RESULT_GAME_OVER = 1 << 6;
+    // Constant integers which store the width and height of the Tetris board by square size, and the width/height of the boards that show only a singular block
+    public static final int BOARD_WIDTH = 10, BOARD_HEIGHT = 24, SINGLE_BLOCK_BOARD_WIDTH_HEIGHT = 4;
+    // Constant doubles which store how much the speed which the block drops increments by per level, and the maximum speed
+    public static final double DROP_SPEED_INCREMENT = 0.05, MAX_SPEED = 1;
+    // Constant which stores the number of steps per second the speeds of the game are made for (a step every 60ms)
+    public static final double BASE_TICK_RATE = 1000.0 / 60;
+    // Constant which stores the inputs that are used while held
+    public static final int HELD_INPUTS = INPUT_LEFT | INPUT_RIGHT | INPUT_SOFT_DROP;
+    // Constant which stores every input the engine reads
+    public static final int ALL_INPUTS = HELD_INPUTS | INPUT_HARD_DROP | INPUT_ROTATE_CLOCKWISE | INPUT_ROTATE_COUNTERCLOCKWISE | INPUT_HOLD;
+    // Constant which stores the number of upcoming blocks known to the game by default
+    public static final int DEFAULT_PREVIEW_DEPTH = 5;
+
+    // Board object that stores the main board of the game
+    private final Board board;
+    // Score object that keeps track of score, number of rows cleared, and current level the game is on
+    private final Score score;
+    // PieceGenerator object which generates the blocks of this game only, so the same seed always plays the same game, and keeps the upcoming blocks
+    private final PieceGenerator pieces;
+    // Tetrominoes object that store the current block being played, and the current block being held
+    private Tetrominoes currentBlock, heldBlock;
+    // Tetrominoes object that isn't used while no block is held, so it can be reused for the current block when a block is first held
+    // The game only ever uses these two Tetrominoes objects, which are reused for new blocks instead of creating new ones
+    private Tetrominoes spareBlock;
+
+    // Integer that stores the final score of the last game upon game over, and the result of the current step
+    private int finalScore, result;
+    // Integers that store the rows cleared and level reached in the last game upon game over, as the score is reset when the game ends
+    private int finalRowsCleared, finalLevel;
+    // Double that stores the speed for which the current block being played drops per step
+    private double blockDropSpeed;
+    // Doubles that store how much a step is compared to a step at the base tick rate, and how far the held inputs are to repeating
+    private double tickScale, heldProgress;
+    // Booleans that store if you just held a block in the current block play, and if the game is over
+    private boolean justHeld, gameOver;
+    // Boolean that stores if held inputs repeat at the base tick rate, or are played every step they're given (when they're already repeated before the engine, as InputHandler does)
+    private boolean repeatHeldInputs;
+    // Row the top of the current block's boundary lands on if it's dropped, and the column, rotation and version of the board it was found for
+    // Moving down doesn't change where it lands, so it's only found again when the block moves sideways or rotates, a new block is played, or the board changes
+    private int landingY, landingX, landingRotate, landingBoardVersion;
+
+    // Constructor which creates a game on a default sized board that's never drawn
+    public GameEngine(long seed){
+        this(new Board(BOARD_WIDTH, BOARD_HEIGHT), new Score(), seed);
+    }
+
+    // Constructor which plays the game on the board and keeps the score in the score given, generating each block at random from the seed
+    public GameEngine(Board board, Score score, long seed){
+        this(board, score, new PieceGenerator(seed, false, DEFAULT_PREVIEW_DEPTH));
+    }
+
+    // Constructor which plays the game on the board and keeps the score in the score given, with blocks from the generator given
+    public GameEngine(Board board, Score score, PieceGenerator pieces){
+        this.board = board;
+        this.score = score;
+        this.pieces = pieces;
+        tickScale = 1;
+        repeatHeldInputs = true;
+
+        // Creates the two Tetrominoes objects used by the game
+        currentBlock = new Tetrominoes(0);
+        spareBlock = new Tetrominoes(0);
+
+        // Resets the game to its default values
+        reset();
+
+        // Sets gameOver to true as the game has yet to start, and finalScore to -1 as no score has been accomplished yet
+        gameOver = true;
+        finalScore = -1;
+    }
+
+    // Getter methods for the state of the game
+    public Board getBoard() { return board; }
+    public Score getScore() { return score; }
+    public Tetrominoes getCurrentBlock() { return currentBlock; }
+    public Tetrominoes getHeldBlock() { return heldBlock; }
+    public int getFinalScore() { return finalScore; }
+    public int getFinalRowsCleared() { return finalRowsCleared; }
+    public int getFinalLevel() { return finalLevel; }
+    public double getBlockDropSpeed() { return blockDropSpeed; }
+    public boolean isGameOver() { return gameOver; }
+    // Checks if the current block can be switched with the held block, as only one switch is allowed each time a block is played
+    public boolean canHold() { return !justHeld; }
+    // Gets an upcoming block without creating anything, where 0 is the next block, up to one less than the preview depth
+    public int getPreview(int index) { return pieces.peek(index); }
+    public int getPreviewDepth() { return pieces.getPreviewDepth(); }
+    // Checks if the blocks are drawn from a 7-bag
+    public boolean isSevenBag() { return pieces.isSevenBag(); }
+
+    // Gets the row the top of the current block's boundary lands on if it's dropped straight down, which is where its ghost is drawn
+    public int getLandingY(){
+        int x = currentBlock.getX(), rotate = currentBlock.getRotate(), version = board.getVersion();
+        if(x != landingX || rotate != landingRotate || version != landingBoardVersion){
+            int y = (int) Math.floor(currentBlock.getY());
+            landingY = y + board.drop(currentBlock.getTetrominoNum(), rotate, x, y);
+            landingX = x;
+            landingRotate = rotate;
+            landingBoardVersion = version;
+        }
+        return landingY;
+    }
+
+    // Gets the distance the current block drops if it's hard dropped, from where it lands
+    public int getDropDistance(){
+        return getLandingY() - (int) Math.floor(currentBlock.getY());
+    }
+
+    // Finds where the current block lands again the next time it's needed, as a new block is being played
+    private void newLandingBlock(){
+        landingX = Integer.MIN_VALUE;
+    }
+
+    // Sets the number of steps played per second, so blocks drop and held inputs repeat at the same speed however fast the steps are
+    public void setTickRate(double tickRate){
+        tickScale = BASE_TICK_RATE / tickRate;
+    }
+
+    // Sets if held inputs repeat at the base tick rate while they're given, or are played on every step they're given
+    public void setRepeatHeldInputs(boolean repeatHeldInputs){
+        this.repeatHeldInputs = repeatHeldInputs;
+    }
+    public boolean isRepeatHeldInputs() { return repeatHeldInputs; }
+
+    // Gets the number of rows cleared from the result of a step
+    public static int rowsCleared(int result){
+        return result & RESULT_ROWS_CLEARED_MASK;
+    }
+
+    // Starts a new game
+    public void start(){
+        gameOver = false;
+    }
+
+    // Starts a new game with blocks generated from the seed, so the game can be played again from only the seed and the inputs of each step
+    public void start(long seed){
+        pieces.setSeed(seed);
+        reset();
+        start();
+    }
+
+    // Writes the whole state of the game, so it can be loaded and played on from the same step (the tick rate isn't written, as it's set separately)
+    public void save(DataOutput out) throws IOException {
+        pieces.save(out);
+        board.save(out);
+        score.save(out);
+        // Writes the current block with its position, and only which block the held block is, as it's always centred and not rotated
+        out.writeByte(currentBlock.getTetrominoNum());
+        out.writeByte(currentBlock.getRotate());
+        VarInts.writeSignedInt(out, currentBlock.getX());
+        out.writeDouble(currentBlock.getY());
+        out.writeBoolean(heldBlock != null);
+        if(heldBlock != null) out.writeByte(heldBlock.getTetrominoNum());
+        out.writeBoolean(justHeld);
+        out.writeBoolean(gameOver);
+        VarInts.writeSignedInt(out, finalScore);
+        VarInts.writeInt(out, finalRowsCleared);
+        VarInts.writeInt(out, finalLevel);
+        out.writeDouble(blockDropSpeed);
+        out.writeDouble(heldProgress);
+    }
+
+    // Reads the whole state of a game on a board of the same size written by save, replacing the game being played
+    public void load(DataInput in) throws IOException {
+        pieces.load(in);
+        board.load(in);
+        score.load(in);
+        currentBlock.reset(PieceGenerator.readTetrominoNum(in));
+        int rotate = in.readByte();
+        if(rotate < 0 || rotate >= Tetrominoes.NUM_ROTATIONS) throw new IOException("Not a rotation: " + rotate);
+        currentBlock.rotate(rotate);
+        currentBlock.setLeftCornerPos(VarInts.readSignedInt(in), in.readDouble());
+        newLandingBlock();
+
+        // Uses the spare block as the held block if there's a held block, or keeps the held block as the spare block if there isn't
+        if(in.readBoolean()){
+            if(heldBlock == null){
+                heldBlock = spareBlock;
+                spareBlock = null;
+            }
+            heldBlock.reset(PieceGenerator.readTetrominoNum(in));
+            heldBlock.setCentrePos(SINGLE_BLOCK_BOARD_WIDTH_HEIGHT / 2, SINGLE_BLOCK_BOARD_WIDTH_HEIGHT / 2);
+        }
+        else if(heldBlock != null){
+            spareBlock = heldBlock;
+            heldBlock = null;
+        }
+
+        justHeld = in.readBoolean();
+        gameOver = in.readBoolean();
+        finalScore = VarInts.readSignedInt(in);
+        finalRowsCleared = VarInts.readInt(in);
+        finalLevel = VarInts.readInt(in);
+        blockDropSpeed = in.readDouble();
+        heldProgress = in.readDouble();
+    }
+
+    // Method which resets the game back to default values
+    public void reset(){
+        // Resets the board
+        board.reset();
+
+        // Reuses the current block as the next block from the queue and moves it to the top centre of the board
+        currentBlock.reset(pieces.next());
+        currentBlock.setTopCentrePos(board.getWidth() / 2, 0);
+        newLandingBlock();
+        // Resets heldBlock back to null, keeping it as the spare block
+        if(heldBlock != null) spareBlock = heldBlock;
+        heldBlock = null;
+
+        // Resets justHeld back to false
+        justHeld = false;
+        // Resets the score
+        score.reset();
+        // Resets the blockDropSpeed back to it's initial value, and the held inputs to repeat on the next step they're held
+        blockDropSpeed = DROP_SPEED_INCREMENT;
+        heldProgress = 1;
+    }
+
+    // Raises the board by the number of rows of garbage with a hole at holeColumn, in between steps (as an opponent attacking does)
+    // Returns RESULT_GAME_OVER if the garbage pushes squares off the top of the board, or the current block can't fit above it, or 0 if the game carries on
+    public int addGarbage(int numRows, int holeColumn){
+        if(gameOver || numRows <= 0) return 0;
+        result = 0;
+        if(board.addGarbage(numRows, holeColumn)) checkGameOver();
+        // Squares were pushed off the top of the board, so the game is over
+        else endGame();
+        return result & RESULT_GAME_OVER;
+    }
+
+    // Method which checks if the game is over, after each row clear and the current block is added to the top
+    private void checkGameOver(){
+        // Checks if the current block does not collide at the top of the board
+        if(!board.isCollide(currentBlock)) return;
+
+        // Checks if translating the block 1 unit up doesn't collide
+        if(!board.isCollide(currentBlock, 0, -1)) {
+            // Translates the block 1 unit up
+            currentBlock.move(0, -1);
+            return;
+        }
+
+        endGame();
+    }
+
+    // Method which ends the game
+    private void endGame(){
+        // Sets the game to be over
+        gameOver = true;
+        result |= RESULT_GAME_OVER;
+        // Gets the final score of the user, with the rows cleared and level reached
+        finalScore = score.getScore();
+        finalRowsCleared = score.getRowsCleared();
+        finalLevel = score.getLevel();
+        // Calls reset method to reset the game
+        reset();
+    }
+
+    // Method called when a block has fallen and rested
+    private void fallenBlock(){
+        // Sets justHeld to false as currentBlock being used is now out of play
+        justHeld = false;
+
+        // Adds the block to the board
+        board.addBlock(currentBlock);
+        // Gets the number of rows cleared, which can only be the rows the block covers
+        int tetrominoNum = currentBlock.getTetrominoNum(), rotate = currentBlock.getRotate();
+        int top = (int) currentBlock.getY() + Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate];
+        int rowsCleared = board.clearRows(top, top + Tetrominoes.TETROMINO_ROW_MASKS[tetrominoNum][rotate].length - 1);
+        result |= RESULT_LOCKED | rowsCleared | scoreRows(rowsCleared);
+
+        // Reuses the fallen block as the next block from the queue and moves it to the top centre of the board
+        currentBlock.reset(pieces.next());
+        currentBlock.setTopCentrePos(board.getWidth() / 2, 0);
+        newLandingBlock();
+
+        // Checks if the game is over with the new block
+        checkGameOver();
+    }
+
+    // Scores the rows cleared, and speeds up the blocks if the rows cleared level up, returning RESULT_LEVEL_UP if they did
+    private int scoreRows(int rowsCleared){
+        // Checks if adding a new row will result in a level up
+        if(!score.rowClearLevelUp(rowsCleared)) return 0;
+        // Increments the speed each block is dropped by, but makes sure it does not cap out at 1 square/frame
+        blockDropSpeed += DROP_SPEED_INCREMENT;
+        blockDropSpeed = Math.min(blockDropSpeed, MAX_SPEED);
+        return RESULT_LEVEL_UP;
+    }
+
+    // Locks a block at a placement the way a block falling there does, adding it to the board, clearing rows, and scoring them, and pushes what's needed to undo it onto the log
+    // Only changes the board, score and speed of the blocks, and not the current, held or upcoming blocks, so a search can play many blocks ahead and undo them without copying the game
+    // Returns RESULT_LOCKED, the rows cleared, and RESULT_LEVEL_UP if the rows cleared level up
+    public int make(int tetrominoNum, int rotate, int x, int y, UndoLog log){
+        log.pushInt(score.getScore());
+        log.pushInt(score.getLevel());
+        log.pushInt(score.getRowsCleared());
+        log.pushLong(Double.doubleToRawLongBits(blockDropSpeed));
+        int rowsCleared = board.make(tetrominoNum, rotate, x, y, log);
+        return RESULT_LOCKED | rowsCleared | scoreRows(rowsCleared);
+    }
+
+    // Undoes the last block locked by make, so the board, score and speed of the blocks are exactly as they were before it
+    public void unmake(UndoLog log){
+        board.unmake(log);
+        blockDropSpeed = Double.longBitsToDouble(log.popLong());
+        int rowsCleared = log.popInt(), level = log.popInt();
+        score.restore(log.popInt(), level, rowsCleared);
+    }
+
+    // Switches the current block with the held block, or the next block if there isn't a held block
+    private void hold(){
+        // Sets justHeld to true signifying that a switch to a held block has occurred in this play of the game
+        justHeld = true;
+        result |= RESULT_HELD;
+        // Temporary storage for the heldBlock
+        Tetrominoes temp = heldBlock;
+
+        // Sets the heldBlock to the currentBlock being played, and sets it's position to the centre of the board that shows the held block and rotation to default
+        heldBlock = currentBlock;
+        heldBlock.setCentrePos(SINGLE_BLOCK_BOARD_WIDTH_HEIGHT / 2, SINGLE_BLOCK_BOARD_WIDTH_HEIGHT / 2);
+        heldBlock.resetRotate();
+
+        // Checks if there wasn't a held block available
+        if(temp == null){
+            // Reuses the spare block as the next block from the queue
+            currentBlock = spareBlock;
+            spareBlock = null;
+            currentBlock.reset(pieces.next());
+        }
+        // Else the currentBlock becomes the previous heldBlock
+        else currentBlock = temp;
+
+        // Sets the position of the currentBlock to the top centre of the playing board
+        currentBlock.setTopCentrePos(board.getWidth() / 2, 0);
+        newLandingBlock();
+
+        // Checks if the game is over
+        checkGameOver();
+    }
+
+    // Rotates the current block by rotate (1 for clockwise, -1 for counterclockwise), wall kicking it with the translations given if rotating on the spot collides
+    private void rotate(int rotate, int[][][][] translations){
+        // Checks if rotating on the spot won't cause a collision, and if so, rotates it normally
+        if(!board.isCollide(currentBlock, rotate)){
+            currentBlock.rotate(rotate);
+            return;
+        }
+
+        // I blocks have different set of possible translations for wall kicking
+        int translationIndex = currentBlock.getTetrominoNum() == Tetrominoes.I_BLOCK_VALUE ? Tetrominoes.I_BLOCK_VALUE : Tetrominoes.NON_I_BLOCK_ROTATION_TRANSLATION_INDEX;
+
+        // Loops through all possible translations for wall kicks
+        for(int[] translation : translations[translationIndex][currentBlock.getRotate()]){
+            // Checks if translating and rotating the block does not result in a collision
+            if(!board.isCollide(currentBlock, translation[0], translation[1], rotate)){
+                // Translates the block accordingly and rotates the block
+                currentBlock.rotate(rotate);
+                currentBlock.move(translation[0], translation[1]);
+                return;
+            }
+        }
+    }
+
+    // Main step method that checks if each move from the inputs is possible and moves the block accordingly, and returns the result of the step
+    public int step(int inputs){
+        // Nothing is played while the game is over
+        if(gameOver) return RESULT_GAME_OVER;
+        result = 0;
+
+        // Checks if the move being played by the user is switching to a held block
+        if((inputs & INPUT_HOLD) != 0 && !justHeld){
+            hold();
+            return result;
+        }
+
+        // Checks if the held inputs repeat on this step, as they repeat at the speed of the base tick rate
+        // Held inputs are used on the first step they're held, then every time a base step's worth of steps have passed
+        // Held inputs are played every step they're given if they're repeated before the engine
+        boolean repeat = true;
+        if(repeatHeldInputs && (inputs & HELD_INPUTS) != 0){
+            heldProgress += tickScale;
+            repeat = heldProgress >= 1;
+            if(repeat) heldProgress -= 1;
+        }
+        else heldProgress = 1;
+        // Ignores the held inputs if they don't repeat on this step
+        if(!repeat) inputs &= ~HELD_INPUTS;
+
+        // Stores the horizontal change of the block
+        int dx = 0;
+
+        // If the user is holding right, then it changes the horizontal speed to 1, else if the user is holding left, it changes it to -1
+        if((inputs & INPUT_RIGHT) != 0) dx = 1;
+        else if((inputs & INPUT_LEFT) != 0) dx = -1;
+
+        // If the user pressed hard drop - Hard drops the block
+        if((inputs & INPUT_HARD_DROP) != 0){
+            // Gets the distance the block gets hard dropped, from where it was already found to land for its ghost
+            int dy = getDropDistance();
+            // Adds distance hard dropped into score multiplied by hard drop multiplier
+            score.hardDrop(dy);
+
+            // Moves the block down to the row it lands on, set exactly so the fraction of its position can't round it past the row
+            currentBlock.setY(getLandingY());
+
+            // Calls the method fallenBlock as the block has rested and fallen
+            fallenBlock();
+            return result;
+        }
+
+        // Gets the speed that each block will drop in this step
+        double dy = blockDropSpeed * tickScale;
+
+        // Checks if the user is holding down soft drop, changing the speed of drop to 1 square/step, and incrementing the score
+        if((inputs & INPUT_SOFT_DROP) != 0) {
+            dy = 1;
+            score.increment();
+        }
+
+        // Checks if the current block doesn't collide with anything if it moves down at the speed specified, and if so, moves the block down dy units
+        if(!board.isCollide(currentBlock, 0, dy)) {
+            currentBlock.move(0, dy);
+        }
+
+        // Checks if the user specified a left/right movement, and moving left/right doesn't cause a collision
+        if (dx != 0 && !board.isCollide(currentBlock, dx, 0)){
+            // Moves the block to the left or right (depending on dx from the user's input)
+            currentBlock.move(dx, 0);
+            // Checks if the block is resting on another block or bottom, and will collide if it moves one square down
+            if(board.isCollide(currentBlock, 0, 1)) {
+                // Resets the amount of movement the block needs to move down in order to rest and clear a row by truncating it's Y value
+                currentBlock.truncateY();
+            }
+        }
+
+        // Checks if the block isn't an O block, as O blocks cannot rotate
+        if (currentBlock.getTetrominoNum() != Tetrominoes.O_BLOCK_VALUE){
+            // Rotates right (clockwise) or left (counterclockwise) if pressed
+            if((inputs & INPUT_ROTATE_CLOCKWISE) != 0) rotate(1, Tetrominoes.TETROMINO_CLOCKWISE_ROTATION_TRANSLATION);
+            else if((inputs & INPUT_ROTATE_COUNTERCLOCKWISE) != 0) rotate(-1, Tetrominoes.TETROMINO_COUNTERCLOCKWISE_ROTATION_TRANSLATION);
+        }
+
+        // Checks if moving down at the speed vertical speed will result in a collision
+        if(board.isCollide(currentBlock, 0, dy)){
+            // Calls the method fallenBlock as the block has rested and fallen
+            fallenBlock();
+        }
+        return result;
+    }
+}
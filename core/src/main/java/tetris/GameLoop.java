@@ -0,0 +1,89 @@
+// GameLoop.java
+// Gordon Lin
+// Class which runs the game on its own thread, stepping the game at a fixed rate and rendering it separately between steps
+
+package tetris;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class GameLoop implements Runnable {
+    // Constant which stores the most steps played to catch up after the loop is stalled, so the game never spirals trying to catch up
+    public static final int MAX_CATCH_UP_STEPS = 5;
+    // Constant which stores the number of nanoseconds in a second
+    public static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // Interface for what the loop runs, with a fixed step of the game given the time (System.nanoTime) the step ends at, and a render given how far it is in between the last step and the next one (0 to 1)
+    // Steps played to catch up end at the times they would have ended at, so inputs timestamped in between are played on the step they happened in
+    public interface Listener {
+        void tick(long stepEnd);
+        void render(double interpolation);
+    }
+
+    // Listener which is stepped and rendered by the loop
+    private final Listener listener;
+    // Nanoseconds between each step and each render
+    private final long tickNanos, frameNanos;
+
+    // Thread which the loop runs on, or null if it isn't running, read by the loop thread and set by other threads
+    // Each thread only runs while it's still the loop's thread, so a thread stopped and replaced by a quick restart stops once it finishes its step, instead of running alongside the new one
+    private volatile Thread thread;
+
+    // Constructor which takes in the listener, the number of steps per second, and the number of renders per second
+    public GameLoop(Listener listener, int tickRate, int frameRate){
+        this.listener = listener;
+        tickNanos = NANOS_PER_SECOND / tickRate;
+        frameNanos = NANOS_PER_SECOND / frameRate;
+    }
+
+    // Starts the loop on a new thread if it isn't running
+    public synchronized void start(){
+        if(thread != null) return;
+        Thread thread = new Thread(this, "Game Loop");
+        thread.setDaemon(true);
+        this.thread = thread;
+        thread.start();
+    }
+
+    // Stops the loop after its current step or render, and can be called from the loop itself
+    public synchronized void stop(){
+        Thread thread = this.thread;
+        this.thread = null;
+        if(thread != null && thread != Thread.currentThread()) LockSupport.unpark(thread);
+    }
+
+    // Checks if the loop is running on the thread given
+    private boolean isRunning(Thread self){
+        return thread == self;
+    }
+
+    @Override
+    public void run(){
+        // Stores the time of the last loop and the last render, and the time that hasn't been stepped yet
+        long previous = System.nanoTime(), lastRender = previous - frameNanos;
+        long accumulator = 0;
+        Thread self = Thread.currentThread();
+
+        while(isRunning(self)){
+            long now = System.nanoTime();
+            // Adds the time passed to the time to step, capping it so that after a stall it only catches up a few steps
+            accumulator = Math.min(accumulator + now - previous, tickNanos * MAX_CATCH_UP_STEPS);
+            previous = now;
+
+            // Plays a fixed step for each step's worth of time passed
+            while(accumulator >= tickNanos && isRunning(self)){
+                listener.tick(now - accumulator + tickNanos);
+                accumulator -= tickNanos;
+            }
+
+            // Renders if it's time for a new frame, given how far it is between the last step and the next one
+            if(now - lastRender >= frameNanos && isRunning(self)){
+                lastRender = now;
+                listener.render((double) accumulator / tickNanos);
+            }
+
+            // Waits until the next step or the next frame, whichever comes first
+            long untilTick = tickNanos - accumulator, untilFrame = lastRender + frameNanos - System.nanoTime();
+            LockSupport.parkNanos(Math.min(untilTick, untilFrame));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+// Histogram.java
+// Gordon Lin
+// Class which counts values into buckets so percentiles of the values can be found, and can be recorded into from many threads at once without locking
+// Values below 64 each have their own bucket, and larger values share buckets 1/32 of their size wide, so each percentile is within about 3% of the real value
+
+package tetris;
+
+import java.util.concurrent.atomic.*;
+
+public class Histogram {
+    // Constant which stores the number of bits of a value kept for its bucket, and the number of buckets for each power of 2
+    private static final int SUB_BUCKET_BITS = 5, SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Constant which stores the number of buckets, enough for any positive long
+    private static final int NUM_BUCKETS = bucket(Long.MAX_VALUE) + 1;
+
+    // Number of values counted into each bucket
+    private final AtomicLongArray buckets;
+    // Number of values, sum of the values, and the smallest and largest value
+    private final LongAdder count, sum;
+    private final LongAccumulator min, max;
+
+    // Constructor which creates an empty histogram
+    public Histogram(){
+        buckets = new AtomicLongArray(NUM_BUCKETS);
+        count = new LongAdder();
+        sum = new LongAdder();
+        min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    }
+
+    // Counts a value, where negative values are counted as 0
+    public void record(long value){
+        value = Math.max(value, 0);
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    // Getter methods for the number of values, and the smallest, largest and mean value (0 if nothing was counted)
+    public long getCount() { return count.sum(); }
+    public long getMin() { return getCount() == 0 ? 0 : min.get(); }
+    public long getMax() { return getCount() == 0 ? 0 : max.get(); }
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    // Gets the value which the percentage (0 to 100) of values are less than or equal to, as the largest value of its bucket
+    public long getPercentile(double percentile){
+        // Reads the count of each bucket once, so values counted while reading don't change the total
+        long[] counts = new long[NUM_BUCKETS];
+        long total = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++){
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if(total == 0) return 0;
+
+        // Finds the bucket the value at the percentage falls into
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++){
+            seen += counts[i];
+            if(seen >= target) return Math.min(bucketMax(i), getMax());
+        }
+        return getMax();
+    }
+
+    // Gets the values which each percentage (0 to 100, from smallest to largest) of values are less than or equal to into the array, without creating anything, so it can be read while the game runs
+    // Values counted while reading can only move a percentile to a later bucket, so each value is still one that was counted
+    public void getPercentiles(double[] percentiles, long[] values){
+        long total = 0;
+        for(int i = 0; i < NUM_BUCKETS; i++) total += buckets.get(i);
+        long max = getMax(), seen = 0;
+        int next = 0;
+        // Walks the buckets once, filling in each percentile as the values seen pass it
+        for(int i = 0; i < NUM_BUCKETS && next < percentiles.length && total > 0; i++){
+            seen += buckets.get(i);
+            while(next < percentiles.length && seen >= Math.max(1, (long) Math.ceil(total * Math.min(percentiles[next], 100) / 100))){
+                values[next++] = Math.min(bucketMax(i), max);
+            }
+        }
+        // Nothing was counted, or values were reset while reading
+        for(; next < percentiles.length; next++) values[next] = total == 0 ? 0 : max;
+    }
+
+    // Forgets every value counted, where values counted at the same time may be partly kept
+    public void reset(){
+        for(int i = 0; i < NUM_BUCKETS; i++) buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    // Gets the bucket a value is counted into
+    private static int bucket(long value){
+        // Values below twice the number of sub buckets each get their own bucket
+        if(value < SUB_BUCKETS * 2) return (int) value;
+        // Larger values are bucketed by their highest bit, and the SUB_BUCKET_BITS bits after it
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // Gets the largest value counted into a bucket
+    private static long bucketMax(int bucket){
+        if(bucket < SUB_BUCKETS * 2) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long first = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return first + (1L << shift) - 1;
+    }
+
+    // Gets a summary of the values, with the count, mean, and the most used percentiles
+    public String toString(){
+        return String.format("count=%d mean=%.1f min=%d p50=%d p90=%d p99=%d max=%d",
+                getCount(), getMean(), getMin(), getPercentile(50), getPercentile(90), getPercentile(99), getMax());
+    }
+}
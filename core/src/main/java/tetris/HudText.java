@@ -0,0 +1,130 @@
+// HudText.java
+// Gordon Lin
+// Class which stores a font derived at one size with its measurements, and the digits 0-9 already drawn as images
+// Used to draw text that's drawn often, so fonts aren't derived, constant text isn't measured, and numbers aren't laid out each time
+
+package tetris;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.HashMap;
+
+public class HudText {
+    // Constant which stores the number of digits
+    public static final int NUM_DIGITS = 10;
+
+    // Font derived at the size of the text, and its FontMetrics
+    private final Font font;
+    private final FontMetrics fm;
+    // Widths of text that has been measured, so constant text is only measured once
+    private final HashMap<String, Integer> widths;
+    // Position of each digit in the image of digits, and the width of each digit
+    private final int[] digitX, digitWidth;
+
+    // Image with each digit drawn side by side in white, and the screen it was drawn for
+    private BufferedImage digits;
+    private GraphicsConfiguration configuration;
+    // Array used to split numbers into digits when drawing them
+    private final int[] digitBuffer;
+
+    // Constructor which derives the font at the size given, and measures the font and each digit
+    public HudText(Font font, float size){
+        this.font = font.deriveFont(size);
+        // Gets the FontMetrics from an image, as the font is measured before anything is shown
+        Graphics2D g2d = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        fm = g2d.getFontMetrics(this.font);
+        g2d.dispose();
+
+        widths = new HashMap<>();
+        // Measures each digit and its position in the image of digits
+        digitX = new int[NUM_DIGITS];
+        digitWidth = new int[NUM_DIGITS];
+        int x = 0;
+        for(int digit = 0; digit < NUM_DIGITS; digit++){
+            digitX[digit] = x;
+            digitWidth[digit] = fm.charWidth((char) ('0' + digit));
+            x += digitWidth[digit];
+        }
+        // An int has at most 10 digits
+        digitBuffer = new int[10];
+    }
+
+    // Getter methods for the font, its FontMetrics, and the height of a line
+    public Font getFont() { return font; }
+    public FontMetrics getFontMetrics() { return fm; }
+    public int getHeight() { return fm.getHeight(); }
+    public int getAscent() { return fm.getAscent(); }
+
+    // Gets the width of the text, measuring it only the first time
+    public int stringWidth(String text){
+        Integer width = widths.get(text);
+        if(width == null){
+            width = fm.stringWidth(text);
+            widths.put(text, width);
+        }
+        return width;
+    }
+
+    // Gets the width of a number drawn with the images of each digit
+    public int numberWidth(int value){
+        int width = 0;
+        int count = splitDigits(value);
+        for(int i = 0; i < count; i++) width += digitWidth[digitBuffer[i]];
+        return width;
+    }
+
+    // Draws the text with the font, with the baseline at y
+    public void drawString(Graphics2D g2d, String text, int x, int y){
+        g2d.setFont(font);
+        g2d.drawString(text, x, y);
+    }
+
+    // Draws the text with the font, centred to centreX with the baseline at y
+    public void drawCentred(Graphics2D g2d, String text, int centreX, int y){
+        drawString(g2d, text, centreX - stringWidth(text) / 2, y);
+    }
+
+    // Draws a number that isn't negative by copying the image of each digit, with the baseline at y, and returns the width drawn
+    public int drawNumber(Graphics2D g2d, int value, int x, int y){
+        // Draws the image of the digits the first time, or again if the screen changed
+        GraphicsConfiguration configuration = g2d.getDeviceConfiguration();
+        if(digits == null || configuration != this.configuration){
+            this.configuration = configuration;
+            buildDigits();
+        }
+
+        int startX = x, top = y - fm.getAscent(), height = fm.getHeight();
+        int count = splitDigits(value);
+        // Copies the image of each digit, from the most significant digit
+        for(int i = count - 1; i >= 0; i--){
+            int digit = digitBuffer[i];
+            g2d.drawImage(digits, x, top, x + digitWidth[digit], top + height, digitX[digit], 0, digitX[digit] + digitWidth[digit], height, null);
+            x += digitWidth[digit];
+        }
+        return x - startX;
+    }
+
+    // Splits the value into its digits, from least significant to most significant, and returns the number of digits
+    // A negative value has no digits to draw, so it's drawn as 0 instead of indexing the digits with a negative remainder
+    private int splitDigits(int value){
+        if(value < 0) value = 0;
+        int count = 0;
+        do{
+            digitBuffer[count++] = value % 10;
+            value /= 10;
+        } while(value > 0);
+        return count;
+    }
+
+    // Draws each digit in white side by side into an image in the format of the screen
+    private void buildDigits(){
+        digits = configuration.createCompatibleImage(Math.max(1, digitX[NUM_DIGITS - 1] + digitWidth[NUM_DIGITS - 1]), fm.getHeight(), Transparency.TRANSLUCENT);
+        Graphics2D g2d = digits.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(font);
+        for(int digit = 0; digit < NUM_DIGITS; digit++){
+            g2d.drawString(String.valueOf(digit), digitX[digit], fm.getAscent());
+        }
+        g2d.dispose();
+    }
+}
@@ -0,0 +1,164 @@
+// InputHandler.java
+// Gordon Lin
+// Class which turns the timestamped presses and releases of an InputQueue into the inputs of each step of the game, in the order they happened
+// Holding left or right moves the block once when pressed, then again after the delayed auto-shift (DAS), then every auto-repeat rate (ARR) while held
+// Presses are never lost between steps: a press that can't be played on the same step as the presses before it (such as a hard drop after a rotation) waits for the next step
+
+package tetris;
+
+import java.util.concurrent.TimeUnit;
+
+public class InputHandler {
+    // Constants which store the default delayed auto-shift and auto-repeat rate, and the default time between each row soft dropped (one base step)
+    public static final long DEFAULT_DAS = TimeUnit.MILLISECONDS.toNanos(167), DEFAULT_ARR = TimeUnit.MILLISECONDS.toNanos(33);
+    public static final long DEFAULT_SOFT_DROP_INTERVAL = (long) (TimeUnit.SECONDS.toNanos(1) / GameEngine.BASE_TICK_RATE);
+    // Constants for the inputs that end a step (the engine plays nothing else on a step it holds or hard drops), and the inputs that move the block sideways or rotate it
+    private static final int ENDING_INPUTS = GameEngine.INPUT_HOLD | GameEngine.INPUT_HARD_DROP, SHIFT_INPUTS = GameEngine.INPUT_LEFT | GameEngine.INPUT_RIGHT,
+            ROTATE_INPUTS = GameEngine.INPUT_ROTATE_CLOCKWISE | GameEngine.INPUT_ROTATE_COUNTERCLOCKWISE;
+
+    // Queue the presses and releases are taken from
+    private final InputQueue queue;
+    // Delayed auto-shift, auto-repeat rate, and time between each row soft dropped, in nanoseconds
+    private final long das, arr, softDropInterval;
+
+    // Booleans which store if left, right, and soft drop are held
+    private boolean leftHeld, rightHeld, softDropHeld;
+    // Input of the direction being shifted while held (the last of left and right pressed), or 0 if neither is held
+    private int shiftInput;
+    // Times of the next shift while held and the next row soft dropped while held
+    private long nextShift, nextSoftDrop;
+    // Time before which every event is thrown away (set when a new game starts), and the time last seen by the consumer
+    private volatile long discardBefore;
+    private long discarded;
+
+    // Constructor which takes in the queue, and the delayed auto-shift, auto-repeat rate, and time between each row soft dropped in nanoseconds
+    public InputHandler(InputQueue queue, long das, long arr, long softDropInterval){
+        if(das < 0 || arr < 0 || softDropInterval < 0) throw new IllegalArgumentException("Times can't be negative");
+        this.queue = queue;
+        this.das = das;
+        this.arr = arr;
+        this.softDropInterval = softDropInterval;
+        // Events from before the handler was created are thrown away
+        discardBefore = System.nanoTime();
+        discarded = discardBefore;
+    }
+
+    // Constructor which uses the default times
+    public InputHandler(InputQueue queue){
+        this(queue, DEFAULT_DAS, DEFAULT_ARR, DEFAULT_SOFT_DROP_INTERVAL);
+    }
+
+    // Throws away every event before the time given, and forgets what's held, the next time the inputs of a step are taken
+    // Can be called from any thread, such as when a new game is started from the thread reading the keyboard
+    public void discardBefore(long time){
+        discardBefore = time;
+    }
+
+    // Gets the inputs of the step which ends at the time given (System.nanoTime), called by the thread playing the game
+    public int inputs(long stepEnd){
+        // Forgets what's held if events are being thrown away from a new time
+        long discard = discardBefore;
+        if(discard != discarded){
+            discarded = discard;
+            leftHeld = rightHeld = softDropHeld = false;
+            shiftInput = 0;
+        }
+
+        int inputs = 0;
+        // Plays the events up to the end of the step in order, stopping at the first press that can't be played on this step
+        while(!queue.isEmpty()){
+            long time = queue.peekTime();
+            if(time - stepEnd > 0) break;
+            Action action = queue.peekAction();
+            boolean pressed = queue.peekPressed();
+            if(time - discard >= 0){
+                if(pressed && !canPlay(inputs, action)) break;
+                if(pressed) inputs |= press(action, time);
+                else release(action, time);
+            }
+            queue.remove();
+        }
+
+        // Shifts again while left or right is held, once the delay has passed and every repeat after it, at most once a step
+        if(shiftInput != 0 && (inputs & (ENDING_INPUTS | SHIFT_INPUTS)) == 0 && stepEnd - nextShift >= 0){
+            inputs |= shiftInput;
+            // The next shift is at least the next step, so shifts don't build up when the repeat rate is faster than the steps
+            nextShift = Math.max(nextShift + arr, stepEnd + 1);
+        }
+        // Soft drops again while soft drop is held
+        if(softDropHeld && (inputs & (ENDING_INPUTS | GameEngine.INPUT_SOFT_DROP)) == 0 && stepEnd - nextSoftDrop >= 0){
+            inputs |= GameEngine.INPUT_SOFT_DROP;
+            nextSoftDrop = Math.max(nextSoftDrop + softDropInterval, stepEnd + 1);
+        }
+        return inputs;
+    }
+
+    // Checks if the action can be played on the same step as the inputs already played on it
+    // The engine only plays one sideways move and one rotation a step, and nothing else on a step it holds or hard drops
+    private static boolean canPlay(int inputs, Action action){
+        if((inputs & ENDING_INPUTS) != 0) return false;
+        switch(action){
+            case HARD_DROP:
+            case HOLD:
+                return inputs == 0;
+            case LEFT:
+            case RIGHT:
+                return (inputs & SHIFT_INPUTS) == 0;
+            case ROTATE_CLOCKWISE:
+            case ROTATE_COUNTERCLOCKWISE:
+                return (inputs & ROTATE_INPUTS) == 0;
+            default:
+                return (inputs & action.getInput()) == 0;
+        }
+    }
+
+    // Plays a press of the action, and returns the input it plays on this step
+    private int press(Action action, long time){
+        switch(action){
+            case LEFT:
+                leftHeld = true;
+                return startShift(GameEngine.INPUT_LEFT, time);
+            case RIGHT:
+                rightHeld = true;
+                return startShift(GameEngine.INPUT_RIGHT, time);
+            case SOFT_DROP:
+                softDropHeld = true;
+                nextSoftDrop = time + softDropInterval;
+                return GameEngine.INPUT_SOFT_DROP;
+            default:
+                return action.getInput();
+        }
+    }
+
+    // Shifts in the direction pressed once, and starts the delay before it shifts again
+    private int startShift(int input, long time){
+        shiftInput = input;
+        nextShift = time + das;
+        return input;
+    }
+
+    // Plays a release of the action, going back to shifting in the other direction if it's still held
+    private void release(Action action, long time){
+        switch(action){
+            case LEFT:
+                leftHeld = false;
+                if(shiftInput == GameEngine.INPUT_LEFT) shiftInput = rightHeld ? startShiftHeld(GameEngine.INPUT_RIGHT, time) : 0;
+                break;
+            case RIGHT:
+                rightHeld = false;
+                if(shiftInput == GameEngine.INPUT_RIGHT) shiftInput = leftHeld ? startShiftHeld(GameEngine.INPUT_LEFT, time) : 0;
+                break;
+            case SOFT_DROP:
+                softDropHeld = false;
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Starts the delay before shifting in a direction that was already held, without shifting now
+    private int startShiftHeld(int input, long time){
+        nextShift = time + das;
+        return input;
+    }
+}
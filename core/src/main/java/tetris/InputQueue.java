@@ -0,0 +1,74 @@
+// InputQueue.java
+// Gordon Lin
+// Class which passes timestamped presses and releases of actions from one thread (the thread reading the keyboard) to one other thread (the thread playing the game)
+// A ring buffer created once, where each side only writes its own index, so neither side ever locks or waits for the other
+
+package tetris;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class InputQueue {
+    // Constant which stores the number of events the queue holds by default
+    public static final int DEFAULT_CAPACITY = 256;
+
+    // Time (System.nanoTime) of each event, and each event stored as the ordinal of its action shifted left once, with the lowest bit set for a press
+    private final long[] times;
+    private final byte[] events;
+    // Mask which wraps an index around the ring buffer, as the capacity is a power of two
+    private final int mask;
+    // Number of events taken by the consumer and added by the producer, each only written by its own side
+    // The producer publishes an event by setting the tail after writing it, and the consumer frees its slot by setting the head after reading it
+    private final AtomicLong head, tail;
+    // Head last read by the producer, and tail last read by the consumer, so each side only reads the other's index when it looks full or empty
+    private long cachedHead, cachedTail;
+
+    // Constructor which creates a queue holding at least the number of events given
+    public InputQueue(int capacity){
+        if(capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("Capacity must be between 1 and " + (1 << 30));
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        times = new long[size];
+        events = new byte[size];
+        mask = size - 1;
+        head = new AtomicLong();
+        tail = new AtomicLong();
+    }
+
+    // Constructor which creates a queue holding the default number of events
+    public InputQueue(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    // Adds a press or release of the action at the time given, called only by the producer
+    // Returns false without adding it if the queue is full
+    public boolean offer(Action action, boolean pressed, long time){
+        long t = tail.get();
+        if(t - cachedHead == times.length){
+            cachedHead = head.get();
+            if(t - cachedHead == times.length) return false;
+        }
+        int index = (int) t & mask;
+        times[index] = time;
+        events[index] = (byte) (action.ordinal() << 1 | (pressed ? 1 : 0));
+        // Publishes the event after it's written
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Checks if there are no events to take, called only by the consumer
+    public boolean isEmpty(){
+        long h = head.get();
+        if(h != cachedTail) return false;
+        cachedTail = tail.get();
+        return h == cachedTail;
+    }
+
+    // Getter methods for the first event of the queue, which can only be called by the consumer when the queue isn't empty
+    public long peekTime() { return times[(int) head.get() & mask]; }
+    public Action peekAction() { return Action.get(events[(int) head.get() & mask] >>> 1); }
+    public boolean peekPressed() { return (events[(int) head.get() & mask] & 1) != 0; }
+
+    // Takes away the first event of the queue, called only by the consumer
+    public void remove(){
+        head.lazySet(head.get() + 1);
+    }
+}
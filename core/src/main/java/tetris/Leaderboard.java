@@ -0,0 +1,317 @@
+// Leaderboard.java
+// Gordon Lin
+// Class which keeps the result of every finished game (score, rows cleared, level, how long it lasted and its seed) in a log file, with the best games overall and on each day
+// The log is a header followed by records of the same size, mapped into memory a segment at a time, so a game is added by claiming the next record and writing into it, without locking or seeking
+// Many threads can add games at once (as a tournament does), as each claims its own record, and the time it ended is written last so a record is only read once it's whole
+// The best games and the days are kept in memory only, and are found again when the log is opened by reading every record straight out of the mapped segments
+
+package tetris;
+
+import java.io.*;
+import java.lang.invoke.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class Leaderboard implements Closeable {
+    // Class which stores the result of one game read from the log
+    public static class Entry {
+        // Index of the record in the log, the seed of the game, and the time it ended (milliseconds since the epoch)
+        private final int index;
+        private final long seed, endTime;
+        // Final score, rows cleared, level reached, and how long the game lasted in milliseconds of game time
+        private final int score, rowsCleared, level, duration;
+
+        // Constructor which takes in each value of the entry
+        public Entry(int index, long seed, long endTime, int score, int rowsCleared, int level, int duration){
+            this.index = index;
+            this.seed = seed;
+            this.endTime = endTime;
+            this.score = score;
+            this.rowsCleared = rowsCleared;
+            this.level = level;
+            this.duration = duration;
+        }
+
+        // Getter methods for each value of the entry
+        public int getIndex() { return index; }
+        public long getSeed() { return seed; }
+        public long getEndTime() { return endTime; }
+        public int getScore() { return score; }
+        public int getRowsCleared() { return rowsCleared; }
+        public int getLevel() { return level; }
+        public int getDuration() { return duration; }
+
+        // Gets the entry as one line of text
+        public String toString(){
+            return String.format("%d points, %d rows, level %d, %.1f s, seed %x, ended %s", score, rowsCleared, level, duration / 1000.0, seed, Instant.ofEpochMilli(endTime));
+        }
+    }
+
+    // Class which stores the number of games that ended on a day, and the best of them
+    public static class Day {
+        // Date of the day, and the times it starts and ends at (milliseconds since the epoch, the end not included)
+        private final LocalDate date;
+        private final long start, end;
+        // Number of games that ended on the day
+        private final LongAdder games;
+        // Score and index of the best game of the day, packed as the top-K is
+        private final AtomicLong best;
+
+        // Constructor which creates the day with no games, from its date in the time zone of the leaderboard
+        private Day(LocalDate date, ZoneId zone){
+            this.date = date;
+            start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            games = new LongAdder();
+            best = new AtomicLong(Long.MIN_VALUE);
+        }
+
+        // Getter methods for the date and the number of games of the day
+        public LocalDate getDate() { return date; }
+        public long getGames() { return games.sum(); }
+        // Gets the index in the log of the best game of the day
+        public int getBestIndex() { return unpackIndex(best.get()); }
+
+        // Counts a game that ended on the day
+        private void add(long packed){
+            games.increment();
+            best.accumulateAndGet(packed, Math::max);
+        }
+    }
+
+    // Constants which store the bytes at the start of the file, and the version of the layout of its records
+    public static final int MAGIC = 0x544C4F47, VERSION = 1;
+    // Constant which stores the bytes of the header, and of each record: the time it ended, seed, score, rows cleared, level and duration
+    public static final int HEADER_BYTES = 32, RECORD_BYTES = 32;
+    private static final int END_TIME = 0, SEED = 8, SCORE = 16, ROWS_CLEARED = 20, LEVEL = 24, DURATION = 28;
+    // Constant which stores the number of records in each segment mapped (2MB), and the most segments a log can have (enough for every int index)
+    public static final int SEGMENT_RECORDS = 1 << 16, SEGMENT_BYTES = SEGMENT_RECORDS * RECORD_BYTES, MAX_SEGMENTS = Integer.MAX_VALUE / SEGMENT_RECORDS + 1;
+    // Constant which stores the number of best games kept by default
+    public static final int DEFAULT_TOP = 10;
+
+    // Handle which writes the time a record ended after the rest of it, and reads it before the rest, so a record is never read half written
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // File of the log, the channel it's mapped through, and each segment mapped so far (null if it isn't yet)
+    private final File file;
+    private final FileChannel channel;
+    private final AtomicReferenceArray<MappedByteBuffer> segments;
+    // Index of the next record claimed
+    private final AtomicInteger size;
+
+    // Number of best games kept, the best games as their packed score and index, and the number of them kept
+    private final int top;
+    private final ConcurrentSkipListSet<Long> best;
+    private final AtomicInteger numBest;
+    // Time zone the days are in, each day by its date, and the day the last game was added to, as games are mostly added in the order they end
+    private final ZoneId zone;
+    private final ConcurrentHashMap<LocalDate, Day> days;
+    private volatile Day lastDay;
+
+    // Constructor which opens the log with the default number of best games, in the time zone of the computer
+    public Leaderboard(File file) throws IOException {
+        this(file, DEFAULT_TOP, ZoneId.systemDefault());
+    }
+
+    // Constructor which opens the log in the file, creating it if it doesn't exist, and finds the best games and days from every record in it
+    public Leaderboard(File file, int top, ZoneId zone) throws IOException {
+        if(top < 1) throw new IllegalArgumentException("Must keep at least 1 game");
+        this.file = file;
+        this.top = top;
+        this.zone = zone;
+        segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+        best = new ConcurrentSkipListSet<>();
+        numBest = new AtomicInteger();
+        days = new ConcurrentHashMap<>();
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try{
+            size = new AtomicInteger(open());
+        } catch(IOException | RuntimeException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Writes the header of a new log or checks the header of an existing one, then reads every record, and returns the number of records
+    private int open() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if(channel.size() == 0){
+            // The whole header is written, with the bytes after the version and record size left as zeros
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_BYTES);
+            while(header.hasRemaining()) channel.write(header, header.position());
+            return 0;
+        }
+        while(header.hasRemaining() && channel.read(header, header.position()) >= 0);
+        if(header.position() < HEADER_BYTES || header.getInt(0) != MAGIC) throw new IOException(file + " isn't a leaderboard log");
+        if(header.getInt(4) != VERSION || header.getInt(8) != RECORD_BYTES) throw new IOException(file + " is version " + header.getInt(4) + " of the leaderboard log");
+
+        // Segments are mapped whole, so the file always ends at the end of one, with the records not yet claimed left as zeros
+        int numSegments = (int) Math.min((channel.size() - HEADER_BYTES) / SEGMENT_BYTES, MAX_SEGMENTS);
+        int records = 0;
+        for(int s = 0; s < numSegments; s++){
+            MappedByteBuffer segment = segment(s);
+            int first = s * SEGMENT_RECORDS;
+            for(int r = 0; r < SEGMENT_RECORDS; r++){
+                int offset = r * RECORD_BYTES;
+                long endTime = segment.getLong(offset + END_TIME);
+                // Records that were claimed but never written (the game was closed while adding) are skipped
+                if(endTime == 0) continue;
+                index(first + r, endTime, segment.getInt(offset + SCORE));
+                records = first + r + 1;
+            }
+        }
+        return records;
+    }
+
+    // Getter methods for the file of the log, the number of records in it, and the number of best games kept
+    public File getFile() { return file; }
+    public int size() { return size.get(); }
+    public int getTop() { return top; }
+
+    // Adds a game that just ended, and returns its index in the log
+    public int add(long seed, int score, int rowsCleared, int level, int duration){
+        return add(System.currentTimeMillis(), seed, score, rowsCleared, level, duration);
+    }
+
+    // Adds a game that ended at the time given (milliseconds since the epoch, after 1970), and returns its index in the log
+    public int add(long endTime, long seed, int score, int rowsCleared, int level, int duration){
+        if(endTime <= 0) throw new IllegalArgumentException("Game must end after 1970");
+        // Claims the next record, which no other thread writes into
+        int index = size.getAndIncrement();
+        if(index < 0){
+            size.set(Integer.MIN_VALUE);
+            throw new IllegalStateException("Leaderboard log is full");
+        }
+
+        MappedByteBuffer segment;
+        try{
+            segment = segment(index / SEGMENT_RECORDS);
+        } catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        // Writes the record with absolute puts, which don't move the position shared by every thread, ending with the time it ended
+        int offset = index % SEGMENT_RECORDS * RECORD_BYTES;
+        segment.putLong(offset + SEED, seed);
+        segment.putInt(offset + SCORE, score);
+        segment.putInt(offset + ROWS_CLEARED, rowsCleared);
+        segment.putInt(offset + LEVEL, level);
+        segment.putInt(offset + DURATION, duration);
+        LONGS.setRelease(segment, offset + END_TIME, endTime);
+
+        index(index, endTime, score);
+        return index;
+    }
+
+    // Gets the game at the index in the log, or null if it isn't there or hasn't been written yet
+    public Entry get(int index){
+        if(index < 0 || index >= size()) return null;
+        MappedByteBuffer segment = segments.get(index / SEGMENT_RECORDS);
+        if(segment == null) return null;
+        int offset = index % SEGMENT_RECORDS * RECORD_BYTES;
+        long endTime = (long) LONGS.getAcquire(segment, offset + END_TIME);
+        if(endTime == 0) return null;
+        return new Entry(index, segment.getLong(offset + SEED), endTime, segment.getInt(offset + SCORE), segment.getInt(offset + ROWS_CLEARED), segment.getInt(offset + LEVEL), segment.getInt(offset + DURATION));
+    }
+
+    // Gets the best games, from the best down, where games with the same score are in the order they were added
+    public List<Entry> getBest(){
+        List<Entry> entries = new ArrayList<>(top);
+        for(long packed : best.descendingSet()){
+            if(entries.size() == top) break;
+            entries.add(get(unpackIndex(packed)));
+        }
+        return entries;
+    }
+
+    // Gets the day of the date, or null if no game ended on it
+    public Day getDay(LocalDate date){
+        return days.get(date);
+    }
+
+    // Gets every day a game ended on, from the first to the last
+    public List<Day> getDays(){
+        List<Day> list = new ArrayList<>(days.values());
+        list.sort(Comparator.comparing(Day::getDate));
+        return list;
+    }
+
+    // Gets the best game of the date, or null if no game ended on it
+    public Entry getBest(LocalDate date){
+        Day day = days.get(date);
+        return day == null ? null : get(day.getBestIndex());
+    }
+
+    // Writes every record added to the disk, and closes the log, doing nothing if it's already closed
+    // Every segment is checked, as threads adding games at once can map a segment before the one below it
+    public void close() throws IOException {
+        if(!channel.isOpen()) return;
+        for(int s = 0; s < segments.length(); s++){
+            MappedByteBuffer segment = segments.get(s);
+            if(segment != null) segment.force();
+        }
+        channel.close();
+    }
+
+    // Gets the segment, mapping it (and growing the file to fit it) the first time it's needed
+    private MappedByteBuffer segment(int s) throws IOException {
+        MappedByteBuffer segment = segments.get(s);
+        if(segment != null) return segment;
+        // Threads that need the same new segment at once each map it, and the first one mapped is used by all of them
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + (long) s * SEGMENT_BYTES, SEGMENT_BYTES);
+        return segments.compareAndSet(s, null, segment) ? segment : segments.get(s);
+    }
+
+    // Counts the game at the index in the best games and the day it ended on
+    private void index(int index, long endTime, int score){
+        long packed = pack(score, index);
+        dayOf(endTime).add(packed);
+
+        // Most games don't beat the worst of the best games, so they're passed over without changing anything
+        if(numBest.get() >= top){
+            // The best games can be empty for a moment while another thread swaps the only game kept
+            Long worst = best.ceiling(Long.MIN_VALUE);
+            if(worst != null && packed <= worst) return;
+        }
+        if(!best.add(packed)) return;
+        // Removes the worst game each time one too many are kept, which may be the game just added if others were added at the same time
+        if(numBest.incrementAndGet() > top && best.pollFirst() != null) numBest.decrementAndGet();
+    }
+
+    // Gets the day the time is on, creating it if it's the first game of the day
+    private Day dayOf(long time){
+        Day day = lastDay;
+        if(day != null && time >= day.start && time < day.end) return day;
+        day = days.computeIfAbsent(Instant.ofEpochMilli(time).atZone(zone).toLocalDate(), date -> new Day(date, zone));
+        lastDay = day;
+        return day;
+    }
+
+    // Packs a score and index into a long that's larger for a higher score, and for an earlier game with the same score
+    private static long pack(int score, int index){
+        return (long) score << Integer.SIZE | Integer.MAX_VALUE - index;
+    }
+
+    // Gets the index of a game packed with its score
+    private static int unpackIndex(long packed){
+        return Integer.MAX_VALUE - (int) packed;
+    }
+
+    // Prints the best games and the games of each day in the log files given
+    public static void main(String[] args) throws IOException {
+        for(String file : args){
+            long start = System.nanoTime();
+            try(Leaderboard leaderboard = new Leaderboard(new File(file))){
+                System.out.printf("%s: %d games, opened in %.1f ms%n", file, leaderboard.size(), (System.nanoTime() - start) / 1e6);
+                List<Entry> best = leaderboard.getBest();
+                for(int rank = 0; rank < best.size(); rank++) System.out.printf("%3d. %s%n", rank + 1, best.get(rank));
+                for(Day day : leaderboard.getDays()) System.out.printf("%s: %d games, best %s%n", day.getDate(), day.getGames(), leaderboard.get(day.getBestIndex()));
+            }
+        }
+    }
+}
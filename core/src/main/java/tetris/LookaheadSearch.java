@@ -0,0 +1,385 @@
+// LookaheadSearch.java
+// Gordon Lin
+// Class which finds the best way for a bot to play the current block, by looking ahead at the upcoming blocks in the game's preview and the held block
+// Each way of playing the current block (with or without holding) is searched further on its own task in a ForkJoinPool, so the search is split across every core
+// Each level of the search only keeps the best few boards (the beam width) to search further, and the search stops early once its time budget runs out
+// Each placement is played on the board it's played from and undone once it's scored, so a board is only copied when the beam keeps it
+
+package tetris;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+public class LookaheadSearch {
+    // Constants for the weight of each feature of a board when scoring it: the total height of the columns, rows cleared, holes, and the differences between neighbouring columns
+    public static final double HEIGHT_WEIGHT = -0.510066, ROWS_CLEARED_WEIGHT = 0.760666, HOLES_WEIGHT = -0.35663, BUMPINESS_WEIGHT = -0.184483;
+    // Constant which stores the most blocks that can be looked ahead at, as only the current, previewed and held blocks are known
+    public static final int MAX_DEPTH = PieceGenerator.MAX_PREVIEW_DEPTH + 2;
+    // Constants for the held block when no block is held, or when the block held isn't known yet
+    private static final int NO_BLOCK = -1, UNKNOWN_BLOCK = -2;
+
+    // Class which stores a board reached in the search, with what's needed to keep searching from it
+    private static class Node {
+        // Board after the blocks played so far
+        final Board board;
+        // Score of the board, and the score of the rows cleared so far
+        double value, cleared;
+        // Number which orders boards with the same score, from if the block was held and the squares it covers (see coveredKey)
+        int order;
+        // Number of known blocks that have been played or held, the block being held, and if the next block can be switched with it
+        int played, held;
+        boolean canHold;
+        // How the first block of the search was played: if it was held first, and its placement
+        boolean firstHeld;
+        int firstX, firstY, firstRotate;
+
+        Node(int width, int height){
+            board = new Board(width, height);
+        }
+    }
+
+    // Class which keeps the best boards found on a level of the search, up to the beam width
+    private static class Beam {
+        final Node[] nodes;
+        int count, worst;
+
+        Beam(int beamWidth, int width, int height){
+            nodes = new Node[beamWidth];
+            for(int i = 0; i < beamWidth; i++) nodes[i] = new Node(width, height);
+        }
+
+        // Gets the node to store a board with the value and order in, replacing the worst board if the beam is full, or null if the board isn't better than any kept
+        // Boards with the same value are ordered by the lower order, so the same boards are kept whichever order they're found in
+        Node offer(double value, int order){
+            if(count < nodes.length) return nodes[count++];
+            if(!isBetter(value, order, nodes[worst])) return null;
+            return nodes[worst];
+        }
+
+        // Finds the worst board kept again, after a board was stored
+        void update(){
+            if(count < nodes.length) return;
+            worst = 0;
+            for(int i = 1; i < count; i++) if(isBetter(nodes[worst].value, nodes[worst].order, nodes[i])) worst = i;
+        }
+
+        // Checks if a board with the value and order is better than the board of the node
+        static boolean isBetter(double value, int order, Node node){
+            return value > node.value || value == node.value && order < node.order;
+        }
+
+        // Gets the best score of the boards kept
+        double best(){
+            double best = Double.NEGATIVE_INFINITY;
+            for(int i = 0; i < count; i++) best = Math.max(best, nodes[i].value);
+            return best;
+        }
+    }
+
+    // Class which stores the buffers a thread uses to search, so nothing is created while searching apart from the inputs returned
+    private static class Workspace {
+        final PlacementFinder finder;
+        // Size of the boards searched, and the log each placement is undone from
+        final int width, height;
+        final UndoLog log;
+        // Bits of the squares covered by the placements already tried of the block being placed, by shape and position (see coveredKey)
+        final long[] covered;
+        // Boards kept on the level being searched, and on the level after it
+        Beam current, next;
+        // Board of the game a search starts from, the best ways to play its first block, and the moves to the way picked, used by the thread that started the search
+        // The first level is kept apart from the levels above, as the thread that started the search can also search branches while it waits for them
+        final Node root;
+        final Beam first;
+        final byte[] moves;
+
+        Workspace(int beamWidth, int width, int height){
+            finder = new PlacementFinder();
+            finder.setSoftDropLocks(true);
+            this.width = width;
+            this.height = height;
+            log = new UndoLog();
+            covered = new long[(Tetrominoes.NUM_ROTATIONS * (height + PlacementFinder.OUTSIDE) * width + Long.SIZE - 1) / Long.SIZE];
+            current = new Beam(beamWidth, width, height);
+            next = new Beam(beamWidth, width, height);
+            root = new Node(width, height);
+            first = new Beam(beamWidth, width, height);
+            moves = new byte[Tetrominoes.NUM_ROTATIONS * (width + PlacementFinder.OUTSIDE * 2) * (height + PlacementFinder.OUTSIDE * 2)];
+        }
+    }
+
+    // Class which searches further from one way of playing the first block, reused by every search so no task is created while searching
+    private class Branch extends RecursiveAction {
+        Node node;
+        // Best score of the deepest level searched from the node
+        double value;
+
+        @Override
+        protected void compute(){
+            value = searchBranch(node);
+        }
+    }
+
+    // Class which runs the branches of a search on the pool, searching the first branch itself while the rest are taken by other threads
+    private class Branches extends RecursiveAction {
+        int count;
+
+        @Override
+        protected void compute(){
+            for(int i = count - 1; i > 0; i--) branches[i].fork();
+            branches[0].compute();
+            for(int i = 1; i < count; i++) branches[i].join();
+        }
+    }
+
+    // Pool the tasks of the search are run on
+    private final ForkJoinPool pool;
+    // Number of blocks looked ahead at, and the number of boards kept on each level of the search
+    private final int depth, beamWidth;
+    // Buffers of each thread, created the first time a thread searches
+    private final ThreadLocal<Workspace> workspaces;
+    // Task for each way of playing the first block a search can keep, and the task that runs them, which are reset before each search as only one search runs at a time
+    private final Branch[] branches;
+    private final Branches run;
+
+    // Width and height of the board being searched, the current block and the blocks previewed after it, the number of those blocks, and when the search has to stop by (System.nanoTime)
+    private int width, height;
+    private final int[] known;
+    private int numKnown;
+    // Position and rotation of the current block, which is searched from where it is so the search can be run again as it falls
+    private int currentX, currentY, currentRotate;
+    private long deadline;
+
+    // Constructor which searches on the common ForkJoinPool
+    public LookaheadSearch(int depth, int beamWidth){
+        this(ForkJoinPool.commonPool(), depth, beamWidth);
+    }
+
+    // Constructor which takes in the pool to search on, the number of blocks to look ahead at, and the number of boards to keep on each level of the search
+    public LookaheadSearch(ForkJoinPool pool, int depth, int beamWidth){
+        // Checks the search can look at least one block ahead, and no more blocks than are known
+        if(depth < 1 || depth > MAX_DEPTH) throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+        if(beamWidth < 1) throw new IllegalArgumentException("Beam width must be at least 1");
+
+        this.pool = pool;
+        this.depth = depth;
+        this.beamWidth = beamWidth;
+        workspaces = new ThreadLocal<>();
+        known = new int[PieceGenerator.MAX_PREVIEW_DEPTH + 1];
+        branches = new Branch[beamWidth];
+        for(int i = 0; i < beamWidth; i++) branches[i] = new Branch();
+        run = new Branches();
+    }
+
+    // Finds the best way to play the current block of the game within the time budget (in nanoseconds), and returns the inputs to play it from where it is, one input for each step at the base tick rate
+    // Returns no inputs if the game is over, or the block can't be placed anywhere
+    // The block also falls between steps, so tucks and spins late in the inputs can miss if it falls a row sooner than planned, unless the search is run again after each step
+    // The game shouldn't change while searching, so calls should be synchronized the same way as the calls to step
+    public synchronized int[] search(GameEngine engine, long budgetNanos){
+        deadline = System.nanoTime() + budgetNanos;
+        if(engine.isGameOver()) return new int[0];
+
+        Board board = engine.getBoard();
+        width = board.getWidth();
+        height = board.getHeight();
+        // Only reads as many previewed blocks as can be played within the depth of the search, which is one more than the depth when the first block is held
+        numKnown = Math.min(engine.getPreviewDepth(), depth) + 1;
+        known[0] = engine.getCurrentBlock().getTetrominoNum();
+        for(int i = 1; i < numKnown; i++) known[i] = engine.getPreview(i - 1);
+        Tetrominoes current = engine.getCurrentBlock();
+        currentX = current.getX();
+        currentY = (int) current.getY();
+        currentRotate = current.getRotate();
+
+        // Starts from the board of the game, with nothing played yet
+        Workspace workspace = workspace();
+        Node root = workspace.root;
+        root.board.copyFrom(board);
+        root.cleared = 0;
+        root.played = 0;
+        root.held = engine.getHeldBlock() == null ? NO_BLOCK : engine.getHeldBlock().getTetrominoNum();
+        root.canHold = engine.canHold();
+
+        // Finds the best ways to play the first block, which are each searched further on their own task
+        Beam first = workspace.first;
+        first.count = 0;
+        first.worst = 0;
+        expand(workspace, root, first, true);
+        if(first.count == 0) return new int[0];
+
+        for(int i = 0; i < first.count; i++){
+            branches[i].reinitialize();
+            branches[i].node = first.nodes[i];
+        }
+        run.reinitialize();
+        run.count = first.count;
+        pool.invoke(run);
+
+        // Picks the way of playing the first block that leads to the best board, breaking ties by the placement so the same placement is picked when searching again as the block moves
+        int best = 0;
+        for(int i = 1; i < first.count; i++){
+            double value = branches[i].value, bestValue = branches[best].value;
+            if(value > bestValue || value == bestValue && first.nodes[i].order < first.nodes[best].order) best = i;
+        }
+        return inputs(engine, workspace, first.nodes[best]);
+    }
+
+    // Searches the levels after the first block was played, keeping the best boards on each level, and returns the best score of the deepest level searched
+    private double searchBranch(Node start){
+        Workspace workspace = workspace();
+        double best = start.value;
+        boolean first = true;
+
+        for(int level = 1; level < depth; level++){
+            // Searches the next level from each board kept on this level, which is only the first board to start
+            Beam next = workspace.next;
+            next.count = 0;
+            next.worst = 0;
+            boolean playable = false;
+            int count = first ? 1 : workspace.current.count;
+            for(int i = 0; i < count; i++){
+                // Stops once the time runs out, keeping the score of the last level that was searched fully
+                if(System.nanoTime() > deadline) return best;
+                playable |= expand(workspace, first ? start : workspace.current.nodes[i], next, false);
+            }
+            // Stops once every block known has been played, but the game is over if there was a block and it couldn't be placed
+            if(next.count == 0) return playable ? Double.NEGATIVE_INFINITY : best;
+            best = next.best();
+
+            // The next level becomes the level being searched
+            workspace.next = workspace.current;
+            workspace.current = next;
+            first = false;
+        }
+        return best;
+    }
+
+    // Plays each block that can be played next from the node (the next block, or the held block if it can be switched) at every placement, and offers each board to the beam
+    // Returns false if every block known has already been played
+    private boolean expand(Workspace workspace, Node node, Beam beam, boolean first){
+        boolean playable = false;
+        // Plays the next block without holding
+        if(node.played < numKnown){
+            place(workspace, node, beam, known[node.played], node.played + 1, node.held, false, first);
+            playable = true;
+        }
+        // Switches the next block with the held block and plays the held block, or holds the next block and plays the one after it if nothing is held
+        if(node.canHold && node.held != UNKNOWN_BLOCK){
+            if(node.held != NO_BLOCK){
+                place(workspace, node, beam, node.held, node.played + 1, node.played < numKnown ? known[node.played] : UNKNOWN_BLOCK, true, first);
+                playable = true;
+            }
+            else if(node.played + 1 < numKnown){
+                place(workspace, node, beam, known[node.played + 1], node.played + 2, known[node.played], true, first);
+                playable = true;
+            }
+        }
+        return playable;
+    }
+
+    // Plays the block at every placement it can reach, from where the current block is or the top of the board for any other block, and offers each board to the beam
+    private void place(Workspace workspace, Node node, Beam beam, int tetrominoNum, int played, int held, boolean holding, boolean first){
+        PlacementFinder finder = workspace.finder;
+        Board board = node.board;
+        UndoLog log = workspace.log;
+        int count;
+        if(first && !holding) count = finder.find(node.board, tetrominoNum, currentRotate, currentX, currentY);
+        else{
+            // Gets the position the block starts at, moving it up 1 if it collides as the game does, and skipping it if the game would be over
+            int x = startX(tetrominoNum), y = 0;
+            if(node.board.isCollide(tetrominoNum, 0, x, y)){
+                y = -1;
+                if(node.board.isCollide(tetrominoNum, 0, x, y)) return;
+            }
+            count = finder.find(node.board, tetrominoNum, 0, x, y);
+        }
+        Arrays.fill(workspace.covered, 0);
+        for(int i = 0; i < count; i++){
+            // Skips placements that cover the same squares as a placement already tried, as rotations of the S, Z, I and O blocks can look the same
+            // Otherwise the same board would fill more than one place in the beam, and which of them is kept would depend on where the block started
+            int key = coveredKey(tetrominoNum, finder.getRotate(i), finder.getX(i), finder.getY(i));
+            if((workspace.covered[key >>> 6] & (1L << key)) != 0) continue;
+            workspace.covered[key >>> 6] |= 1L << key;
+
+            // Plays the block at the placement on the board, and scores the board
+            double cleared = node.cleared + board.make(tetrominoNum, finder.getRotate(i), finder.getX(i), finder.getY(i), log) * ROWS_CLEARED_WEIGHT;
+            double value = cleared + evaluate(board.getFeatures());
+
+            // Keeps a copy of the board if it's one of the best boards on the level, then takes the block back off the board
+            int order = ((holding ? 1 : 0) << 24) | key;
+            Node child = beam.offer(value, order);
+            if(child != null) child.board.copyFrom(board);
+            board.unmake(log);
+            if(child == null) continue;
+            child.value = value;
+            child.order = order;
+            child.cleared = cleared;
+            child.played = played;
+            child.held = held;
+            child.canHold = true;
+            // Remembers how the first block was played, from the node the first block was played on
+            child.firstHeld = first ? holding : node.firstHeld;
+            child.firstX = first ? finder.getX(i) : node.firstX;
+            child.firstY = first ? finder.getY(i) : node.firstY;
+            child.firstRotate = first ? finder.getRotate(i) : node.firstRotate;
+            beam.update();
+        }
+    }
+
+    // Scores the board from the total height of its columns, the number of holes, and the differences between the heights of neighbouring columns, which the board keeps up to date
+    private static double evaluate(Board.Features features){
+        return features.getAggregateHeight() * HEIGHT_WEIGHT + features.getHoles() * HOLES_WEIGHT + features.getBumpiness() * BUMPINESS_WEIGHT;
+    }
+
+    // Gets the inputs that play the first block of the node, holding first if it was held, then moving it to its placement and hard dropping it
+    private int[] inputs(GameEngine engine, Workspace workspace, Node node){
+        PlacementFinder finder = workspace.finder;
+        Board board = engine.getBoard();
+
+        // Finds the placements of the block played again, so the moves to the placement can be found
+        int count;
+        if(!node.firstHeld) count = finder.find(board, known[0], currentRotate, currentX, currentY);
+        else{
+            int tetrominoNum = engine.getHeldBlock() != null ? engine.getHeldBlock().getTetrominoNum() : known[1];
+            int x = startX(tetrominoNum), y = board.isCollide(tetrominoNum, 0, x, 0) ? -1 : 0;
+            count = finder.find(board, tetrominoNum, 0, x, y);
+        }
+        byte[] moves = workspace.moves;
+        int length = 0;
+        for(int i = 0; i < count; i++){
+            if(finder.getX(i) == node.firstX && finder.getY(i) == node.firstY && finder.getRotate(i) == node.firstRotate){
+                length = finder.getPath(i, moves);
+                break;
+            }
+        }
+
+        // Plays one input each step, as held inputs repeat every step at the base tick rate
+        int[] inputs = new int[(node.firstHeld ? 1 : 0) + length + 1];
+        int numInputs = 0;
+        if(node.firstHeld) inputs[numInputs++] = GameEngine.INPUT_HOLD;
+        for(int i = 0; i < length; i++) inputs[numInputs++] = PlacementFinder.MOVE_INPUTS[moves[i]];
+        inputs[numInputs] = GameEngine.INPUT_HARD_DROP;
+        return inputs;
+    }
+
+    // Gets the bit of the placement in the covered bits, from the first rotation with the same shape and the position of its leftmost and topmost occupied square
+    // Placements that cover the same squares get the same bit, which also orders boards with the same score the same way whichever placement was found first
+    private int coveredKey(int tetrominoNum, int rotate, int x, int y){
+        int left = x + Tetrominoes.TETROMINO_MIN_X[tetrominoNum][rotate], top = y + Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate];
+        return (Tetrominoes.TETROMINO_SHAPE_ROTATION[tetrominoNum][rotate] * (height + PlacementFinder.OUTSIDE) + top + PlacementFinder.OUTSIDE) * width + left;
+    }
+
+    // Gets the x position a block starts at, at the top centre of the board as the game places it
+    private int startX(int tetrominoNum){
+        return width / 2 - Tetrominoes.TETROMINO_BOUNDARY_WIDTH_HEIGHT[tetrominoNum] / 2;
+    }
+
+    // Gets the buffers of the thread, creating them if the thread hasn't searched before or the board's size changed
+    private Workspace workspace(){
+        Workspace workspace = workspaces.get();
+        if(workspace == null || workspace.width != width || workspace.height != height){
+            workspace = new Workspace(beamWidth, width, height);
+            workspaces.set(workspace);
+        }
+        return workspace;
+    }
+}
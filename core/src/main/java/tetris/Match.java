@@ -0,0 +1,185 @@
+// Match.java
+// Gordon Lin
+// Class which plays one versus match between two players on the server, which decides everything that happens in it from only their inputs
+// Clearing rows sends rows of garbage to the other player, which first cancel out garbage waiting to be added to the player's own board
+// Garbage waiting is added to the bottom of a board when its player places a block without clearing a row, with the hole in a random column from the seed of the match
+
+package tetris;
+
+import java.nio.*;
+import java.util.SplittableRandom;
+
+public class Match {
+    // Constant which stores the number of players in a match
+    public static final int NUM_PLAYERS = 2;
+    // Constant which stores the number of rows of garbage sent when clearing x number of rows (none for a single, and four for a tetris)
+    public static final int[] GARBAGE_LINES = {
+            0, 0, 1, 2, 4
+    };
+    // Constant which stores the most garbage that can wait to be added to a board, so it fits in the state sent to the players
+    public static final int MAX_GARBAGE = 127;
+
+    // Seed the match was started with, which the blocks of both players and the holes of the garbage come from, and the number of steps played per second
+    private final long seed;
+    private final double tickRate;
+    // Engine of each player, which both draw the same blocks from a 7-bag
+    private final GameEngine[] engines;
+    // Random generator of the column of the hole of each row of garbage
+    private final SplittableRandom holes;
+    // Inputs of each player for the next step, the rows of garbage waiting to be added to each player's board, and the result of each player's last step
+    private final int[] inputs, garbage, results;
+    // Number of steps played, and the winning player once the match is over (-1 for a draw)
+    private int tick, winner;
+    private boolean over;
+
+    // Block (packed with its rotation and position), score and garbage of each player, and the version of each board, last written in a state
+    private final int[] sentBlock, sentScore, sentGarbage, sentBoardVersion;
+
+    // Constructor which takes in the seed of the match, the size of the boards, and the number of steps played per second
+    public Match(long seed, int boardWidth, int boardHeight, double tickRate){
+        this.seed = seed;
+        this.tickRate = tickRate;
+        holes = new SplittableRandom(seed);
+        engines = new GameEngine[NUM_PLAYERS];
+        inputs = new int[NUM_PLAYERS];
+        garbage = new int[NUM_PLAYERS];
+        results = new int[NUM_PLAYERS];
+        sentBlock = new int[NUM_PLAYERS];
+        sentScore = new int[NUM_PLAYERS];
+        sentGarbage = new int[NUM_PLAYERS];
+        sentBoardVersion = new int[NUM_PLAYERS];
+        for(int player = 0; player < NUM_PLAYERS; player++){
+            engines[player] = new GameEngine(new Board(boardWidth, boardHeight), new Score(), new PieceGenerator(seed, true, GameEngine.DEFAULT_PREVIEW_DEPTH));
+            engines[player].setTickRate(tickRate);
+            // Clients send the inputs of each of their steps, already repeated while held
+            engines[player].setRepeatHeldInputs(false);
+            engines[player].start(seed);
+            // Makes sure the first state has everything in it
+            sentBlock[player] = -1;
+            sentBoardVersion[player] = engines[player].getBoard().getVersion() - 1;
+        }
+        winner = -1;
+    }
+
+    // Getter methods for the match
+    public long getSeed() { return seed; }
+    public int getTick() { return tick; }
+    public GameEngine getEngine(int player) { return engines[player]; }
+    public int getGarbage(int player) { return garbage[player]; }
+    public boolean isOver() { return over; }
+    public int getWinner() { return winner; }
+
+    // Adds inputs of a player to be played on the next step, combined with any sent since the last step
+    public void addInputs(int player, int inputs){
+        this.inputs[player] |= inputs & GameEngine.ALL_INPUTS;
+    }
+
+    // Ends the match early, such as when a player leaves, with the other player winning
+    public void forfeit(int player){
+        if(over) return;
+        over = true;
+        winner = NUM_PLAYERS - 1 - player;
+    }
+
+    // Plays one step of the match for both players, sending and adding garbage, and ends the match if either player topped out
+    public void step(){
+        if(over) return;
+        tick++;
+        for(int player = 0; player < NUM_PLAYERS; player++){
+            GameEngine engine = engines[player];
+            int result = engine.step(inputs[player]);
+            inputs[player] = 0;
+
+            if((result & GameEngine.RESULT_LOCKED) != 0 && (result & GameEngine.RESULT_GAME_OVER) == 0){
+                int rowsCleared = GameEngine.rowsCleared(result);
+                // Garbage sent first cancels out garbage waiting for the player, and the rest is sent to the other player
+                int attack = GARBAGE_LINES[rowsCleared], cancelled = Math.min(attack, garbage[player]);
+                garbage[player] -= cancelled;
+                int opponent = NUM_PLAYERS - 1 - player;
+                garbage[opponent] = Math.min(MAX_GARBAGE, garbage[opponent] + attack - cancelled);
+                // Adds the garbage waiting to the board if the block didn't clear a row
+                if(rowsCleared == 0 && garbage[player] > 0){
+                    result |= engine.addGarbage(garbage[player], holes.nextInt(engine.getBoard().getWidth()));
+                    garbage[player] = 0;
+                }
+            }
+            results[player] = result;
+        }
+
+        // The player who topped out loses, or neither wins if both topped out on the same step
+        boolean firstLost = engines[0].isGameOver(), secondLost = engines[1].isGameOver();
+        if(firstLost || secondLost){
+            over = true;
+            winner = firstLost && secondLost ? -1 : firstLost ? 1 : 0;
+        }
+    }
+
+    // Writes the START frame for the player given
+    public void writeStart(ByteBuffer buffer, int player){
+        Board board = engines[player].getBoard();
+        int start = Protocol.begin(buffer, Protocol.START);
+        buffer.putLong(seed);
+        buffer.put((byte) player);
+        buffer.putShort((short) Math.round(tickRate));
+        buffer.put((byte) board.getWidth());
+        buffer.put((byte) board.getHeight());
+        Protocol.end(buffer, start);
+    }
+
+    // Writes the END frame with the winner
+    public void writeEnd(ByteBuffer buffer){
+        int start = Protocol.begin(buffer, Protocol.END);
+        buffer.put((byte) winner);
+        Protocol.end(buffer, start);
+    }
+
+    // Writes a STATE frame if anything either player can see has changed since the last one, with the boards that changed
+    // Returns false without writing anything if nothing changed, which is most steps, as blocks only move a row every few steps
+    // The buffer needs room for Protocol.maxStateSize of the height of the boards
+    public boolean writeState(ByteBuffer buffer){
+        // Checks if anything changed
+        boolean changed = false;
+        for(int player = 0; player < NUM_PLAYERS && !changed; player++){
+            GameEngine engine = engines[player];
+            changed = results[player] != 0 || packBlock(engine.getCurrentBlock()) != sentBlock[player] || engine.getScore().getScore() != sentScore[player]
+                    || garbage[player] != sentGarbage[player] || engine.getBoard().getVersion() != sentBoardVersion[player];
+        }
+        if(!changed) return false;
+
+        int start = Protocol.begin(buffer, Protocol.STATE);
+        buffer.putInt(tick);
+        for(int player = 0; player < NUM_PLAYERS; player++){
+            GameEngine engine = engines[player];
+            Board board = engine.getBoard();
+            Tetrominoes block = engine.getCurrentBlock();
+            boolean boardChanged = board.getVersion() != sentBoardVersion[player];
+
+            buffer.put((byte) (boardChanged ? Protocol.STATE_BOARD : 0));
+            buffer.put((byte) block.getTetrominoNum());
+            buffer.put((byte) block.getRotate());
+            buffer.put((byte) block.getX());
+            buffer.putShort((short) Math.floor(block.getY()));
+            buffer.putInt(engine.getScore().getScore());
+            buffer.put((byte) garbage[player]);
+            buffer.put((byte) results[player]);
+            // Sends the rows of the board only when it changed
+            if(boardChanged){
+                for(int y = 0; y < board.getHeight(); y++) buffer.putLong(board.getRow(y));
+            }
+
+            // Stores what was sent, and clears the result so it's only sent once
+            sentBlock[player] = packBlock(block);
+            sentScore[player] = engine.getScore().getScore();
+            sentGarbage[player] = garbage[player];
+            sentBoardVersion[player] = board.getVersion();
+            results[player] = 0;
+        }
+        Protocol.end(buffer, start);
+        return true;
+    }
+
+    // Packs the block, its rotation, column and row into one int, to check if any of them changed
+    private static int packBlock(Tetrominoes block){
+        return block.getTetrominoNum() | block.getRotate() << 3 | (block.getX() & 0xFF) << 5 | ((int) Math.floor(block.getY()) & 0xFFFF) << 13;
+    }
+}
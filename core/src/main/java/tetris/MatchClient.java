@@ -0,0 +1,219 @@
+// MatchClient.java
+// Gordon Lin
+// Class which connects to a MatchServer, sends the inputs of its player, and keeps what the server sends about the match being played
+// Used by anything that plays against the server, such as the load test in main, which plays thousands of random clients on one thread over loopback
+
+package tetris;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+public class MatchClient implements Closeable {
+    // Interface for what's told when the server starts a match, sends the state of it, and ends it
+    public interface Listener {
+        void started(MatchClient client);
+        void state(MatchClient client);
+        void ended(MatchClient client, int winner);
+    }
+
+    // Channel connected to the server
+    private final SocketChannel channel;
+    // Buffer of bytes read that haven't made a whole frame yet, and buffer of frames waiting to be written
+    private final ByteBuffer in, out;
+
+    // Seed of the match, index of this client's player, steps per second, and size of the boards
+    private long seed;
+    private int player, tickRate, boardWidth, boardHeight;
+    // Boolean which stores if a match is being played, and the step of the last state
+    private boolean playing;
+    private int tick;
+    // Block, rotation, column, row, score, garbage waiting and result of the last step of each player, and the rows of each board
+    private final int[] block, rotate, column, row, score, garbage, result;
+    private long[][] rows;
+
+    // Constructor which takes in a channel connected to the server, which can be blocking or not
+    public MatchClient(SocketChannel channel){
+        this.channel = channel;
+        in = ByteBuffer.allocateDirect(MatchServer.BUFFER_SIZE);
+        out = ByteBuffer.allocateDirect(MatchServer.BUFFER_SIZE);
+        block = new int[Match.NUM_PLAYERS];
+        rotate = new int[Match.NUM_PLAYERS];
+        column = new int[Match.NUM_PLAYERS];
+        row = new int[Match.NUM_PLAYERS];
+        score = new int[Match.NUM_PLAYERS];
+        garbage = new int[Match.NUM_PLAYERS];
+        result = new int[Match.NUM_PLAYERS];
+        rows = new long[Match.NUM_PLAYERS][0];
+    }
+
+    // Connects to the server at the address, with a blocking channel
+    public static MatchClient connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        return new MatchClient(channel);
+    }
+
+    // Getter methods for the match being played
+    public SocketChannel getChannel() { return channel; }
+    public boolean isPlaying() { return playing; }
+    public long getSeed() { return seed; }
+    public int getPlayer() { return player; }
+    public int getTickRate() { return tickRate; }
+    public int getBoardWidth() { return boardWidth; }
+    public int getBoardHeight() { return boardHeight; }
+    public int getTick() { return tick; }
+    // Getter methods for the last state of a player in the match
+    public int getBlock(int player) { return block[player]; }
+    public int getRotate(int player) { return rotate[player]; }
+    public int getColumn(int player) { return column[player]; }
+    public int getRow(int player) { return row[player]; }
+    public int getScore(int player) { return score[player]; }
+    public int getGarbage(int player) { return garbage[player]; }
+    public int getResult(int player) { return result[player]; }
+    public long getBoardRow(int player, int y) { return rows[player][y]; }
+
+    // Asks to be put in the next match
+    public void join() throws IOException {
+        Protocol.writeEmpty(out, Protocol.JOIN);
+        flush();
+    }
+
+    // Sends the inputs of a step of the player
+    public void sendInputs(int inputs) throws IOException {
+        Protocol.writeInput(out, inputs);
+        flush();
+    }
+
+    // Writes as much waiting to be written as the connection takes, and returns true if all of it was written
+    public boolean flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+        return out.position() == 0;
+    }
+
+    // Reads what the server sent (waiting for it if the channel is blocking), and tells the listener about each whole frame
+    // Returns the number of frames read, or -1 if the server closed the connection
+    public int read(Listener listener) throws IOException {
+        if(channel.read(in) < 0) return -1;
+        in.flip();
+        int frames = 0, length;
+        while((length = Protocol.frameLength(in)) >= 0){
+            int end = in.position() + 2 + length;
+            in.position(in.position() + 2);
+            byte type = in.get();
+            if(type == Protocol.START) readStart(listener);
+            else if(type == Protocol.STATE) readState(listener);
+            else if(type == Protocol.END){
+                playing = false;
+                listener.ended(this, in.get());
+            }
+            else throw new IOException("Unknown frame type " + type);
+            in.position(end);
+            frames++;
+        }
+        in.compact();
+        return frames;
+    }
+
+    // Reads the start of a match
+    private void readStart(Listener listener){
+        seed = in.getLong();
+        player = in.get();
+        // The tick rate and board size are unsigned
+        tickRate = in.getShort() & 0xFFFF;
+        boardWidth = in.get() & 0xFF;
+        boardHeight = in.get() & 0xFF;
+        if(rows[0].length != boardHeight) rows = new long[Match.NUM_PLAYERS][boardHeight];
+        for(long[] board : rows) Arrays.fill(board, 0);
+        playing = true;
+        listener.started(this);
+    }
+
+    // Reads the state of both players
+    private void readState(Listener listener){
+        tick = in.getInt();
+        for(int p = 0; p < Match.NUM_PLAYERS; p++){
+            int flags = in.get();
+            block[p] = in.get();
+            rotate[p] = in.get();
+            column[p] = in.get();
+            row[p] = in.getShort();
+            score[p] = in.getInt();
+            garbage[p] = in.get();
+            result[p] = in.get() & 0xFF;
+            if((flags & Protocol.STATE_BOARD) != 0){
+                for(int y = 0; y < boardHeight; y++) rows[p][y] = in.getLong();
+            }
+        }
+        listener.state(this);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Load test which plays many clients making random moves against a server on one thread, with the host, port, number of clients and seconds as arguments
+    // Each client joins another match as soon as its match ends
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : MatchServer.DEFAULT_PORT;
+        int numClients = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        InetSocketAddress address = new InetSocketAddress(host, port);
+
+        // Counts what every client is told
+        long[] counts = new long[3];
+        Listener listener = new Listener() {
+            public void started(MatchClient client) { counts[0]++; }
+            public void state(MatchClient client) { counts[1]++; }
+            public void ended(MatchClient client, int winner) {
+                counts[2]++;
+                try{
+                    client.join();
+                } catch(IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        // Connects every client, then waits for what they're sent without blocking
+        Selector selector = Selector.open();
+        MatchClient[] clients = new MatchClient[numClients];
+        for(int i = 0; i < numClients; i++){
+            clients[i] = connect(address);
+            clients[i].getChannel().configureBlocking(false);
+            clients[i].getChannel().register(selector, SelectionKey.OP_READ, clients[i]);
+            clients[i].join();
+        }
+
+        // Each client sends a random input every step or so, which mostly moves and rotates, and sometimes hard drops
+        SplittableRandom random = new SplittableRandom(port);
+        int[] moves = {GameEngine.INPUT_LEFT, GameEngine.INPUT_RIGHT, GameEngine.INPUT_ROTATE_CLOCKWISE, GameEngine.INPUT_SOFT_DROP, GameEngine.INPUT_HARD_DROP};
+        long start = System.nanoTime(), end = start + seconds * 1_000_000_000L, nextMove = start;
+        while(System.nanoTime() - end < 0){
+            selector.select(5);
+            for(SelectionKey key : selector.selectedKeys()){
+                MatchClient client = (MatchClient) key.attachment();
+                if(client.read(listener) < 0) throw new IOException("Server closed a connection");
+            }
+            selector.selectedKeys().clear();
+            if(System.nanoTime() - nextMove >= 0){
+                for(MatchClient client : clients){
+                    if(client.isPlaying() && random.nextInt(4) == 0) client.sendInputs(moves[random.nextInt(moves.length)]);
+                }
+                nextMove += 1_000_000_000L / DEFAULT_MOVES_PER_SECOND;
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d clients: %d matches started, %d ended, %.0f states per second%n", numClients, counts[0] / 2, counts[2] / 2, counts[1] / elapsed);
+        for(MatchClient client : clients) client.close();
+    }
+
+    // Constant which stores how many times a second each client of the load test may send an input
+    private static final int DEFAULT_MOVES_PER_SECOND = 60;
+}
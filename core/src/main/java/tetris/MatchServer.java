@@ -0,0 +1,458 @@
+// MatchServer.java
+// Gordon Lin
+// Class which hosts versus matches between clients over TCP, playing every match itself so clients only send their inputs and are sent what happened
+// Runs without a screen, on a fixed number of worker threads which each wait on their own Selector for every connection they were given, and step every match of theirs at the tick rate
+// Players who join wait in one lobby shared by every worker, and a player paired with someone on another worker is moved to that worker, so both players of a match are always on the same worker
+// Each worker reads and writes every connection through direct buffers from its own pool, so nothing is locked or allocated while matches are played (only joining the lobby is locked)
+
+package tetris;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class MatchServer implements Closeable {
+    // Constants which store the port the server listens on by default, the default number of steps of each match per second, and the size of each buffer of a connection
+    public static final int DEFAULT_PORT = 7777, DEFAULT_TICK_RATE = 60, BUFFER_SIZE = 4096;
+
+    // Channel which accepts the connections of new clients
+    private final ServerSocketChannel server;
+    // Workers which each play the matches of the connections they're given
+    private final Worker[] workers;
+    // Number of steps of each match per second, and the size of the boards of each match
+    private final int tickRate, boardWidth, boardHeight;
+    // Worker the next connection is given to
+    private int nextWorker;
+    // Player waiting in the lobby for someone to play against, which is only used while holding the lock of the lobby
+    private final Object lobbyLock = new Object();
+    private Connection lobby;
+
+    // Constructor which listens on the address given, with the number of workers, steps per second, and board size given
+    public MatchServer(InetSocketAddress address, int numWorkers, int tickRate, int boardWidth, int boardHeight) throws IOException {
+        if(numWorkers < 1) throw new IllegalArgumentException("There must be at least one worker");
+        // The start of each match carries the tick rate and board size in only a few bytes
+        if(tickRate < 1 || tickRate > Protocol.MAX_TICK_RATE) throw new IllegalArgumentException("Tick rate must be from 1 to " + Protocol.MAX_TICK_RATE);
+        if(boardWidth < 1 || boardWidth > Protocol.MAX_BOARD_WIDTH) throw new IllegalArgumentException("Board width must be from 1 to " + Protocol.MAX_BOARD_WIDTH);
+        if(boardHeight < 1 || boardHeight > Protocol.MAX_BOARD_HEIGHT) throw new IllegalArgumentException("Board height must be from 1 to " + Protocol.MAX_BOARD_HEIGHT);
+        if(Protocol.maxStateSize(boardHeight) > BUFFER_SIZE) throw new IllegalArgumentException("Board is too tall for the state of a match to fit in a buffer");
+        this.tickRate = tickRate;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        workers = new Worker[numWorkers];
+        for(int i = 0; i < numWorkers; i++) workers[i] = new Worker(i);
+        // The first worker also accepts new connections
+        server.register(workers[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Getter methods for the port the server listens on, and the totals of every worker (read while the server runs, so they may be a step behind)
+    public int getPort() { return server.socket().getLocalPort(); }
+    public int getConnections(){
+        int total = 0;
+        for(Worker worker : workers) total += worker.connections;
+        return total;
+    }
+    public int getMatches(){
+        int total = 0;
+        for(Worker worker : workers) total += worker.matches.size();
+        return total;
+    }
+    public long getMatchesPlayed(){
+        long total = 0;
+        for(Worker worker : workers) total += worker.matchesPlayed;
+        return total;
+    }
+    public long getStatesSent(){
+        long total = 0;
+        for(Worker worker : workers) total += worker.statesSent;
+        return total;
+    }
+
+    // Starts each worker on its own thread
+    public void start(){
+        for(Worker worker : workers){
+            Thread thread = new Thread(worker, "Match Worker " + worker.index);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            thread.start();
+        }
+    }
+
+    // Stops every worker, closing every connection, and waits for them to finish
+    @Override
+    public void close() throws IOException {
+        for(Worker worker : workers){
+            worker.running = false;
+            worker.selector.wakeup();
+        }
+        for(Worker worker : workers){
+            if(worker.thread == null) continue;
+            try{
+                worker.thread.join();
+            } catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        server.close();
+        for(Worker worker : workers) worker.selector.close();
+    }
+
+    // Gives a new connection to the next worker in turn
+    private void handOff(SocketChannel channel){
+        Worker worker = workers[nextWorker];
+        nextWorker = (nextWorker + 1) % workers.length;
+        worker.accepted.add(channel);
+        worker.selector.wakeup();
+    }
+
+    // Class which stores a client connected to a worker, with its buffers and the match it's playing
+    private static class Connection {
+        // Channel of the client, and its key on the worker's selector
+        final SocketChannel channel;
+        SelectionKey key;
+        // Buffer of bytes read that haven't made a whole frame yet, and buffer of frames waiting to be written
+        ByteBuffer in, out;
+        // Worker the connection is on, which is the only thread that uses it (apart from the lobby)
+        Worker worker;
+        // Match being played (null while not playing), the index of the player in it, and the other player (set before the match starts while moving to the other player's worker)
+        Match match;
+        int player;
+        Connection opponent;
+        // Booleans which store if the player has joined and is waiting for a match, and if the connection has been closed
+        boolean joined, closed;
+
+        Connection(SocketChannel channel){
+            this.channel = channel;
+        }
+    }
+
+    // Class which plays the matches of the connections given to it, on one thread
+    private class Worker implements Runnable {
+        // Index of the worker, the thread it runs on, and if it should keep running
+        final int index;
+        Thread thread;
+        volatile boolean running = true;
+        // Selector which waits for every connection of the worker, the connections accepted for it that haven't been registered yet, and the players moved to it to start a match
+        final Selector selector;
+        final ConcurrentLinkedQueue<SocketChannel> accepted;
+        final ConcurrentLinkedQueue<Connection> arrived;
+        // Pool of the buffers of each connection, and the buffer each state is written into before it's copied to both players
+        final BufferPool pool;
+        final ByteBuffer state;
+        // First player of each match being played
+        final ArrayList<Connection> matches;
+        // Number of connections, matches finished, and states sent, for the statistics of the server
+        volatile int connections;
+        volatile long matchesPlayed, statesSent;
+        // Seed of the next match
+        long nextSeed;
+
+        Worker(int index) throws IOException {
+            this.index = index;
+            selector = Selector.open();
+            accepted = new ConcurrentLinkedQueue<>();
+            arrived = new ConcurrentLinkedQueue<>();
+            pool = new BufferPool(BUFFER_SIZE, 1 << 16);
+            state = pool.take();
+            matches = new ArrayList<>();
+            nextSeed = System.nanoTime() ^ ((long) index << 48);
+        }
+
+        @Override
+        public void run(){
+            long tickNanos = TimeUnit.SECONDS.toNanos(1) / tickRate, nextTick = System.nanoTime() + tickNanos;
+            try{
+                while(running){
+                    // Waits for the connections until the next step is due
+                    long wait = nextTick - System.nanoTime();
+                    if(wait > TimeUnit.MILLISECONDS.toNanos(1)) selector.select(TimeUnit.NANOSECONDS.toMillis(wait));
+                    else selector.selectNow();
+
+                    register();
+                    for(SelectionKey key : selector.selectedKeys()) handle(key);
+                    selector.selectedKeys().clear();
+
+                    // Steps every match for each step's worth of time passed, skipping steps if the worker fell far behind
+                    long now = System.nanoTime();
+                    if(now - nextTick > tickNanos * tickRate) nextTick = now;
+                    while(now - nextTick >= 0){
+                        step();
+                        nextTick += tickNanos;
+                    }
+                }
+            } catch(IOException e){
+                System.err.println("Match worker " + index + " stopped: " + e);
+            } finally{
+                for(SelectionKey key : selector.keys()){
+                    if(key.attachment() instanceof Connection) close((Connection) key.attachment());
+                }
+            }
+        }
+
+        // Registers the connections accepted for this worker, and the players moved to this worker, since it last checked
+        private void register() throws IOException {
+            SocketChannel channel;
+            while((channel = accepted.poll()) != null){
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection connection = new Connection(channel);
+                connection.worker = this;
+                connection.in = pool.take();
+                connection.out = pool.take();
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections++;
+            }
+
+            // Players moved here bring their buffers with them, which are given back to this worker's pool when they're closed
+            Connection connection;
+            while((connection = arrived.poll()) != null){
+                Connection first = connection.opponent;
+                connection.opponent = null;
+                connection.worker = this;
+                connections++;
+                try{
+                    connection.key = connection.channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch(ClosedChannelException e){
+                    // The player left while moving, so the other player goes back to the lobby
+                    close(connection);
+                    rejoin(first);
+                    continue;
+                }
+                // Starts the match, unless the other player left while this player was moving, in which case this player goes back to the lobby
+                if(first.closed) rejoin(connection);
+                else start(first, connection);
+            }
+        }
+
+        // Handles a connection being accepted, or a client's connection being ready to read or write
+        private void handle(SelectionKey key) throws IOException {
+            if(!key.isValid()) return;
+            if(key.isAcceptable()){
+                SocketChannel channel;
+                while((channel = server.accept()) != null) handOff(channel);
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            if(key.isReadable()) read(connection);
+            // The key is cancelled if the connection was closed or moved to another worker while reading
+            if(key.isValid() && key.isWritable()) flush(connection);
+        }
+
+        // Reads what the client sent, and handles each whole frame
+        private void read(Connection connection){
+            ByteBuffer in = connection.in;
+            try{
+                if(connection.channel.read(in) < 0){
+                    close(connection);
+                    return;
+                }
+            } catch(IOException e){
+                close(connection);
+                return;
+            }
+
+            in.flip();
+            int length;
+            while((length = Protocol.frameLength(in)) >= 0){
+                int end = in.position() + 2 + length;
+                in.position(in.position() + 2);
+                byte type = length > 0 ? in.get() : 0;
+                if(type == Protocol.JOIN){
+                    Connection first = join(connection);
+                    if(first != null){
+                        // Leaves the rest of what was read to the other worker, which is the only thread that uses the connection from now on
+                        in.position(end);
+                        in.compact();
+                        move(connection, first);
+                        return;
+                    }
+                }
+                else if(type == Protocol.INPUT && in.position() < end){
+                    if(connection.match != null) connection.match.addInputs(connection.player, in.get());
+                }
+                else{
+                    // The client isn't speaking the protocol
+                    close(connection);
+                    return;
+                }
+                in.position(end);
+            }
+            // A frame bigger than the buffer can never arrive whole
+            if(in.remaining() == in.capacity()){
+                close(connection);
+                return;
+            }
+            in.compact();
+        }
+
+        // Puts a client in a match with the client waiting in the lobby, or makes it wait in the lobby for the next client to join
+        // Returns the client waiting if it's on another worker, which the client has to be moved to, or null otherwise
+        private Connection join(Connection connection){
+            if(connection.match != null || connection.joined || connection.closed) return null;
+            connection.joined = true;
+            Connection first;
+            synchronized(lobbyLock){
+                first = lobby;
+                lobby = first == null ? connection : null;
+            }
+            if(first == null) return null;
+            if(first.worker != this) return first;
+            start(first, connection);
+            return null;
+        }
+
+        // Puts a client back in the lobby after the match it was joining couldn't start
+        private void rejoin(Connection connection){
+            connection.joined = false;
+            Connection first = join(connection);
+            if(first != null) move(connection, first);
+        }
+
+        // Moves a client to the worker of the client it was paired with, which starts their match once it has registered the client
+        // The client's key is cancelled before it's given to the other worker, so this worker never uses it again
+        private void move(Connection connection, Connection first){
+            connection.key.cancel();
+            connection.opponent = first;
+            connections--;
+            first.worker.arrived.add(connection);
+            first.worker.selector.wakeup();
+        }
+
+        // Starts a match between the client that waited in the lobby and the client that joined after it
+        private void start(Connection first, Connection connection){
+            first.joined = false;
+            connection.joined = false;
+            Match match = new Match(nextSeed++, boardWidth, boardHeight, tickRate);
+            first.match = match;
+            first.player = 0;
+            first.opponent = connection;
+            connection.match = match;
+            connection.player = 1;
+            connection.opponent = first;
+            matches.add(first);
+            send(first, buffer -> match.writeStart(buffer, 0));
+            send(connection, buffer -> match.writeStart(buffer, 1));
+        }
+
+        // Steps every match, and sends each player what changed
+        private void step(){
+            for(int i = matches.size() - 1; i >= 0; i--){
+                Connection first = matches.get(i), second = first.opponent;
+                Match match = first.match;
+                match.step();
+
+                // Writes the state once, and copies it to both players
+                state.clear();
+                if(match.writeState(state)){
+                    state.flip();
+                    sendState(first);
+                    sendState(second);
+                    statesSent++;
+                }
+
+                if(match.isOver()){
+                    // Tells both players who won, and lets them join another match
+                    send(first, match::writeEnd);
+                    send(second, match::writeEnd);
+                    first.match = null;
+                    second.match = null;
+                    first.opponent = null;
+                    second.opponent = null;
+                    // Removes the match by moving the last match into its place
+                    Connection last = matches.remove(matches.size() - 1);
+                    if(i < matches.size()) matches.set(i, last);
+                    matchesPlayed++;
+                }
+            }
+        }
+
+        // Copies the state written for the step to a player, and writes it
+        private void sendState(Connection connection){
+            if(connection.closed) return;
+            if(connection.out.remaining() < state.remaining()){
+                // The client isn't reading fast enough to keep up with the match
+                close(connection);
+                return;
+            }
+            connection.out.put(state);
+            state.rewind();
+            flush(connection);
+        }
+
+        // Interface for what writes a frame into a buffer
+        private interface FrameWriter {
+            void write(ByteBuffer buffer);
+        }
+
+        // Writes a small frame to a client
+        private void send(Connection connection, FrameWriter writer){
+            if(connection.closed) return;
+            if(connection.out.remaining() < Protocol.HEADER_SIZE + 32){
+                close(connection);
+                return;
+            }
+            writer.write(connection.out);
+            flush(connection);
+        }
+
+        // Writes as much waiting to be written as the client's connection takes, and waits for it to be writable again if it didn't take all of it
+        private void flush(Connection connection){
+            ByteBuffer out = connection.out;
+            out.flip();
+            try{
+                connection.channel.write(out);
+            } catch(IOException e){
+                out.compact();
+                close(connection);
+                return;
+            }
+            out.compact();
+            int ops = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            if(connection.key.interestOps() != ops) connection.key.interestOps(ops);
+        }
+
+        // Closes a connection, giving its buffers back, and ends its match with the other player winning
+        private void close(Connection connection){
+            if(connection.closed) return;
+            connection.closed = true;
+            connection.key.cancel();
+            try{
+                connection.channel.close();
+            } catch(IOException e){
+                // It's closed either way
+            }
+            pool.give(connection.in);
+            pool.give(connection.out);
+            connection.in = null;
+            connection.out = null;
+            connections--;
+            if(connection.joined){
+                synchronized(lobbyLock){
+                    if(lobby == connection) lobby = null;
+                }
+            }
+            // The match is ended on its next step, which tells the other player they won
+            if(connection.match != null) connection.match.forfeit(connection.player);
+        }
+    }
+
+    // Runs a server, with the port and number of workers as arguments, printing how many are playing every few seconds
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int numWorkers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try(MatchServer server = new MatchServer(new InetSocketAddress(port), numWorkers, DEFAULT_TICK_RATE, GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT)){
+            server.start();
+            System.out.printf("Listening on port %d with %d workers%n", server.getPort(), numWorkers);
+            while(true){
+                Thread.sleep(5000);
+                System.out.printf("%d connections, %d matches playing, %d played, %d states sent%n", server.getConnections(), server.getMatches(), server.getMatchesPlayed(), server.getStatesSent());
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+// Metrics.java
+// Gordon Lin
+// Class which records how long the game takes to step, draw a frame and clear rows, how evenly frames are shown, and how many pieces are locked and bytes allocated each second
+// Only records anything when the tetris.metrics property is set, and as ENABLED never changes, the JIT removes every check of it (and the timing behind it) when it isn't set, so it can be left in
+// Values are recorded into histograms and counters that don't create anything, and shown through JMX, as JFR events while a recording has them enabled, and on the overlay of the game
+
+package tetris;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.*;
+import jdk.jfr.*;
+
+public class Metrics implements MetricsMXBean {
+    // Event for each step of the game, with the time it took including waiting for the frame being drawn
+    @Name("tetris.Tick") @Label("Tick") @Category("Tetris") @StackTrace(false)
+    public static class TickEvent extends Event {
+        @Label("Elapsed") @Timespan long elapsed;
+    }
+
+    // Event for each step of the game on its own, and if a piece was locked on it
+    @Name("tetris.Move") @Label("Move") @Category("Tetris") @StackTrace(false)
+    public static class MoveEvent extends Event {
+        @Label("Elapsed") @Timespan long elapsed;
+        @Label("Locked") boolean locked;
+    }
+
+    // Event for each frame drawn, with the time it took
+    @Name("tetris.Paint") @Label("Paint") @Category("Tetris") @StackTrace(false)
+    public static class PaintEvent extends Event {
+        @Label("Elapsed") @Timespan long elapsed;
+    }
+
+    // Event for each time rows are cleared on the board being played, with the time it took and the number of rows cleared
+    @Name("tetris.ClearRows") @Label("Clear Rows") @Category("Tetris") @StackTrace(false)
+    public static class ClearRowsEvent extends Event {
+        @Label("Elapsed") @Timespan long elapsed;
+        @Label("Rows Cleared") int rowsCleared;
+    }
+
+    // Event for the pieces locked and bytes allocated by the game loop each second, over the last second
+    @Name("tetris.Rates") @Label("Rates") @Category("Tetris") @StackTrace(false)
+    public static class RatesEvent extends Event {
+        @Label("Pieces Per Second") double piecesPerSecond;
+        @Label("Allocation Rate") @DataAmount(DataAmount.BYTES) @Frequency long allocatedBytesPerSecond;
+    }
+
+    // Class which holds the type of each event, so JFR is only set up once the first value is recorded, and not whenever the board checks if the metrics are recorded
+    // Each event is only created once its type is enabled by a recording, so nothing is created while JFR isn't recording them
+    private static class EventTypes {
+        static final EventType TICK = EventType.getEventType(TickEvent.class), MOVE = EventType.getEventType(MoveEvent.class), PAINT = EventType.getEventType(PaintEvent.class);
+        static final EventType CLEAR_ROWS = EventType.getEventType(ClearRowsEvent.class), RATES = EventType.getEventType(RatesEvent.class);
+    }
+
+    // Constant which stores if the metrics are recorded, set with the tetris.metrics property
+    public static final boolean ENABLED = Boolean.getBoolean("tetris.metrics");
+    // Constant which stores the name the metrics are shown through JMX with
+    public static final String OBJECT_NAME = "tetris:type=Metrics";
+    // Constant which stores the nanoseconds between each time the rates are worked out
+    public static final long SAMPLE_NANOS = GameLoop.NANOS_PER_SECOND;
+
+    // Histograms of the time each step takes including waiting for the frame being drawn, each step on its own, each frame drawn, how far each frame was shown from when it was due, and each time rows are cleared, in nanoseconds
+    public static final Histogram TICK = new Histogram(), MOVE = new Histogram(), PAINT = new Histogram(), FRAME_JITTER = new Histogram(), CLEAR_ROWS = new Histogram();
+    // Number of pieces locked
+    private static final LongAdder PIECES_LOCKED = new LongAdder();
+
+    // Threads of the JVM, which can count the bytes allocated by each thread, or null if the JVM can't or the metrics aren't recorded
+    private static final com.sun.management.ThreadMXBean THREADS = ENABLED && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemorySupported() ? threads : null;
+    // The metrics shown through JMX
+    private static final Metrics INSTANCE = new Metrics();
+
+    // Time the last frame was shown, and the time, pieces locked and bytes allocated when the rates were last worked out, only used by the game loop
+    private static long lastFrame, lastSample, sampledPieces, sampledBytes;
+    // Thread the rates were last worked out on, as each game is played on a new game loop thread that counts its bytes allocated from 0
+    private static Thread sampledThread;
+    // Pieces locked and bytes allocated each second over the last second, read by JMX from other threads
+    private static volatile double piecesPerSecond, allocatedBytesPerSecond;
+
+    // Only the one instance is shown through JMX
+    private Metrics(){}
+
+    // Shows the metrics through JMX, if they're recorded
+    public static void register(){
+        if(!ENABLED) return;
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch(JMException e){
+            // The metrics are still recorded and shown in the game without JMX
+            System.err.println("Couldn't register metrics: " + e);
+        }
+    }
+
+    // Records a step of the game from the time it started to the time it ended, including waiting for the frame being drawn
+    public static void tick(long start, long end){
+        TICK.record(end - start);
+        if(EventTypes.TICK.isEnabled()){
+            TickEvent event = new TickEvent();
+            event.elapsed = end - start;
+            event.commit();
+        }
+    }
+
+    // Records a step of the game on its own, and counts the piece if one was locked
+    public static void move(long start, long end, boolean locked){
+        MOVE.record(end - start);
+        if(locked) PIECES_LOCKED.increment();
+        if(EventTypes.MOVE.isEnabled()){
+            MoveEvent event = new MoveEvent();
+            event.elapsed = end - start;
+            event.locked = locked;
+            event.commit();
+        }
+    }
+
+    // Records a frame drawn from the time it started to the time it ended
+    public static void paint(long start, long end){
+        PAINT.record(end - start);
+        if(EventTypes.PAINT.isEnabled()){
+            PaintEvent event = new PaintEvent();
+            event.elapsed = end - start;
+            event.commit();
+        }
+    }
+
+    // Records how far a frame shown at the time given was from being shown frameNanos after the last one, from the game loop
+    // A gap of over a second is the loop being stopped between games, so it's not counted
+    public static void frame(long now, long frameNanos){
+        long interval = now - lastFrame;
+        lastFrame = now;
+        if(interval <= SAMPLE_NANOS) FRAME_JITTER.record(Math.abs(interval - frameNanos));
+    }
+
+    // Records rows being cleared from the time it started to the time it ended
+    public static void clearRows(long start, long end, int rowsCleared){
+        CLEAR_ROWS.record(end - start);
+        if(EventTypes.CLEAR_ROWS.isEnabled()){
+            ClearRowsEvent event = new ClearRowsEvent();
+            event.elapsed = end - start;
+            event.rowsCleared = rowsCleared;
+            event.commit();
+        }
+    }
+
+    // Works out the pieces locked and bytes allocated each second if a second passed since they were last worked out, from the game loop, and returns true if they were
+    // Bytes allocated are counted for the thread calling it, which is the thread that steps and draws the game
+    // A new thread starts counting again, so the bytes of the last game's thread aren't taken from the new thread's count
+    public static boolean sample(long now){
+        Thread thread = Thread.currentThread();
+        if(thread != sampledThread){
+            sampledThread = thread;
+            lastSample = 0;
+        }
+        if(now - lastSample < SAMPLE_NANOS) return false;
+        long pieces = PIECES_LOCKED.sum(), bytes = THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+        // The first sample only starts counting
+        if(lastSample != 0){
+            double seconds = (double) (now - lastSample) / GameLoop.NANOS_PER_SECOND;
+            piecesPerSecond = (pieces - sampledPieces) / seconds;
+            allocatedBytesPerSecond = (bytes - sampledBytes) / seconds;
+            if(EventTypes.RATES.isEnabled()){
+                RatesEvent event = new RatesEvent();
+                event.piecesPerSecond = piecesPerSecond;
+                event.allocatedBytesPerSecond = (long) allocatedBytesPerSecond;
+                event.commit();
+            }
+        }
+        lastSample = now;
+        sampledPieces = pieces;
+        sampledBytes = bytes;
+        return true;
+    }
+
+    // Getter methods for the rates over the last second
+    public static double piecesPerSecond() { return piecesPerSecond; }
+    public static double allocatedBytesPerSecond() { return allocatedBytesPerSecond; }
+
+    @Override
+    public boolean isEnabled() { return ENABLED; }
+
+    @Override
+    public Summary getTick() { return new Summary(TICK); }
+    @Override
+    public Summary getMove() { return new Summary(MOVE); }
+    @Override
+    public Summary getPaint() { return new Summary(PAINT); }
+    @Override
+    public Summary getFrameJitter() { return new Summary(FRAME_JITTER); }
+    @Override
+    public Summary getClearRows() { return new Summary(CLEAR_ROWS); }
+
+    @Override
+    public long getPiecesLocked() { return PIECES_LOCKED.sum(); }
+    @Override
+    public double getPiecesPerSecond() { return piecesPerSecond; }
+    @Override
+    public double getAllocatedBytesPerSecond() { return allocatedBytesPerSecond; }
+
+    @Override
+    public void reset(){
+        TICK.reset();
+        MOVE.reset();
+        PAINT.reset();
+        FRAME_JITTER.reset();
+        CLEAR_ROWS.reset();
+    }
+}
@@ -0,0 +1,63 @@
+// MetricsMXBean.java
+// Gordon Lin
+// Interface which shows the metrics of the game through JMX (as tetris:type=Metrics), so they can be watched with JConsole or any JMX client while the game runs
+// Times are in nanoseconds, and every summary is of every value recorded since the game started or the metrics were last reset
+
+package tetris;
+
+import java.beans.ConstructorProperties;
+
+public interface MetricsMXBean {
+    // Class which stores a summary of a histogram at the time it was read, shown through JMX as a composite of its getters
+    class Summary {
+        // Number of values, their mean, and the smallest, median, 90th, 99th, 99.9th percentile and largest value
+        private final long count, min, p50, p90, p99, p999, max;
+        private final double mean;
+
+        // Constructor which takes in each value of the summary, which JMX clients use to read it back
+        @ConstructorProperties({"count", "mean", "min", "p50", "p90", "p99", "p999", "max"})
+        public Summary(long count, double mean, long min, long p50, long p90, long p99, long p999, long max){
+            this.count = count;
+            this.mean = mean;
+            this.min = min;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        // Constructor which reads the summary of the histogram
+        public Summary(Histogram histogram){
+            this(histogram.getCount(), histogram.getMean(), histogram.getMin(), histogram.getPercentile(50), histogram.getPercentile(90), histogram.getPercentile(99), histogram.getPercentile(99.9), histogram.getMax());
+        }
+
+        // Getter methods for each value of the summary
+        public long getCount() { return count; }
+        public double getMean() { return mean; }
+        public long getMin() { return min; }
+        public long getP50() { return p50; }
+        public long getP90() { return p90; }
+        public long getP99() { return p99; }
+        public long getP999() { return p999; }
+        public long getMax() { return max; }
+    }
+
+    // Gets if the metrics are being recorded (the tetris.metrics property is set)
+    boolean isEnabled();
+
+    // Gets the summary of the time each step takes including waiting for the frame being drawn, each step on its own, each frame drawn, how far each frame was shown from when it was due, and each time rows are cleared
+    Summary getTick();
+    Summary getMove();
+    Summary getPaint();
+    Summary getFrameJitter();
+    Summary getClearRows();
+
+    // Gets the number of pieces locked, and the pieces locked and bytes allocated by the game loop each second over the last second
+    long getPiecesLocked();
+    double getPiecesPerSecond();
+    double getAllocatedBytesPerSecond();
+
+    // Forgets every value recorded, so the summaries start again from now
+    void reset();
+}
@@ -0,0 +1,128 @@
+// PieceGenerator.java
+// Gordon Lin
+// Class which generates the blocks of one game from a seed, either each block at random, or from a 7-bag (every block once in a random order, then again)
+// The upcoming blocks are kept in a preview queue, a ring buffer created once, so the game and bots can read blocks ahead without creating anything
+// The numbers are the same as a SplittableRandom created with the seed gives, but the state is kept here so it can be saved and loaded with the game
+
+package tetris;
+
+import java.io.*;
+
+public class PieceGenerator {
+    // Constant which stores the most blocks that can be previewed
+    public static final int MAX_PREVIEW_DEPTH = 16;
+    // Constants of the generator used by SplittableRandom: the gamma added to the state for each number, and the multipliers that mix the state into each number
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L, MIX_MULTIPLIER_1 = 0x62a9d9ed799705f5L, MIX_MULTIPLIER_2 = 0xcb24d0a5c88c35b3L;
+
+    // Boolean which stores if blocks are drawn from a 7-bag instead of each at random
+    private final boolean sevenBag;
+    // Preview queue of the upcoming blocks, with the capacity rounded up to a power of two so the index wraps around with a mask
+    private final int[] queue;
+    private final int previewDepth, queueMask;
+    // Index of the next block in the queue
+    private int head;
+    // Blocks of the bag, where the blocks not drawn yet are kept in front, and the number of blocks left in the bag
+    private final int[] bag;
+    private int bagLeft;
+    // State of the generator
+    private long state;
+
+    // Constructor which takes in the seed, if blocks are drawn from a 7-bag, and the number of upcoming blocks that can be previewed
+    public PieceGenerator(long seed, boolean sevenBag, int previewDepth){
+        if(previewDepth < 1 || previewDepth > MAX_PREVIEW_DEPTH) throw new IllegalArgumentException("Preview depth must be between 1 and " + MAX_PREVIEW_DEPTH);
+        this.sevenBag = sevenBag;
+        this.previewDepth = previewDepth;
+        queue = new int[Integer.highestOneBit(previewDepth * 2 - 1)];
+        queueMask = queue.length - 1;
+        bag = new int[Tetrominoes.TOTAL_NUM_OF_TETROMINOES];
+        setSeed(seed);
+    }
+
+    // Getter methods for how the blocks are generated
+    public boolean isSevenBag() { return sevenBag; }
+    public int getPreviewDepth() { return previewDepth; }
+
+    // Starts generating again from the seed, with a full bag and a new preview queue
+    public void setSeed(long seed){
+        state = seed;
+        for(int i = 0; i < bag.length; i++) bag[i] = i;
+        bagLeft = bag.length;
+        head = 0;
+        for(int i = 0; i < previewDepth; i++) queue[i] = generate();
+    }
+
+    // Takes the next block from the queue, and adds a new block to the end of the queue
+    public int next(){
+        int tetrominoNum = queue[head];
+        queue[(head + previewDepth) & queueMask] = generate();
+        head = (head + 1) & queueMask;
+        return tetrominoNum;
+    }
+
+    // Gets an upcoming block without taking it, where 0 is the next block, up to one less than the preview depth
+    public int peek(int index){
+        if(index < 0 || index >= previewDepth) throw new IndexOutOfBoundsException("Preview index " + index + " out of " + previewDepth);
+        return queue[(head + index) & queueMask];
+    }
+
+    // Generates a new block, at random or from the bag
+    private int generate(){
+        if(!sevenBag) return nextInt(Tetrominoes.TOTAL_NUM_OF_TETROMINOES);
+        // Fills the bag again once every block has been drawn, which only needs the count reset as the drawn blocks are kept behind the ones left
+        if(bagLeft == 0) bagLeft = bag.length;
+        // Draws a random block left in the bag, and swaps it behind the blocks left
+        int index = nextInt(bagLeft--), tetrominoNum = bag[index];
+        bag[index] = bag[bagLeft];
+        bag[bagLeft] = tetrominoNum;
+        return tetrominoNum;
+    }
+
+    // Generates a random number from 0 up to the bound, the same way as SplittableRandom.nextInt(bound)
+    private int nextInt(int bound){
+        int r = mix32(state += GOLDEN_GAMMA), m = bound - 1;
+        if((bound & m) == 0) return r & m;
+        // Draws again in the rare case the number falls in the uneven part at the top of the range, so every number is as likely
+        for(int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(state += GOLDEN_GAMMA) >>> 1);
+        return r;
+    }
+
+    // Mixes the state into a random 32 bit number, the same way as SplittableRandom
+    private static int mix32(long z){
+        z = (z ^ (z >>> 33)) * MIX_MULTIPLIER_1;
+        return (int) (((z ^ (z >>> 28)) * MIX_MULTIPLIER_2) >>> 32);
+    }
+
+    // Writes the state of the generator, the bag, and the upcoming blocks
+    public void save(DataOutput out) throws IOException {
+        out.writeByte(previewDepth);
+        out.writeLong(state);
+        out.writeByte(bagLeft);
+        for(int tetrominoNum : bag) out.writeByte(tetrominoNum);
+        for(int i = 0; i < previewDepth; i++) out.writeByte(peek(i));
+    }
+
+    // Reads what was written by save from a generator with the same preview depth, checking every block read is a block
+    public void load(DataInput in) throws IOException {
+        int savedDepth = in.readByte();
+        if(savedDepth != previewDepth) throw new IOException("Preview depth " + savedDepth + " doesn't match " + previewDepth);
+        state = in.readLong();
+        bagLeft = in.readByte();
+        if(bagLeft < 0 || bagLeft > bag.length) throw new IOException("Bag can't have " + bagLeft + " blocks left");
+        // The bag has to hold every block once, so it can be filled again
+        int seen = 0;
+        for(int i = 0; i < bag.length; i++){
+            bag[i] = readTetrominoNum(in);
+            seen |= 1 << bag[i];
+        }
+        if(seen != (1 << bag.length) - 1) throw new IOException("Bag doesn't hold every block");
+        head = 0;
+        for(int i = 0; i < previewDepth; i++) queue[i] = readTetrominoNum(in);
+    }
+
+    // Reads the number of a block, checking it's a block
+    static int readTetrominoNum(DataInput in) throws IOException {
+        int tetrominoNum = in.readByte();
+        if(tetrominoNum < 0 || tetrominoNum >= Tetrominoes.TOTAL_NUM_OF_TETROMINOES) throw new IOException("Not a block: " + tetrominoNum);
+        return tetrominoNum;
+    }
+}
@@ -0,0 +1,253 @@
+// PlacementFinder.java
+// Gordon Lin
+// Class which finds every position a block can come to rest at on a board, and the moves to get there
+// Searches every position (x, y, rotation) reachable from the block's position with left, right, down (soft drop) and rotation moves, including wall kicks, tucks and spins
+// Before searching, works out which positions collide for every row and rotation at once from the rows of the board, so each move is only a bit check
+// Above the highest square on the board only the walls can be hit, so the block falls straight through the open rows instead of stopping at each one
+// Each finder reuses its buffers for every search, so one finder should be used per thread
+// Soft drops can be set to lock the block as soon as it lands, the way GameEngine plays them, so only placements the game can play are found
+
+package tetris;
+
+import java.util.Arrays;
+
+public class PlacementFinder {
+    // Constants for each move a block can make
+    public static final byte MOVE_LEFT = 0, MOVE_RIGHT = 1, MOVE_DOWN = 2, MOVE_ROTATE_CLOCKWISE = 3, MOVE_ROTATE_COUNTERCLOCKWISE = 4;
+    // Constant which stores the GameEngine input that plays each move for a step
+    public static final int[] MOVE_INPUTS = {
+            GameEngine.INPUT_LEFT, GameEngine.INPUT_RIGHT, GameEngine.INPUT_SOFT_DROP, GameEngine.INPUT_ROTATE_CLOCKWISE, GameEngine.INPUT_ROTATE_COUNTERCLOCKWISE
+    };
+    // Constant which stores how far outside of the board the top left of a block's boundary can be, as the boundary can be partly outside of the board
+    public static final int OUTSIDE = 4;
+    // Constant which stores the widest board that the collisions of a row of positions fit in a long for, including the positions outside the board on either side
+    public static final int MAX_MAPPED_WIDTH = Long.SIZE - OUTSIDE * 2;
+    // Constant which stores the size of a block's boundary, and the furthest a wall kick can move a block up or down
+    private static final int BOUNDARY_SIZE = 4, MAX_KICK_Y = 2;
+
+    // Width (rounded up to a power of 2 so positions are indexed with shifts) and height of the positions that can be searched, including positions outside the board, and the number of positions
+    private int stateWidth, widthShift, stateHeight, numStates;
+    // Bit set of the positions that have been visited, one bit for each position
+    private long[] visited;
+    // Bit set of the x positions that collide, for each rotation and y position (null if the board is too wide)
+    private long[] collisions;
+    // Positions waiting to be searched, the position each position was reached from, and the move that reached it
+    private int[] queue, parent;
+    private byte[] parentMove;
+    // Lowest y position (of the top left of the boundary) the block falls straight to through the open rows above the highest square
+    private int openFloor;
+    // Stores if the block locks once it's soft dropped onto a resting position, so no moves are searched from there
+    private boolean softDropLocks;
+
+    // Number of placements found, and the x, y, rotation, and position index of each placement
+    private int count;
+    private int[] placementX, placementY, placementRotate, placementState;
+
+    // Constructor which creates the buffers for a board of the default size
+    public PlacementFinder(){
+        ensureCapacity(GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT);
+    }
+
+    // Getter methods for the number of placements found in the last search, and the x, y (of the top left of the boundary) and rotation of each placement
+    public int getCount() { return count; }
+    public int getX(int i) { return placementX[i]; }
+    public int getY(int i) { return placementY[i]; }
+    public int getRotate(int i) { return placementRotate[i]; }
+
+    // Sets if the block locks once it's soft dropped onto a resting position, as it does in GameEngine, instead of being able to tuck or spin from there
+    public void setSoftDropLocks(boolean softDropLocks) { this.softDropLocks = softDropLocks; }
+
+    // Creates larger buffers if the board is larger than the buffers
+    private void ensureCapacity(int width, int height){
+        int newStateWidth = Integer.highestOneBit(width + OUTSIDE * 2 - 1) << 1, newStateHeight = height + OUTSIDE * 2;
+        if(visited != null && newStateWidth == stateWidth && newStateHeight == stateHeight) return;
+        stateWidth = newStateWidth;
+        widthShift = Integer.numberOfTrailingZeros(stateWidth);
+        stateHeight = newStateHeight;
+        numStates = stateWidth * stateHeight * Tetrominoes.NUM_ROTATIONS;
+
+        visited = new long[(numStates + Long.SIZE - 1) / Long.SIZE];
+        collisions = width <= MAX_MAPPED_WIDTH ? new long[stateHeight * Tetrominoes.NUM_ROTATIONS] : null;
+        queue = new int[numStates];
+        parent = new int[numStates];
+        parentMove = new byte[numStates];
+        placementX = new int[numStates];
+        placementY = new int[numStates];
+        placementRotate = new int[numStates];
+        placementState = new int[numStates];
+    }
+
+    // Finds every placement the block can reach on the board from its current position, and returns the number of placements
+    public int find(Board board, Tetrominoes tetromino){
+        return find(board, tetromino.getTetrominoNum(), tetromino.getRotate(), tetromino.getX(), (int) tetromino.getY());
+    }
+
+    // Finds every placement the block with the tetrominoNum can reach on the board, starting from the rotation and position given, and returns the number of placements
+    public int find(Board board, int tetrominoNum, int startRotate, int startX, int startY){
+        ensureCapacity(board.getWidth(), board.getHeight());
+        Arrays.fill(visited, 0);
+        count = 0;
+
+        // Works out the collisions of every position at once
+        if(collisions != null) mapCollisions(board, tetrominoNum);
+
+        // Finds the highest row with a square, and the lowest position the whole boundary is open at with room for wall kicks below it
+        // Moves made anywhere between the top and this position can only hit the walls, so they have the same result at this position
+        int openTop = 0;
+        while(openTop < board.getHeight() && board.getRow(openTop) == 0) openTop++;
+        openFloor = openTop - BOUNDARY_SIZE - MAX_KICK_Y;
+
+        // Nothing can be reached if the block starts in a collision
+        if(collides(board, tetrominoNum, startRotate, startX, startY)) return 0;
+
+        // I blocks have a different set of translations for wall kicks, and O blocks cannot rotate
+        int translationIndex = tetrominoNum == Tetrominoes.I_BLOCK_VALUE ? Tetrominoes.I_BLOCK_VALUE : Tetrominoes.NON_I_BLOCK_ROTATION_TRANSLATION_INDEX;
+        boolean canRotate = tetrominoNum != Tetrominoes.O_BLOCK_VALUE;
+
+        // Searches breadth first from the starting position, so the moves to each placement are the fewest possible
+        int head = 0, tail = 0;
+        int start = index(startX, startY, startRotate);
+        visit(start, -1, (byte) -1);
+        queue[tail++] = start;
+
+        while(head < tail){
+            int state = queue[head++];
+            // Gets the position from the index of the position
+            int rotate = state & (Tetrominoes.NUM_ROTATIONS - 1), cell = state >>> 2;
+            int x = (cell & (stateWidth - 1)) - OUTSIDE, y = (cell >>> widthShift) - OUTSIDE;
+
+            // Adds the position as a placement if the block can't move down any further
+            boolean resting = collides(board, tetrominoNum, rotate, x, y + 1);
+            if(resting){
+                placementX[count] = x;
+                placementY[count] = y;
+                placementRotate[count] = rotate;
+                placementState[count] = state;
+                count++;
+                // Nothing more can be played if the block locked from being soft dropped here
+                if(softDropLocks && parentMove[state] == MOVE_DOWN) continue;
+            }
+
+            // Moves left and right if they don't collide
+            tail = tryMove(board, tetrominoNum, rotate, x - 1, y, state, MOVE_LEFT, tail);
+            tail = tryMove(board, tetrominoNum, rotate, x + 1, y, state, MOVE_RIGHT, tail);
+
+            // Rotates both ways, wall kicking the same way the game does
+            if(canRotate){
+                tail = tryRotate(board, tetrominoNum, rotate, x, y, 1, Tetrominoes.TETROMINO_CLOCKWISE_ROTATION_TRANSLATION[translationIndex][rotate], state, MOVE_ROTATE_CLOCKWISE, tail);
+                tail = tryRotate(board, tetrominoNum, rotate, x, y, -1, Tetrominoes.TETROMINO_COUNTERCLOCKWISE_ROTATION_TRANSLATION[translationIndex][rotate], state, MOVE_ROTATE_COUNTERCLOCKWISE, tail);
+            }
+
+            // Moves down last, so of the paths with the fewest moves, the ones that move and rotate the block before dropping it are found first
+            // Falls straight to the lowest open position while the boundary and any wall kicks stay within the open rows, instead of searching each row on the way
+            if(!resting) tail = tryMove(board, tetrominoNum, rotate, x, y >= MAX_KICK_Y && y + 1 < openFloor ? openFloor : y + 1, state, MOVE_DOWN, tail);
+        }
+        return count;
+    }
+
+    // Adds the position to the queue if it doesn't collide and hasn't been visited, and returns the new end of the queue
+    private int tryMove(Board board, int tetrominoNum, int rotate, int x, int y, int from, byte move, int tail){
+        if(x < -OUTSIDE || y < -OUTSIDE || x >= stateWidth - OUTSIDE || y >= stateHeight - OUTSIDE) return tail;
+        int state = index(x, y, rotate);
+        if(isVisited(state) || collides(board, tetrominoNum, rotate, x, y)) return tail;
+        visit(state, from, move);
+        queue[tail] = state;
+        return tail + 1;
+    }
+
+    // Rotates the block on the spot, or with the first wall kick translation that doesn't collide, and adds the position to the queue, returning the new end of the queue
+    private int tryRotate(Board board, int tetrominoNum, int rotate, int x, int y, int direction, int[][] translations, int from, byte move, int tail){
+        int newRotate = (rotate + direction + Tetrominoes.NUM_ROTATIONS) % Tetrominoes.NUM_ROTATIONS;
+        if(!collides(board, tetrominoNum, newRotate, x, y)) return tryMove(board, tetrominoNum, newRotate, x, y, from, move, tail);
+        for(int[] translation : translations){
+            if(!collides(board, tetrominoNum, newRotate, x + translation[0], y + translation[1])){
+                return tryMove(board, tetrominoNum, newRotate, x + translation[0], y + translation[1], from, move, tail);
+            }
+        }
+        return tail;
+    }
+
+    // Works out which x positions collide for each rotation and y position of the block
+    // The row of the board is padded with walls on either side, and shifted by each square of the block, so a position collides when any square lands on a wall or another square
+    private void mapCollisions(Board board, int tetrominoNum){
+        int width = board.getWidth(), height = board.getHeight();
+        // Bits for the columns outside of the board on either side, including the top bit so shifting right fills in walls
+        long walls = ~(((1L << width) - 1) << OUTSIDE);
+
+        for(int rotate = 0; rotate < Tetrominoes.NUM_ROTATIONS; rotate++){
+            long[] masks = Tetrominoes.TETROMINO_ROW_MASKS[tetrominoNum][rotate];
+            int minX = Tetrominoes.TETROMINO_MIN_X[tetrominoNum][rotate], minY = Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate];
+
+            for(int y = -OUTSIDE; y < stateHeight - OUTSIDE; y++){
+                long collision = 0;
+                for(int i = 0; i < masks.length && collision != -1L; i++){
+                    int row = y + minY + i;
+                    // Every position collides if the row is above or below the board
+                    if(row < 0 || row >= height){
+                        collision = -1L;
+                        break;
+                    }
+                    // The row with walls on either side, with column c at bit c + OUTSIDE
+                    long padded = (board.getRow(row) << OUTSIDE) | walls;
+                    // A block at x has a square at column x + minX + bit for each bit of the mask, so the position collides if the padded row has that bit set
+                    for(long mask = masks[i]; mask != 0; mask &= mask - 1){
+                        collision |= padded >> (minX + Long.numberOfTrailingZeros(mask));
+                    }
+                }
+                collisions[(y + OUTSIDE) * Tetrominoes.NUM_ROTATIONS + rotate] = collision;
+            }
+        }
+    }
+
+    // Checks if the block collides at the position, from the collisions worked out before searching if possible
+    private boolean collides(Board board, int tetrominoNum, int rotate, int x, int y){
+        if(collisions == null) return board.isCollide(tetrominoNum, rotate, x, y);
+        if(x < -OUTSIDE || y < -OUTSIDE || x >= stateWidth - OUTSIDE || y >= stateHeight - OUTSIDE) return true;
+        return (collisions[(y + OUTSIDE) * Tetrominoes.NUM_ROTATIONS + rotate] & (1L << (x + OUTSIDE))) != 0;
+    }
+
+    // Gets the index of a position
+    private int index(int x, int y, int rotate){
+        return ((((y + OUTSIDE) << widthShift) + x + OUTSIDE) << 2) + rotate;
+    }
+
+    // Checks if a position has been visited
+    private boolean isVisited(int state){
+        return (visited[state >>> 6] & (1L << state)) != 0;
+    }
+
+    // Marks a position as visited, and stores the position and move it was reached from
+    private void visit(int state, int from, byte move){
+        visited[state >>> 6] |= 1L << state;
+        parent[state] = from;
+        parentMove[state] = move;
+    }
+
+    // Gets the y position of a position from its index
+    private int stateY(int state){
+        return (state >>> (widthShift + 2)) - OUTSIDE;
+    }
+
+    // Gets the number of steps of a move, as falling through the open rows moves down more than one row
+    private int moveSteps(int state){
+        return parentMove[state] == MOVE_DOWN ? stateY(state) - stateY(parent[state]) : 1;
+    }
+
+    // Gets the moves from the starting position to the placement, stored into moves (which must fit one move per position), and returns the number of moves
+    // Moves down at the end of the path are left out, as the block can be hard dropped from there
+    public int getPath(int i, byte[] moves){
+        // Counts the moves by following each position back to the start
+        int length = 0;
+        for(int state = placementState[i]; parent[state] >= 0; state = parent[state]) length += moveSteps(state);
+
+        // Stores the moves from the end of the path backwards, one move down for each row fallen
+        int position = length;
+        for(int state = placementState[i]; parent[state] >= 0; state = parent[state]){
+            for(int step = moveSteps(state); step > 0; step--) moves[--position] = parentMove[state];
+        }
+
+        // Leaves out the moves down at the end
+        while(length > 0 && moves[length - 1] == MOVE_DOWN) length--;
+        return length;
+    }
+}
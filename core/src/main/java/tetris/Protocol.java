@@ -0,0 +1,70 @@
+// Protocol.java
+// Gordon Lin
+// Class which stores the messages sent between the match server and its clients, and how they're framed
+// Every message is a frame of a 2 byte length (of the rest of the frame), a 1 byte type, and the payload of the type, with numbers big-endian
+// Client to server:
+// - JOIN: no payload, asks to be put in the next match
+// - INPUT: 1 byte of inputs (GameEngine.INPUT_*), played on the next step of the match (inputs sent in between steps are combined)
+// Server to client:
+// - START: 8 byte seed, 1 byte index of the player being sent to, 2 byte tick rate, 1 byte board width, 1 byte board height
+//   The tick rate, width and height are unsigned, so a match is at most 65535 steps per second on a board at most 64 wide (one long a row) and 255 high
+// - STATE: 4 byte step, then for each player: 1 byte flags (STATE_BOARD if the board follows), 1 byte block, 1 byte rotation, 1 byte column,
+//   2 byte row, 4 byte score, 1 byte garbage waiting, 1 byte result of the step, and if the board follows, 8 bytes for each row of the board
+// - END: 1 byte index of the winning player
+
+package tetris;
+
+import java.nio.*;
+
+public class Protocol {
+    // Constants for the type of each message from the client
+    public static final byte JOIN = 1, INPUT = 2;
+    // Constants for the type of each message from the server
+    public static final byte START = 16, STATE = 17, END = 18;
+    // Constant for the flag of a player's state in a STATE message that says their board follows
+    public static final int STATE_BOARD = 1;
+    // Constants which store the size of the header of every frame (length and type), the size of each player's state without their board, and the largest frame
+    public static final int HEADER_SIZE = 3, PLAYER_STATE_SIZE = 12, MAX_FRAME_SIZE = 0xFFFF + 2;
+    // Constants which store the largest tick rate, board width and board height a START message can carry
+    public static final int MAX_TICK_RATE = 0xFFFF, MAX_BOARD_WIDTH = Board.MAX_WIDTH, MAX_BOARD_HEIGHT = 0xFF;
+
+    // Only has static methods
+    private Protocol(){}
+
+    // Gets the size of a STATE frame with both boards, on a board of the height given
+    public static int maxStateSize(int boardHeight){
+        return HEADER_SIZE + 4 + Match.NUM_PLAYERS * (PLAYER_STATE_SIZE + boardHeight * Long.BYTES);
+    }
+
+    // Starts a frame of the type given in the buffer, and returns where it starts so it can be ended once its payload is written
+    public static int begin(ByteBuffer buffer, byte type){
+        int start = buffer.position();
+        buffer.putShort((short) 0);
+        buffer.put(type);
+        return start;
+    }
+
+    // Ends the frame started at start, writing its length now that its payload is written
+    public static void end(ByteBuffer buffer, int start){
+        buffer.putShort(start, (short) (buffer.position() - start - 2));
+    }
+
+    // Gets the length of the frame at the start of the data left in the buffer (after the 2 byte length), or -1 if the whole frame hasn't arrived yet
+    public static int frameLength(ByteBuffer buffer){
+        if(buffer.remaining() < 2) return -1;
+        int length = buffer.getShort(buffer.position()) & 0xFFFF;
+        return buffer.remaining() - 2 >= length ? length : -1;
+    }
+
+    // Writes a frame with only a type
+    public static void writeEmpty(ByteBuffer buffer, byte type){
+        end(buffer, begin(buffer, type));
+    }
+
+    // Writes an INPUT frame
+    public static void writeInput(ByteBuffer buffer, int inputs){
+        int start = begin(buffer, INPUT);
+        buffer.put((byte) inputs);
+        end(buffer, start);
+    }
+}
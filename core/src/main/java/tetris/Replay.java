@@ -0,0 +1,350 @@
+// Replay.java
+// Gordon Lin
+// Class which stores a recorded game as the seed it was started with and the inputs of each step, which is enough to play the same game again exactly
+// The inputs are stored as runs of the same inputs, and the whole state of the game is saved every so many steps (a keyframe), so playback can skip to any step
+// by loading the keyframe before it and playing at most that many steps, and whole games are played again without a screen as fast as the engine can step
+
+package tetris;
+
+import java.io.*;
+import java.util.*;
+
+public class Replay {
+    // Constants which store the start of every replay file ("TRPL") and the version of the format, which also changes when the rules of the engine change
+    public static final int MAGIC = 0x5452504C, VERSION = 5;
+    // Constant which stores the default number of steps between each keyframe (10 seconds at 60 steps per second)
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 600;
+    // Constants for the bits of each run that store the inputs (the number of steps in the run minus one is stored above them), and the longest run
+    private static final int INPUT_BITS = 7, INPUT_MASK = (1 << INPUT_BITS) - 1, MAX_RUN_LENGTH = 1 << 24;
+
+    // Seed the game was started with, and the number of steps played per second
+    private final long seed;
+    private final double tickRate;
+    // If the blocks were drawn from a 7-bag, and the number of blocks previewed, so the blocks are generated the same way when played again
+    private final boolean sevenBag;
+    // If the engine repeated held inputs itself, or they were repeated before the engine
+    private final boolean repeatHeldInputs;
+    private final int previewDepth;
+    // Size of the board, number of steps between each keyframe, and number of steps recorded
+    private final int boardWidth, boardHeight, keyframeInterval, ticks;
+    // Bytes of every segment, each a keyframe followed by the runs of inputs of the steps after it
+    private final byte[] data;
+    // Where the keyframe and the runs of inputs of each segment start in the bytes
+    private final int[] keyframeOffsets, inputOffsets;
+
+    // Constructor which takes in everything recorded
+    private Replay(long seed, double tickRate, boolean repeatHeldInputs, boolean sevenBag, int previewDepth, int boardWidth, int boardHeight, int keyframeInterval, int ticks, byte[] data, int[] keyframeOffsets, int[] inputOffsets){
+        this.seed = seed;
+        this.tickRate = tickRate;
+        this.repeatHeldInputs = repeatHeldInputs;
+        this.sevenBag = sevenBag;
+        this.previewDepth = previewDepth;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.keyframeInterval = keyframeInterval;
+        this.ticks = ticks;
+        this.data = data;
+        this.keyframeOffsets = keyframeOffsets;
+        this.inputOffsets = inputOffsets;
+    }
+
+    // Getter methods for what was recorded
+    public long getSeed() { return seed; }
+    public double getTickRate() { return tickRate; }
+    public boolean isRepeatHeldInputs() { return repeatHeldInputs; }
+    public boolean isSevenBag() { return sevenBag; }
+    public int getPreviewDepth() { return previewDepth; }
+    public int getKeyframeInterval() { return keyframeInterval; }
+    public int getTicks() { return ticks; }
+
+    // Gets the byte after the end of the segment
+    private int segmentEnd(int segment){
+        return segment + 1 < keyframeOffsets.length ? keyframeOffsets[segment + 1] : data.length;
+    }
+
+    // Writes the replay, with the length of each keyframe and its inputs at the start so a reader can find every segment without reading them
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        out.writeDouble(tickRate);
+        out.writeBoolean(repeatHeldInputs);
+        out.writeBoolean(sevenBag);
+        VarInts.writeInt(out, previewDepth);
+        VarInts.writeInt(out, boardWidth);
+        VarInts.writeInt(out, boardHeight);
+        VarInts.writeInt(out, keyframeInterval);
+        VarInts.writeInt(out, ticks);
+        VarInts.writeInt(out, keyframeOffsets.length);
+        for(int segment = 0; segment < keyframeOffsets.length; segment++){
+            VarInts.writeInt(out, inputOffsets[segment] - keyframeOffsets[segment]);
+            VarInts.writeInt(out, segmentEnd(segment) - inputOffsets[segment]);
+        }
+        out.write(data);
+        out.flush();
+    }
+
+    // Reads a replay written by write
+    public static Replay read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if(in.readInt() != MAGIC) throw new IOException("Not a replay");
+        int version = in.readUnsignedByte();
+        if(version != VERSION) throw new IOException("Unsupported replay version " + version);
+        long seed = in.readLong();
+        double tickRate = in.readDouble();
+        boolean repeatHeldInputs = in.readBoolean(), sevenBag = in.readBoolean();
+        int previewDepth = VarInts.readInt(in);
+        int boardWidth = VarInts.readInt(in), boardHeight = VarInts.readInt(in), keyframeInterval = VarInts.readInt(in), ticks = VarInts.readInt(in);
+        int segments = VarInts.readInt(in);
+        // Checks the sizes make sense before anything is created from them
+        // A keyframe starts the game, and another starts every keyframe interval after it that has steps after it
+        if(previewDepth < 1 || previewDepth > PieceGenerator.MAX_PREVIEW_DEPTH || boardWidth < 1 || boardWidth > Board.MAX_WIDTH || boardHeight < 1 || keyframeInterval < 1 || ticks < 0 || segments != (ticks == 0 ? 1 : (ticks - 1) / keyframeInterval + 1)){
+            throw new IOException("Corrupt replay header");
+        }
+
+        // Finds where each keyframe and its inputs start from their lengths
+        int[] keyframeOffsets = new int[segments], inputOffsets = new int[segments];
+        int length = 0;
+        for(int segment = 0; segment < segments; segment++){
+            keyframeOffsets[segment] = length;
+            inputOffsets[segment] = length + VarInts.readInt(in);
+            length = inputOffsets[segment] + VarInts.readInt(in);
+            if(inputOffsets[segment] < keyframeOffsets[segment] || length < inputOffsets[segment]) throw new IOException("Corrupt replay index");
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return new Replay(seed, tickRate, repeatHeldInputs, sevenBag, previewDepth, boardWidth, boardHeight, keyframeInterval, ticks, data, keyframeOffsets, inputOffsets);
+    }
+
+    // Plays the whole game again from the seed, without loading any keyframe, checking each keyframe matches the game being played
+    // Returns the final score of the game, or -1 if a keyframe doesn't match or the inputs can't be read, as the replay was changed or recorded with different rules
+    public int verify(){
+        Player player = new Player(this);
+        try{
+            while(player.hasNext() && player.matches) player.step();
+        } catch(IllegalStateException e){
+            return -1;
+        }
+        if(!player.matches) return -1;
+        GameEngine engine = player.getEngine();
+        return engine.isGameOver() ? engine.getFinalScore() : engine.getScore().getScore();
+    }
+
+    // Class which records the inputs of each step of a game as it's played
+    public static class Recorder {
+        // Engine the game is played on, the seed it was started with, and the number of steps played per second
+        private final GameEngine engine;
+        private final long seed;
+        private final double tickRate;
+        // Number of steps between each keyframe
+        private final int keyframeInterval;
+        // Bytes of the replay written so far
+        private final ByteArrayOutputStream bytes;
+        private final DataOutputStream out;
+        // Where the keyframe and inputs of each segment start, and the number of segments
+        private int[] keyframeOffsets, inputOffsets;
+        private int segments;
+        // Number of steps recorded, and the inputs and number of steps of the run of inputs being recorded
+        private int ticks, runInputs, runLength;
+
+        // Constructor which records the game the engine has just been started with the seed, at the tick rate given
+        public Recorder(GameEngine engine, long seed, double tickRate, int keyframeInterval){
+            if(keyframeInterval < 1) throw new IllegalArgumentException("Keyframe interval must be at least 1");
+            this.engine = engine;
+            this.seed = seed;
+            this.tickRate = tickRate;
+            this.keyframeInterval = keyframeInterval;
+            bytes = new ByteArrayOutputStream();
+            out = new DataOutputStream(bytes);
+            keyframeOffsets = new int[16];
+            inputOffsets = new int[16];
+            // Saves the state the game starts with as the first keyframe
+            addKeyframe();
+        }
+
+        // Constructor which records with the default number of steps between each keyframe
+        public Recorder(GameEngine engine, long seed, double tickRate){
+            this(engine, seed, tickRate, DEFAULT_KEYFRAME_INTERVAL);
+        }
+
+        // Gets the number of steps recorded
+        public int getTicks() { return ticks; }
+
+        // Records the inputs of a step, called right before the step is played with them
+        public void record(int inputs){
+            // Starts a new segment with the state of the game before the step, every keyframe interval
+            if(ticks > 0 && ticks % keyframeInterval == 0){
+                endRun();
+                addKeyframe();
+            }
+            // Only the inputs the engine reads are kept, so runs aren't broken up by anything else
+            inputs &= INPUT_MASK;
+            if(runLength > 0 && (inputs != runInputs || runLength == MAX_RUN_LENGTH)) endRun();
+            runInputs = inputs;
+            runLength++;
+            ticks++;
+        }
+
+        // Finishes the recording, and gets the replay of every step recorded so far
+        public Replay finish(){
+            endRun();
+            return new Replay(seed, tickRate, engine.isRepeatHeldInputs(), engine.isSevenBag(), engine.getPreviewDepth(), engine.getBoard().getWidth(), engine.getBoard().getHeight(), keyframeInterval, ticks,
+                    bytes.toByteArray(), Arrays.copyOf(keyframeOffsets, segments), Arrays.copyOf(inputOffsets, segments));
+        }
+
+        // Saves the whole state of the game as the keyframe of a new segment
+        private void addKeyframe(){
+            if(segments == keyframeOffsets.length){
+                keyframeOffsets = Arrays.copyOf(keyframeOffsets, segments * 2);
+                inputOffsets = Arrays.copyOf(inputOffsets, segments * 2);
+            }
+            keyframeOffsets[segments] = bytes.size();
+            try{
+                engine.save(out);
+            } catch(IOException e){
+                // Writing to an array never fails
+                throw new UncheckedIOException(e);
+            }
+            inputOffsets[segments] = bytes.size();
+            segments++;
+        }
+
+        // Writes the run of inputs being recorded, as the number of steps minus one above the bits of the inputs
+        private void endRun(){
+            if(runLength == 0) return;
+            try{
+                VarInts.writeInt(out, (runLength - 1) << INPUT_BITS | runInputs);
+            } catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+            runLength = 0;
+        }
+    }
+
+    // Class which plays a replay, step by step or skipping to any step
+    public static class Player {
+        // Replay being played, and the engine it's played on
+        private final Replay replay;
+        private final GameEngine engine;
+        // Number of steps played, where the next run is read from and where the runs of the segment end, and the inputs and steps left of the current run
+        private int tick, position, end, runInputs, runLeft;
+        // Bytes of the state of the game, and if every keyframe matched it, when the replay is played from the seed instead of the keyframes (while verifying)
+        private final ByteArrayOutputStream state;
+        private boolean matches;
+
+        // Constructor which plays the replay on the engine given, which needs a board of the same size and the same preview depth, from the start of the game
+        // Throws IllegalArgumentException if the engine doesn't draw its blocks the way the replay was recorded, as the game would play differently instead of failing
+        public Player(Replay replay, GameEngine engine) throws IOException {
+            if(engine.isSevenBag() != replay.sevenBag) throw new IllegalArgumentException("Replay was recorded " + (replay.sevenBag ? "with" : "without") + " a 7-bag");
+            if(engine.getPreviewDepth() != replay.previewDepth) throw new IllegalArgumentException("Replay was recorded with a preview depth of " + replay.previewDepth + ", not " + engine.getPreviewDepth());
+            Board board = engine.getBoard();
+            if(board.getWidth() != replay.boardWidth || board.getHeight() != replay.boardHeight) throw new IllegalArgumentException("Replay was recorded on a " + replay.boardWidth + "x" + replay.boardHeight + " board");
+            this.replay = replay;
+            this.engine = engine;
+            engine.setTickRate(replay.tickRate);
+            engine.setRepeatHeldInputs(replay.repeatHeldInputs);
+            state = null;
+            seek(0);
+        }
+
+        // Constructor which plays the replay on a new engine of its own, from the seed, checking each keyframe against it
+        private Player(Replay replay){
+            this.replay = replay;
+            engine = new GameEngine(new Board(replay.boardWidth, replay.boardHeight), new Score(), new PieceGenerator(replay.seed, replay.sevenBag, replay.previewDepth));
+            engine.setTickRate(replay.tickRate);
+            engine.setRepeatHeldInputs(replay.repeatHeldInputs);
+            engine.start(replay.seed);
+            state = new ByteArrayOutputStream();
+            matches = true;
+        }
+
+        // Gets the engine the replay is played on, and the number of steps played
+        public GameEngine getEngine() { return engine; }
+        public int getTick() { return tick; }
+
+        // Checks if there are steps left to play
+        public boolean hasNext(){
+            return tick < replay.ticks;
+        }
+
+        // Plays the next step of the replay, and returns the result of the step
+        // Throws IllegalStateException if the inputs of the replay are cut off or corrupt
+        public int step(){
+            if(!hasNext()) throw new NoSuchElementException("Replay has ended");
+            if(runLeft == 0) nextRun();
+            runLeft--;
+            tick++;
+            return engine.step(runInputs);
+        }
+
+        // Plays steps until the step given or the end of the replay, as fast as the engine can step, and returns the results of every step combined
+        public int fastForward(int target){
+            int results = 0;
+            while(tick < target && hasNext()) results |= step();
+            return results;
+        }
+
+        // Skips to the step given, by loading the keyframe before it and playing the steps after the keyframe
+        public void seek(int target) throws IOException {
+            target = Math.max(0, Math.min(target, replay.ticks));
+            int segment = Math.min(target / replay.keyframeInterval, replay.keyframeOffsets.length - 1);
+            int keyframe = replay.keyframeOffsets[segment];
+            engine.load(new DataInputStream(new ByteArrayInputStream(replay.data, keyframe, replay.inputOffsets[segment] - keyframe)));
+            tick = segment * replay.keyframeInterval;
+            startSegment(segment);
+            fastForward(target);
+        }
+
+        // Reads the next run of inputs, moving on to the runs of the next segment at the end of each segment
+        private void nextRun(){
+            if(position == end) startSegment(tick / replay.keyframeInterval);
+            // Reads the run one byte at a time straight from the array, as this is done for every run of a whole game
+            int run = 0;
+            for(int shift = 0; ; shift += VarInts.PAYLOAD_BITS){
+                if(position == end || shift >= Integer.SIZE) throw new IllegalStateException("Corrupt replay inputs at step " + tick);
+                byte b = replay.data[position++];
+                run |= (b & VarInts.PAYLOAD_MASK) << shift;
+                // The top bit is only set on the bytes before the last
+                if(b >= 0) break;
+            }
+            runInputs = run & INPUT_MASK;
+            runLeft = (run >>> INPUT_BITS) + 1;
+        }
+
+        // Moves to the runs of inputs of the segment, checking the keyframe of the segment matches the game if verifying
+        private void startSegment(int segment){
+            position = replay.inputOffsets[segment];
+            end = replay.segmentEnd(segment);
+            runLeft = 0;
+            if(state != null) matches &= keyframeMatches(segment);
+        }
+
+        // Checks if the state of the game is the same as the keyframe of the segment
+        private boolean keyframeMatches(int segment){
+            state.reset();
+            try{
+                engine.save(new DataOutputStream(state));
+            } catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+            byte[] bytes = state.toByteArray();
+            return Arrays.equals(bytes, 0, bytes.length, replay.data, replay.keyframeOffsets[segment], replay.inputOffsets[segment]);
+        }
+    }
+
+    // Verifies the replay files given, printing the final score of each and how fast it was played again
+    public static void main(String[] args) throws IOException {
+        for(String file : args){
+            Replay replay;
+            try(InputStream in = new FileInputStream(file)){
+                replay = read(in);
+            }
+            long start = System.nanoTime();
+            int score = replay.verify();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if(score < 0) System.out.printf("%s: keyframes don't match the game played from the seed%n", file);
+            else System.out.printf("%s: score %d after %d steps, played again at %.0f steps/s%n", file, score, replay.ticks, replay.ticks / seconds);
+        }
+    }
+}
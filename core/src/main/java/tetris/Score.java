@@ -0,0 +1,209 @@
+// Score.java
+// Gordon Lin
+// Class which stores the score and information about the score of the user for the Tetris game
+
+package tetris;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+
+public class Score {
+    // Constants which store the multiplier points received for hard drop, and number of rows required to be cleared to level up
+    public static final int DROP_MULTIPLIER = 2, ROWS_PER_LEVEL = 10;
+    // Constant which stores the number of points received when clearing x number of rows
+    public static final int[] ROW_SCORE = {
+            0, 40, 100, 300, 1200
+    };
+
+    // Stores the total score, level, and number of rows cleared
+    private int score, level, rowsCleared;
+
+    // Constant which stores the label of each line of text
+    public static final String[] LABELS = {
+            "Score: ", "Rows Cleared: ", "Level: "
+    };
+
+    // Stores the x and y position of the text on the screen
+    private final int x, y;
+    // Stores the font used to display the scores, with its measurements and images of its digits
+    private final HudText text;
+    // Stores the region of the screen the text is drawn in
+    private final Rectangle bounds;
+
+    // Stores the image the text is drawn into, and the screen it was created for
+    private BufferedImage hud;
+    private GraphicsConfiguration configuration;
+    // Stores the graphics that draws into the image, kept so drawing a value that changed doesn't create a new one
+    private Graphics2D hudGraphics;
+    // Stores the values last drawn into the image, so each value is only drawn again when it changes
+    private int drawnScore = -1, drawnRowsCleared = -1, drawnLevel = -1;
+
+    // Constructor for a score that's never drawn, which sets the position to 0 and has no font
+    public Score(){
+        score = 0;
+        level = 0;
+        rowsCleared = 0;
+
+        x = 0;
+        y = 0;
+        text = null;
+        bounds = null;
+    }
+
+    // Constructor which takes in the position of the text, font of the text, and font size
+    public Score(int x, int y, Font font, float fontSize){
+        // Sets all the values to 0
+        score = 0;
+        level = 0;
+        rowsCleared = 0;
+
+        // Sets the position
+        this.x = x;
+        this.y = y;
+        // Sets the font to the font specified with the size specified
+        text = new HudText(font, fontSize);
+
+        // Gets the region of the text, wide enough for the longest label and largest value, and tall enough for three lines two lines apart
+        int width = 0;
+        for(String label : LABELS) width = Math.max(width, text.stringWidth(label));
+        width += text.numberWidth(Integer.MAX_VALUE);
+        bounds = new Rectangle(x, y - text.getAscent(), width, text.getHeight() * 2 * (LABELS.length - 1) + text.getHeight());
+    }
+
+    // Gets the score
+    public int getScore() { return score; }
+
+    // Gets the level and number of rows cleared
+    public int getLevel() { return level; }
+    public int getRowsCleared() { return rowsCleared; }
+
+    // Gets required num of rows cleared to level up
+    public int getRequiredRowsCleared(){
+        return ROWS_PER_LEVEL * (level + 1);
+    }
+
+    // Checks if the user can level up using the number of rows that have been cleared on the board
+    public boolean rowClearLevelUp(int numCleared){
+        // Adds the number of rows cleared
+        rowsCleared += numCleared;
+        // Adds the score from the points received from number of rows cleared multiplied by the level
+        score += ROW_SCORE[numCleared] * (level + 1);
+
+        // Checks if the number of rows cleared is equal to or greater than the number of rows needed to proceed to next level
+        boolean nextLevel = rowsCleared >= getRequiredRowsCleared();
+
+        // Increments a level if can proceed to next level
+        if(nextLevel) level++;
+
+        // Returns if can proceed to next level
+        return nextLevel;
+    }
+
+    // Adds score if hard dropped, multiplies distance dropped by the drop multiplier
+    public void hardDrop(int distance){
+        score += distance * DROP_MULTIPLIER;
+    }
+
+    // Increments 1 to the score
+    public void increment(){
+        score++;
+    }
+
+    // Checks if any value has changed since the text was last drawn
+    public boolean isChanged(){
+        return score != drawnScore || rowsCleared != drawnRowsCleared || level != drawnLevel;
+    }
+
+    // Gets the region of the screen the text is drawn in
+    public Rectangle getBounds(){
+        return bounds;
+    }
+
+    // Renders the text containing score, rows cleared, and level on the screen
+    public void draw(Graphics2D g2d){
+        // Draws the labels into a new image the first time, or again if the screen changed
+        GraphicsConfiguration configuration = g2d.getDeviceConfiguration();
+        if(hud == null || configuration != this.configuration){
+            this.configuration = configuration;
+            buildHud();
+        }
+
+        // Draws the numbers again only for the values that have changed since they were last drawn
+        if(score != drawnScore){
+            drawnScore = score;
+            drawValue(0, score);
+        }
+        if(rowsCleared != drawnRowsCleared){
+            drawnRowsCleared = rowsCleared;
+            drawValue(1, rowsCleared);
+        }
+        if(level != drawnLevel){
+            drawnLevel = level;
+            drawValue(2, level);
+        }
+
+        // Renders the score, rowsCleared and level on the screen vertically at the specified location, as one image
+        g2d.drawImage(hud, bounds.x, bounds.y, null);
+    }
+
+    // Creates the image of the text in the format of the screen, and draws the label of each line
+    private void buildHud(){
+        if(hudGraphics != null) hudGraphics.dispose();
+        hud = configuration.createCompatibleImage(bounds.width, bounds.height, Transparency.TRANSLUCENT);
+        hudGraphics = hud.createGraphics();
+        hudGraphics.setColor(Color.WHITE);
+        for(int line = 0; line < LABELS.length; line++){
+            text.drawString(hudGraphics, LABELS[line], 0, lineBaseline(line));
+        }
+
+        // Every value needs to be drawn on the new image
+        drawnScore = -1;
+        drawnRowsCleared = -1;
+        drawnLevel = -1;
+    }
+
+    // Draws the value after the label of the line, clearing the value that was there before
+    private void drawValue(int line, int value){
+        int valueX = text.stringWidth(LABELS[line]), top = lineBaseline(line) - text.getAscent();
+        // Clears the previous value to transparent
+        hudGraphics.setComposite(AlphaComposite.Clear);
+        hudGraphics.fillRect(valueX, top, bounds.width - valueX, text.getHeight());
+        hudGraphics.setComposite(AlphaComposite.SrcOver);
+        // Draws the value with the images of each digit
+        text.drawNumber(hudGraphics, value, valueX, lineBaseline(line));
+    }
+
+    // Gets the baseline of the line in the image of the text, with each line two lines of text apart
+    private int lineBaseline(int line){
+        return text.getAscent() + text.getHeight() * 2 * line;
+    }
+
+    // Writes the score, level, and number of rows cleared
+    public void save(DataOutput out) throws IOException {
+        VarInts.writeInt(out, score);
+        VarInts.writeInt(out, level);
+        VarInts.writeInt(out, rowsCleared);
+    }
+
+    // Reads the score, level, and number of rows cleared written by save
+    public void load(DataInput in) throws IOException {
+        score = VarInts.readInt(in);
+        level = VarInts.readInt(in);
+        rowsCleared = VarInts.readInt(in);
+    }
+
+    // Sets the score, level, and number of rows cleared back to values they had before, as when a search undoes a block
+    public void restore(int score, int level, int rowsCleared){
+        this.score = score;
+        this.level = level;
+        this.rowsCleared = rowsCleared;
+    }
+
+    // Resets all the values back to 0
+    public void reset(){
+        score = 0;
+        level = 0;
+        rowsCleared = 0;
+    }
+}
@@ -0,0 +1,66 @@
+// SharedFrame.java
+// Gordon Lin
+// Class which stores one encoded frame that is sent to many subscribers at once, instead of copying it for each of them
+// Counts how many subscribers still hold the frame, and goes back to the pool it came from once the last one releases it, so frames are reused once everyone is done with them
+// Can be retained and released from any thread, but its bytes must not be changed once it has been published
+
+package tetris;
+
+import java.nio.*;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SharedFrame {
+    // Bytes of the frame, from 0 to its limit once it has been published
+    private final ByteBuffer data;
+    // Pool the frame goes back to once nobody holds it
+    private final Queue<SharedFrame> pool;
+    // Number of holders of the frame (0 while it's in the pool)
+    private final AtomicInteger refs;
+
+    // Constructor which creates a frame with room for the number of bytes given, which goes back to the pool given
+    public SharedFrame(int capacity, Queue<SharedFrame> pool){
+        data = ByteBuffer.allocateDirect(capacity);
+        this.pool = pool;
+        refs = new AtomicInteger();
+    }
+
+    // Getter methods for the number of holders, and the size of the frame in bytes
+    public int getRefs() { return refs.get(); }
+    public int size() { return data.limit(); }
+
+    // Clears the frame to be written by its one holder, after it's taken from the pool
+    ByteBuffer open(){
+        if(!refs.compareAndSet(0, 1)) throw new IllegalStateException("Frame is still held");
+        data.clear();
+        return data;
+    }
+
+    // Ends the writing of the frame, after which it's only read
+    void publish(){
+        data.flip();
+    }
+
+    // Gets a view of the bytes of the frame for one holder to read, which has its own position but shares the bytes (nothing is copied)
+    public ByteBuffer view(){
+        return data.asReadOnlyBuffer();
+    }
+
+    // Adds a holder of the frame, which has to release it once it's done with it
+    public SharedFrame retain(){
+        int count;
+        do{
+            count = refs.get();
+            // A frame that nobody holds may already be being written again
+            if(count <= 0) throw new IllegalStateException("Frame was already released");
+        } while(!refs.compareAndSet(count, count + 1));
+        return this;
+    }
+
+    // Removes a holder of the frame, and puts it back in its pool if it was the last one
+    public void release(){
+        int count = refs.decrementAndGet();
+        if(count == 0) pool.offer(this);
+        else if(count < 0) throw new IllegalStateException("Frame was released too many times");
+    }
+}
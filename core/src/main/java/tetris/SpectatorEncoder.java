@@ -0,0 +1,221 @@
+// SpectatorEncoder.java
+// Gordon Lin
+// Class which encodes what changed in a game after each step into one frame that is shared by every spectator watching it
+// Each frame only has what changed since the last frame: the squares of the board that changed, the current block, the held block, the preview and how much the score changed
+// A full snapshot is sent every so often, and whenever a spectator starts watching, so spectators can start from it or catch up after missing a frame
+// Frames:
+// - 1 byte type (SNAPSHOT or DELTA), varint sequence number (one more than the last frame), 1 byte flags (CHANGED_* of what follows, and GAME_OVER)
+// - SNAPSHOT only: varint board width, varint board height (the spectator empties everything before reading the rest, so the rest is what changed from an empty game)
+// - CHANGED_CELLS: for each changed square, a varint of how far its index (y * width + x) is past the last changed square (starting from -1) and 1 byte colour + 1 (0 is empty), then a 0
+// - CHANGED_BLOCK: 1 byte block, 1 byte rotation, signed varint column, signed varint row
+// - CHANGED_HOLD: 1 byte held block (-1 for none)
+// - CHANGED_PREVIEW: 1 byte number of blocks, then 1 byte for each block in the preview
+// - CHANGED_SCORE: signed varints of how much the score, level and rows cleared changed
+
+package tetris;
+
+import java.nio.*;
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+public class SpectatorEncoder {
+    // Interface for a spectator, which is given every frame and holds it until it calls release on it (it can hold it for as long as it needs, such as until it's written to a socket)
+    public interface Spectator {
+        void frame(SharedFrame frame);
+    }
+
+    // Constants for the type of each frame
+    public static final byte SNAPSHOT = 1, DELTA = 2;
+    // Constants for the flags of what each frame has in it
+    public static final int CHANGED_CELLS = 1, CHANGED_BLOCK = 1 << 1, CHANGED_HOLD = 1 << 2, CHANGED_PREVIEW = 1 << 3, CHANGED_SCORE = 1 << 4, GAME_OVER = 1 << 5;
+    // Constant which stores the held block sent when no block is held
+    public static final int NO_BLOCK = -1;
+    // Constant which stores the number of steps between each snapshot by default (5 seconds at 60 steps per second)
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 300;
+
+    // Game being watched, its board, and the number of steps between each snapshot
+    private final GameEngine engine;
+    private final Board board;
+    private final int snapshotInterval;
+    // Spectators watching, which can start and stop watching from any thread
+    private final CopyOnWriteArrayList<Spectator> spectators;
+    // Frames nobody holds anymore, which go back here from whichever thread releases them last, and the size of each frame
+    private final ConcurrentLinkedQueue<SharedFrame> pool;
+    private final int frameCapacity;
+    // Boolean which stores if a spectator started watching since the last snapshot
+    private volatile boolean snapshotRequested;
+
+    // Squares and rows of the board, the current block, held block, preview and score, as last sent to the spectators
+    private final byte[] sentCells;
+    private final long[] sentRows;
+    private int sentBlock, sentRotate, sentX, sentY, sentHold, sentScore, sentLevel, sentRowsCleared, sentBoardVersion;
+    private final int[] sentPreview;
+    private boolean sentGameOver;
+    // Sequence number of the next frame, and the number of steps since the last snapshot
+    private int sequence, stepsSinceSnapshot;
+    // Number of frames and snapshots encoded, and the bytes of every frame encoded, for the statistics of the encoder
+    private long framesEncoded, snapshotsEncoded, bytesEncoded;
+
+    // Constructor which takes in the game to watch and the number of steps between each snapshot
+    public SpectatorEncoder(GameEngine engine, int snapshotInterval){
+        this.engine = engine;
+        this.snapshotInterval = snapshotInterval;
+        board = engine.getBoard();
+        spectators = new CopyOnWriteArrayList<>();
+        pool = new ConcurrentLinkedQueue<>();
+        int numCells = board.getWidth() * board.getHeight();
+        sentCells = new byte[numCells];
+        sentRows = new long[board.getHeight()];
+        sentPreview = new int[engine.getPreviewDepth()];
+        // Every square of the board at the bytes of the varint of its index and 1 for its colour, and everything else in a frame
+        frameCapacity = numCells * (VarInts.size(numCells) + 1) + engine.getPreviewDepth() + 64;
+    }
+
+    // Getter methods for the statistics of the encoder
+    public int getSpectators() { return spectators.size(); }
+    public long getFramesEncoded() { return framesEncoded; }
+    public long getSnapshotsEncoded() { return snapshotsEncoded; }
+    public long getBytesEncoded() { return bytesEncoded; }
+
+    // Starts sending frames to a spectator, starting with a snapshot
+    public void subscribe(Spectator spectator){
+        spectators.add(spectator);
+        snapshotRequested = true;
+    }
+
+    // Stops sending frames to a spectator (it still has to release any frames it holds)
+    public void unsubscribe(Spectator spectator){
+        spectators.remove(spectator);
+    }
+
+    // Encodes what changed since the last frame into one frame, and gives it to every spectator, after each step of the game
+    // Nothing is encoded while nobody is watching, or if nothing changed and a snapshot isn't due
+    public void encode(){
+        boolean snapshot = snapshotRequested || ++stepsSinceSnapshot >= snapshotInterval;
+        if(spectators.isEmpty()) return;
+        if(snapshot){
+            snapshotRequested = false;
+            stepsSinceSnapshot = 0;
+        }
+
+        SharedFrame frame = pool.poll();
+        if(frame == null) frame = new SharedFrame(frameCapacity, pool);
+        ByteBuffer out = frame.open();
+        if(!write(out, snapshot)){
+            // Nothing changed, so the frame goes straight back
+            frame.release();
+            return;
+        }
+        frame.publish();
+        framesEncoded++;
+        if(snapshot) snapshotsEncoded++;
+        bytesEncoded += frame.size();
+
+        // Every spectator gets their own hold of the same frame, and the frame goes back to the pool once the encoder and every spectator released it
+        for(Spectator spectator : spectators) spectator.frame(frame.retain());
+        frame.release();
+    }
+
+    // Writes the frame into the buffer, and returns false if nothing changed in a delta
+    private boolean write(ByteBuffer out, boolean snapshot){
+        if(snapshot){
+            // A snapshot is what changed from an empty game
+            Arrays.fill(sentCells, Board.EMPTY);
+            Arrays.fill(sentRows, 0);
+            sentBoardVersion = board.getVersion() - 1;
+            sentScore = sentLevel = sentRowsCleared = 0;
+        }
+        out.put(snapshot ? SNAPSHOT : DELTA);
+        VarInts.putInt(out, sequence);
+        int flagsAt = out.position(), flags = engine.isGameOver() ? GAME_OVER : 0;
+        out.put((byte) 0);
+        if(snapshot){
+            VarInts.putInt(out, board.getWidth());
+            VarInts.putInt(out, board.getHeight());
+        }
+
+        // Squares of the board, which are only compared when the board changed
+        if(board.getVersion() != sentBoardVersion){
+            int start = out.position();
+            if(writeCells(out) || snapshot) flags |= CHANGED_CELLS;
+            else out.position(start);
+            sentBoardVersion = board.getVersion();
+        }
+
+        // Current block
+        Tetrominoes block = engine.getCurrentBlock();
+        int y = (int) Math.floor(block.getY());
+        if(snapshot || block.getTetrominoNum() != sentBlock || block.getRotate() != sentRotate || block.getX() != sentX || y != sentY){
+            flags |= CHANGED_BLOCK;
+            sentBlock = block.getTetrominoNum();
+            sentRotate = block.getRotate();
+            sentX = block.getX();
+            sentY = y;
+            out.put((byte) sentBlock);
+            out.put((byte) sentRotate);
+            VarInts.putSignedInt(out, sentX);
+            VarInts.putSignedInt(out, sentY);
+        }
+
+        // Held block
+        Tetrominoes held = engine.getHeldBlock();
+        int hold = held == null ? NO_BLOCK : held.getTetrominoNum();
+        if(snapshot || hold != sentHold){
+            flags |= CHANGED_HOLD;
+            sentHold = hold;
+            out.put((byte) hold);
+        }
+
+        // Preview, which changes each time a block is drawn
+        boolean previewChanged = snapshot;
+        for(int i = 0; i < sentPreview.length && !previewChanged; i++) previewChanged = engine.getPreview(i) != sentPreview[i];
+        if(previewChanged){
+            flags |= CHANGED_PREVIEW;
+            out.put((byte) sentPreview.length);
+            for(int i = 0; i < sentPreview.length; i++){
+                sentPreview[i] = engine.getPreview(i);
+                out.put((byte) sentPreview[i]);
+            }
+        }
+
+        // Score, sent as how much it changed
+        Score score = engine.getScore();
+        if(snapshot || score.getScore() != sentScore || score.getLevel() != sentLevel || score.getRowsCleared() != sentRowsCleared){
+            flags |= CHANGED_SCORE;
+            VarInts.putSignedInt(out, score.getScore() - sentScore);
+            VarInts.putSignedInt(out, score.getLevel() - sentLevel);
+            VarInts.putSignedInt(out, score.getRowsCleared() - sentRowsCleared);
+            sentScore = score.getScore();
+            sentLevel = score.getLevel();
+            sentRowsCleared = score.getRowsCleared();
+        }
+
+        // A delta with nothing in it isn't sent, unless the game just ended or started again
+        if(!snapshot && (flags & ~GAME_OVER) == 0 && engine.isGameOver() == sentGameOver) return false;
+        sentGameOver = engine.isGameOver();
+        out.put(flagsAt, (byte) flags);
+        sequence++;
+        return true;
+    }
+
+    // Writes every square of the board that changed since it was last sent, and returns true if any did
+    private boolean writeCells(ByteBuffer out){
+        int width = board.getWidth(), last = -1;
+        for(int y = 0; y < sentRows.length; y++){
+            long row = board.getRow(y);
+            // Rows which are empty and were empty have no squares to compare
+            if(row == 0 && sentRows[y] == 0) continue;
+            sentRows[y] = row;
+            for(int x = 0, index = y * width; x < width; x++, index++){
+                byte colour = (byte) board.getSquare(x, y);
+                if(colour == sentCells[index]) continue;
+                sentCells[index] = colour;
+                VarInts.putInt(out, index - last);
+                out.put((byte) (colour + 1));
+                last = index;
+            }
+        }
+        out.put((byte) 0);
+        return last >= 0;
+    }
+}
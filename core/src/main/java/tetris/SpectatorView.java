@@ -0,0 +1,116 @@
+// SpectatorView.java
+// Gordon Lin
+// Class which watches a game through the frames of a SpectatorEncoder, keeping what the spectator would see: the board, current block, held block, preview and score
+// Reads each frame as soon as it's given, then releases it, and waits for the next snapshot if it misses a frame or hasn't had a snapshot yet
+
+package tetris;
+
+import java.nio.*;
+import java.util.Arrays;
+
+public class SpectatorView implements SpectatorEncoder.Spectator {
+    // Size of the board, and every square of it
+    private int width, height;
+    private byte[] cells;
+    // Current block, its rotation, column and row, the held block, and the preview
+    private int block, rotate, x, y, hold;
+    private int[] preview;
+    // Score, level and rows cleared
+    private int score, level, rowsCleared;
+    // Boolean which stores if the game is over
+    private boolean gameOver;
+    // Boolean which stores if the view has had a snapshot and every frame since, and the sequence number of the last frame read
+    private boolean synced;
+    private int sequence;
+    // Number of frames read, and the number skipped while waiting for a snapshot
+    private long framesRead, framesSkipped;
+
+    // Constructor which creates a view that waits for the first snapshot
+    public SpectatorView(){
+        cells = new byte[0];
+        preview = new int[0];
+        hold = SpectatorEncoder.NO_BLOCK;
+    }
+
+    // Getter methods for what the spectator sees
+    public boolean isSynced() { return synced; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getSquare(int x, int y) { return cells[y * width + x]; }
+    public int getBlock() { return block; }
+    public int getRotate() { return rotate; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getHold() { return hold; }
+    public int getPreview(int index) { return preview[index]; }
+    public int getPreviewDepth() { return preview.length; }
+    public int getScore() { return score; }
+    public int getLevel() { return level; }
+    public int getRowsCleared() { return rowsCleared; }
+    public boolean isGameOver() { return gameOver; }
+    public long getFramesRead() { return framesRead; }
+    public long getFramesSkipped() { return framesSkipped; }
+
+    // Reads a frame, then releases it
+    @Override
+    public void frame(SharedFrame frame){
+        try{
+            read(frame.view());
+        } finally{
+            frame.release();
+        }
+    }
+
+    // Reads a frame from the buffer
+    public void read(ByteBuffer in){
+        byte type = in.get();
+        int frameSequence = VarInts.getInt(in);
+        if(type == SpectatorEncoder.DELTA && (!synced || frameSequence != sequence + 1)){
+            // A delta can only be read on top of the frame right before it
+            synced = false;
+            framesSkipped++;
+            return;
+        }
+        if(type != SpectatorEncoder.DELTA && type != SpectatorEncoder.SNAPSHOT) throw new IllegalArgumentException("Unknown frame type " + type);
+        int flags = in.get();
+
+        if(type == SpectatorEncoder.SNAPSHOT){
+            // Empties everything, as a snapshot is what changed from an empty game
+            width = VarInts.getInt(in);
+            height = VarInts.getInt(in);
+            if(cells.length != width * height) cells = new byte[width * height];
+            Arrays.fill(cells, Board.EMPTY);
+            score = level = rowsCleared = 0;
+        }
+
+        if((flags & SpectatorEncoder.CHANGED_CELLS) != 0){
+            int index = -1, skip;
+            while((skip = VarInts.getInt(in)) != 0){
+                index += skip;
+                cells[index] = (byte) (in.get() - 1);
+            }
+        }
+        if((flags & SpectatorEncoder.CHANGED_BLOCK) != 0){
+            block = in.get();
+            rotate = in.get();
+            x = VarInts.getSignedInt(in);
+            y = VarInts.getSignedInt(in);
+        }
+        if((flags & SpectatorEncoder.CHANGED_HOLD) != 0) hold = in.get();
+        if((flags & SpectatorEncoder.CHANGED_PREVIEW) != 0){
+            int depth = in.get();
+            if(preview.length != depth) preview = new int[depth];
+            for(int i = 0; i < depth; i++) preview[i] = in.get();
+        }
+        if((flags & SpectatorEncoder.CHANGED_SCORE) != 0){
+            score += VarInts.getSignedInt(in);
+            level += VarInts.getSignedInt(in);
+            rowsCleared += VarInts.getSignedInt(in);
+        }
+        gameOver = (flags & SpectatorEncoder.GAME_OVER) != 0;
+
+        sequence = frameSequence;
+        synced = true;
+        framesRead++;
+    }
+}
@@ -0,0 +1,79 @@
+// Square.java
+// Gordon Lin
+// Class which stores each square object that'll be displayed on the board
+
+package tetris;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class Square{
+    // Constant String array which stores the path of each colour of the square images in the assets
+    private static final String[] IMAGE_PATHS = {
+            "/assets/images/cyan_block.png",
+            "/assets/images/blue_block.png",
+            "/assets/images/orange_block.png",
+            "/assets/images/yellow_block.png",
+            "/assets/images/green_block.png",
+            "/assets/images/purple_block.png",
+            "/assets/images/red_block.png",
+            "/assets/images/gray_block.png"
+    };
+
+    // Class which holds the square images, so they're only imported once a square is first drawn, and not when the game runs without a screen
+    private static class Images {
+        // Constant Image array which stores each colour of the square images, waiting for them if they're still loading
+        static final Image[] SQUARES = loadImages().join();
+    }
+
+    // Constants for the colour of the gray square, and the number of colours of squares
+    public static final int GRAY = 7, NUM_COLOURS = 8;
+    // Constant Square array which stores one shared square with no offset for each colour, which are drawn for the squares on the board instead of creating a Square for each one
+    public static final Square[] SHARED_SQUARES = new Square[NUM_COLOURS];
+
+    static {
+        for(int colour = 0; colour < NUM_COLOURS; colour++) SHARED_SQUARES[colour] = new Square(colour);
+    }
+
+    // x and y offset (offset by square size, not pixel) and colour of the square
+    private final int x, y, colour;
+
+    // Constructor that takes in x and y offset and colour
+    public Square(int x, int y, int colour){
+        this.x = x;
+        this.y = y;
+        this.colour = colour;
+    }
+
+    // Constructor that only takes in colour, no offset
+    public Square(int colour){
+        this.x = 0;
+        this.y = 0;
+        this.colour = colour;
+    }
+
+    // Starts loading every colour of the square images at the same time, and gets the future of all of them
+    // Waiting on it before the game is shown means squares are drawn without waiting for their images
+    public static CompletableFuture<Image[]> loadImages(){
+        List<CompletableFuture<BufferedImage>> images = new ArrayList<>(NUM_COLOURS);
+        for(int colour = 0; colour < NUM_COLOURS; colour++) images.add(Assets.image(IMAGE_PATHS[colour]));
+        return CompletableFuture.allOf(images.toArray(new CompletableFuture<?>[0])).thenApply(loaded -> {
+            Image[] squares = new Image[NUM_COLOURS];
+            for(int colour = 0; colour < NUM_COLOURS; colour++) squares[colour] = images.get(colour).join();
+            return squares;
+        });
+    }
+
+    // Getter methods that get the x and y offset
+    public int getX(){ return this.x; }
+    public int getY(){ return this.y; }
+
+    // Draw method which draws each individual square, requiring the Graphics2D object, position on the screen, size of each square, and ImageObserver object
+    // Draws the image corresponding to the Square colour, copied from the atlas of square images already scaled to the size
+    public void draw(Graphics2D g2d, int x, int y, int size, ImageObserver imageObserver){
+        TileAtlas.get(g2d, size, Images.SQUARES).draw(g2d, colour, x + this.x * size, y + this.y*size);
+    }
+}
@@ -2,14 +2,13 @@
 // Gordon Lin
 // Class which possess each block (tetromino) of the tetris game
 
+package tetris;
+
 import java.awt.*;
 import java.awt.image.*;
-import java.util.Random;
+import java.util.Arrays;
 
 public class Tetrominoes {
-    // Random object for random generation
-    public static final Random random = new Random();
-
     // Constant which stores the Squares for each block (Tetromino), with rotation of each block, offset from the top left of the boundary that holds the block
     public static final Square[][][] TETROMINOES = new Square[][][]{
             { // I block
@@ -61,38 +60,89 @@ public class Tetrominoes {
             4, 3, 3, 4, 3, 3, 3
     };
 
-    // Constant which stores the translations when rotating clockwise, corresponding to the current rotation state of the block, in order of cases and translation that occur first
-    public static final Point[][][] TETROMINO_CLOCKWISE_ROTATION_TRANSLATION = new Point[][][]{
+    // Constant which stores the translations {x, y} when rotating clockwise, corresponding to the current rotation state of the block, in order of cases and translation that occur first
+    // Stored as int pairs rather than Points so the game rules don't depend on AWT
+    public static final int[][][][] TETROMINO_CLOCKWISE_ROTATION_TRANSLATION = new int[][][][]{
             { // I block translations
-                    { new Point(-2, 0), new Point(1, 0), new Point(-2, 1), new Point(1, -2) },
-                    { new Point(-1, 0), new Point(2, 0), new Point(-1, -2), new Point(2, 1) },
-                    { new Point(2, 0), new Point(-1, 0), new Point(2 , -1), new Point(-1, 2) },
-                    { new Point(1, 0), new Point(-2, 0), new Point(1, 2), new Point(-2, -1) }
+                    { {-2, 0}, {1, 0}, {-2, 1}, {1, -2} },
+                    { {-1, 0}, {2, 0}, {-1, -2}, {2, 1} },
+                    { {2, 0}, {-1, 0}, {2 , -1}, {-1, 2} },
+                    { {1, 0}, {-2, 0}, {1, 2}, {-2, -1} }
             },
             { // Non-I block translations
-                    { new Point(-1, 0), new Point(-1, -1), new Point(0, 2), new Point(-1, 2) },
-                    { new Point(1, 0), new Point(1, 1), new Point(0, -2), new Point(1, -2) },
-                    { new Point(1, 0), new Point(1, -1), new Point(0, 2), new Point(1, 2) },
-                    { new Point(-1, 0), new Point(-1, 1), new Point(0, -2), new Point(-1, -2) }
+                    { {-1, 0}, {-1, -1}, {0, 2}, {-1, 2} },
+                    { {1, 0}, {1, 1}, {0, -2}, {1, -2} },
+                    { {1, 0}, {1, -1}, {0, 2}, {1, 2} },
+                    { {-1, 0}, {-1, 1}, {0, -2}, {-1, -2} }
             }
     };
 
-    // Constant which stores the translations when rotating counterclockwise, corresponding to the current rotation state of the block, in order of cases and translation that occur first
-    public static final Point[][][] TETROMINO_COUNTERCLOCKWISE_ROTATION_TRANSLATION = new Point[][][]{
+    // Constant which stores the translations {x, y} when rotating counterclockwise, corresponding to the current rotation state of the block, in order of cases and translation that occur first
+    public static final int[][][][] TETROMINO_COUNTERCLOCKWISE_ROTATION_TRANSLATION = new int[][][][]{
             { // I block translations
-                    { new Point(-1, 0), new Point(2, 0), new Point(-1, -2), new Point(2, 1) },
-                    { new Point(2, 0), new Point(-1, 0), new Point(2, -1), new Point(-1, 2) },
-                    { new Point(1, 0), new Point(-2, 0), new Point(1, 2), new Point(-2, -1) },
-                    { new Point(-2, 0), new Point(1, 0), new Point(-2, 1), new Point(1, -2) }
+                    { {-1, 0}, {2, 0}, {-1, -2}, {2, 1} },
+                    { {2, 0}, {-1, 0}, {2, -1}, {-1, 2} },
+                    { {1, 0}, {-2, 0}, {1, 2}, {-2, -1} },
+                    { {-2, 0}, {1, 0}, {-2, 1}, {1, -2} }
             },
             { // Non-I block translations
-                    { new Point(1, 0), new Point(1, -1), new Point(0, 2), new Point(1, 2) },
-                    { new Point(1, 0), new Point(1, 1), new Point(0, -2), new Point(1, -2) },
-                    { new Point(-1, 0), new Point(-1, -1), new Point(0, 2), new Point(-1, 2) },
-                    { new Point(-1, 0), new Point(-1, 1), new Point(0, -2), new Point(-1, -2) }
+                    { {1, 0}, {1, -1}, {0, 2}, {1, 2} },
+                    { {1, 0}, {1, 1}, {0, -2}, {1, -2} },
+                    { {-1, 0}, {-1, -1}, {0, 2}, {-1, 2} },
+                    { {-1, 0}, {-1, 1}, {0, -2}, {-1, -2} }
             }
     };
 
+    // Constants which store, for each block and rotation, the occupied columns of each row of the block as a bit mask (bit 0 being the leftmost occupied column of the block)
+    // Used by the Board to check collisions a whole row at a time instead of square by square
+    public static final long[][][] TETROMINO_ROW_MASKS = new long[7][4][];
+    // Constants which store, for each block and rotation, the offset of the leftmost and topmost occupied square from the top left of the boundary, and the number of occupied columns
+    public static final int[][] TETROMINO_MIN_X = new int[7][4], TETROMINO_MIN_Y = new int[7][4], TETROMINO_SPAN_X = new int[7][4];
+    // Constant which stores, for each block and rotation, the first rotation of the block with the same shape (the S, Z and I blocks have two shapes, and the O block one)
+    // Two placements of a block cover the same squares if their rotations have the same shape and their leftmost and topmost occupied squares are at the same position
+    public static final int[][] TETROMINO_SHAPE_ROTATION = new int[7][4];
+    // Constants which store, for each block and rotation, the offset of the bottommost square of each occupied column (from the leftmost) from the top of the boundary
+    // Used by the Board to find where a block lands from the heights of the columns below it
+    public static final int[][][] TETROMINO_COLUMN_BOTTOM = new int[7][4][];
+
+    // Precomputes the row masks and offsets from the squares of each block
+    static {
+        // Loops through each block and each of its rotations
+        for(int tetromino = 0; tetromino < TETROMINOES.length; tetromino++){
+            for(int rotation = 0; rotation < TETROMINOES[tetromino].length; rotation++){
+                // Finds the bounds of the occupied squares of the block
+                int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+                for(Square square : TETROMINOES[tetromino][rotation]){
+                    minX = Math.min(minX, square.getX());
+                    minY = Math.min(minY, square.getY());
+                    maxX = Math.max(maxX, square.getX());
+                    maxY = Math.max(maxY, square.getY());
+                }
+                // Sets the bit of each square in the mask of the row it's on, relative to the bounds
+                long[] masks = new long[maxY - minY + 1];
+                for(Square square : TETROMINOES[tetromino][rotation]){
+                    masks[square.getY() - minY] |= 1L << (square.getX() - minX);
+                }
+                TETROMINO_ROW_MASKS[tetromino][rotation] = masks;
+                TETROMINO_MIN_X[tetromino][rotation] = minX;
+                TETROMINO_MIN_Y[tetromino][rotation] = minY;
+                TETROMINO_SPAN_X[tetromino][rotation] = maxX - minX + 1;
+                // Finds the bottommost square of each column, as every column in between the leftmost and rightmost has a square
+                int[] bottoms = new int[maxX - minX + 1];
+                Arrays.fill(bottoms, Integer.MIN_VALUE);
+                for(Square square : TETROMINOES[tetromino][rotation]){
+                    bottoms[square.getX() - minX] = Math.max(bottoms[square.getX() - minX], square.getY());
+                }
+                TETROMINO_COLUMN_BOTTOM[tetromino][rotation] = bottoms;
+
+                // Finds the first rotation with the same row masks
+                int shape = 0;
+                while(!Arrays.equals(TETROMINO_ROW_MASKS[tetromino][shape], masks)) shape++;
+                TETROMINO_SHAPE_ROTATION[tetromino][rotation] = shape;
+            }
+        }
+    }
+
     // Total number of available of blocks/tetrominoes
     public static final int TOTAL_NUM_OF_TETROMINOES = 7;
     // Total number of available rotations
@@ -109,14 +159,19 @@ public class Tetrominoes {
     // Stores the x position on the game board
     private int x;
     // Stores the number of the block/tetromino
-    private final int tetrominoNum;
+    private int tetrominoNum;
     // Stores the y position on the game board
     private double y;
 
 
-    // Constructor which sets the tetrominoNum to a random number from 0 to TOTAL_NUM_OF_TETROMINOES, and sets x, y, rotate to 0
-    public Tetrominoes(){
-        this.tetrominoNum = random.nextInt(TOTAL_NUM_OF_TETROMINOES);
+    // Constructor which sets the tetrominoNum to the block specified, and sets x, y, rotate to 0
+    public Tetrominoes(int tetrominoNum){
+        reset(tetrominoNum);
+    }
+
+    // Reuses the object as a new block, setting the tetrominoNum to the block specified, and x, y, rotate to 0
+    public void reset(int tetrominoNum){
+        this.tetrominoNum = tetrominoNum;
         this.x = 0;
         this.y = 0;
         this.rotate = 0;
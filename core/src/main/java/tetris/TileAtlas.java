@@ -0,0 +1,66 @@
+// TileAtlas.java
+// Gordon Lin
+// Class which stores every colour of square in one image, already scaled to the size the squares are drawn at, so squares are copied onto the screen without being scaled each time
+// A few atlases are kept at once, so boards drawn with different sizes of squares (the main board and the boards of the held and next block) each keep their own instead of making a new one every frame
+
+package tetris;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+import java.util.concurrent.atomic.*;
+
+public class TileAtlas {
+    // Constant which stores the number of atlases kept, enough for every size of square drawn at once
+    public static final int SLOTS = 4;
+    // Atlases made so far, each reused as long as squares are drawn at its size on the same screen, and the slot the next new atlas replaces
+    private static final AtomicReferenceArray<TileAtlas> atlases = new AtomicReferenceArray<>(SLOTS);
+    private static final AtomicInteger nextSlot = new AtomicInteger();
+
+    // Image with each colour of square side by side
+    private final BufferedImage image;
+    // Screen the atlas was made for
+    private final GraphicsConfiguration configuration;
+    // Size of each square when drawn, and the size of each square in the image in pixels (larger on screens with a higher DPI)
+    private final int size, tileSize;
+
+    // Constructor which draws each colour of square into the atlas, scaled to the size and the scale of the screen
+    private TileAtlas(GraphicsConfiguration configuration, int size, Image[] squares){
+        this.configuration = configuration;
+        this.size = size;
+
+        // Gets the scale of the screen, so squares have as many pixels as they take up on the screen
+        AffineTransform transform = configuration.getDefaultTransform();
+        tileSize = (int) Math.ceil(size * transform.getScaleX());
+
+        // Creates an image in the format of the screen, so copying from it is as fast as possible
+        image = configuration.createCompatibleImage(tileSize * squares.length, tileSize, Transparency.TRANSLUCENT);
+        Graphics2D g2d = image.createGraphics();
+        // Scales each square once with the best quality, as it's never scaled again
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        for(int colour = 0; colour < squares.length; colour++){
+            g2d.drawImage(squares[colour], colour * tileSize, 0, tileSize, tileSize, null);
+        }
+        g2d.dispose();
+    }
+
+    // Gets the atlas for the screen being drawn on and size of the squares, making a new one only if none was kept for that screen and size
+    public static TileAtlas get(Graphics2D g2d, int size, Image[] squares){
+        GraphicsConfiguration configuration = g2d.getDeviceConfiguration();
+        for(int slot = 0; slot < SLOTS; slot++){
+            TileAtlas atlas = atlases.get(slot);
+            if(atlas != null && atlas.size == size && atlas.configuration == configuration) return atlas;
+        }
+        // Replaces the atlases in turn, so the ones for a screen that's no longer used are replaced first
+        TileAtlas atlas = new TileAtlas(configuration, size, squares);
+        atlases.set(Math.floorMod(nextSlot.getAndIncrement(), SLOTS), atlas);
+        return atlas;
+    }
+
+    // Draws the square of the colour with its top left corner at x, y, copying it from the atlas without scaling
+    public void draw(Graphics2D g2d, int colour, int x, int y){
+        int sourceX = colour * tileSize;
+        g2d.drawImage(image, x, y, x + size, y + size, sourceX, 0, sourceX + tileSize, tileSize, null);
+    }
+}
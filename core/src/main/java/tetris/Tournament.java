@@ -0,0 +1,186 @@
+// Tournament.java
+// Gordon Lin
+// Class which plays many complete games at once without a screen, each game played by an agent, and collects the results of every game
+// Games are split across the tasks of a ForkJoinPool, which steal games from each other so every core stays busy until the last game is done
+// The score, rows cleared, level and blocks placed of each game are recorded into histograms as soon as the game ends, without locking
+// Each game can also be added to a leaderboard, which the games add to from every thread at once without locking either
+
+package tetris;
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Supplier;
+
+public class Tournament {
+    // Interface for what plays a game, which chooses the inputs of each step
+    public interface Agent {
+        // Gets the inputs to play on the next step of the game
+        int nextInputs(GameEngine engine);
+    }
+
+    // Agent which plays each step with the first input of the best way found to play the current block, searching again each step as the block moves
+    public static class SearchAgent implements Agent {
+        // Search used to find the best way to play the block, and the time each search can take in nanoseconds
+        private final LookaheadSearch search;
+        private final long budgetNanos;
+
+        // Constructor which takes in the search and the time budget of each search
+        public SearchAgent(LookaheadSearch search, long budgetNanos){
+            this.search = search;
+            this.budgetNanos = budgetNanos;
+        }
+
+        public int nextInputs(GameEngine engine){
+            int[] inputs = search.search(engine, budgetNanos);
+            // Hard drops if there's nowhere better to go
+            return inputs.length == 0 ? GameEngine.INPUT_HARD_DROP : inputs[0];
+        }
+    }
+
+    // Constant which stores the most steps a game is played for each block it can place, so an agent that never places its block can't play forever
+    public static final int MAX_STEPS_PER_BLOCK = 1000;
+    // Constant which stores the number of games a task plays itself instead of splitting them with other tasks
+    private static final int GAMES_PER_TASK = 1;
+
+    // Pool the games are played on
+    private final ForkJoinPool pool;
+    // Creates a new agent for each game, so agents can keep what they need for one game
+    private final Supplier<Agent> agents;
+    // Number of blocks placed after which a game is stopped, and the seed each game's seed is made from
+    private final int maxBlocks;
+    private final long seed;
+
+    // Histograms of the final score, rows cleared, level reached and blocks placed in each game
+    private final Histogram scores, rowsCleared, levels, blocksPlaced;
+    // Number of games that ended with a game over, rather than reaching the most blocks
+    private final LongAdder gamesOver;
+    // Leaderboard each game is added to when it ends, or null to add them to none
+    private volatile Leaderboard leaderboard;
+
+    // Constructor which plays on the common ForkJoinPool
+    public Tournament(Supplier<Agent> agents, int maxBlocks, long seed){
+        this(ForkJoinPool.commonPool(), agents, maxBlocks, seed);
+    }
+
+    // Constructor which takes in the pool to play on, what creates the agent of each game, the most blocks placed in a game, and the seed of the tournament
+    public Tournament(ForkJoinPool pool, Supplier<Agent> agents, int maxBlocks, long seed){
+        this.pool = pool;
+        this.agents = agents;
+        this.maxBlocks = maxBlocks;
+        this.seed = seed;
+
+        scores = new Histogram();
+        rowsCleared = new Histogram();
+        levels = new Histogram();
+        blocksPlaced = new Histogram();
+        gamesOver = new LongAdder();
+    }
+
+    // Getter methods for the histograms of the results of every game played so far, which can be read while games are still being played
+    public Histogram getScores() { return scores; }
+    public Histogram getRowsCleared() { return rowsCleared; }
+    public Histogram getLevels() { return levels; }
+    public Histogram getBlocksPlaced() { return blocksPlaced; }
+    public long getGamesOver() { return gamesOver.sum(); }
+
+    // Sets the leaderboard each game is added to when it ends, or null to add them to none
+    public void setLeaderboard(Leaderboard leaderboard){
+        this.leaderboard = leaderboard;
+    }
+
+    // Plays the number of games, and returns once every game is done
+    public void run(int numGames){
+        pool.invoke(new Games(0, numGames));
+    }
+
+    // Task which plays the games from the first game up to the last game (not included), splitting them in half between two tasks until there are few enough to play
+    private class Games extends RecursiveAction {
+        // Version of the task, as every ForkJoinTask is serializable (tasks are never serialized)
+        private static final long serialVersionUID = 1L;
+
+        private final int first, last;
+
+        Games(int first, int last){
+            this.first = first;
+            this.last = last;
+        }
+
+        protected void compute(){
+            if(last - first <= GAMES_PER_TASK){
+                for(int game = first; game < last; game++) play(game);
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            invokeAll(new Games(first, middle), new Games(middle, last));
+        }
+    }
+
+    // Plays one game until it's over or the most blocks have been placed, and records its results
+    private void play(int game){
+        // Each game gets its own seed from the seed of the tournament, so the same tournament always plays the same games
+        long gameSeed = seed * 31 + game;
+        GameEngine engine = new GameEngine(gameSeed);
+        Agent agent = agents.get();
+        engine.start();
+
+        // The score is reset when the game is over, so the rows cleared and level are counted from the result of each step
+        int blocks = 0, rows = 0, level = 0;
+        long maxSteps = (long) maxBlocks * MAX_STEPS_PER_BLOCK, step;
+        for(step = 0; step < maxSteps && blocks < maxBlocks && !engine.isGameOver(); step++){
+            int result = engine.step(agent.nextInputs(engine));
+            if((result & GameEngine.RESULT_LOCKED) != 0) blocks++;
+            if((result & GameEngine.RESULT_LEVEL_UP) != 0) level++;
+            rows += GameEngine.rowsCleared(result);
+        }
+
+        int score = engine.isGameOver() ? engine.getFinalScore() : engine.getScore().getScore();
+        if(engine.isGameOver()) gamesOver.increment();
+        scores.record(score);
+        rowsCleared.record(rows);
+        levels.record(level);
+        blocksPlaced.record(blocks);
+
+        // The game is played at the base tick rate, so its duration is the time its steps take at that rate
+        Leaderboard leaderboard = this.leaderboard;
+        if(leaderboard != null) leaderboard.add(gameSeed, score, rows, level, (int) Math.min(step * 1000 / GameEngine.BASE_TICK_RATE, Integer.MAX_VALUE));
+    }
+
+    // Gets a summary of the results of every game played so far
+    public String toString(){
+        return "Games over: " + getGamesOver() + " of " + scores.getCount() + "\n"
+                + "Score: " + scores + "\n"
+                + "Rows cleared: " + rowsCleared + "\n"
+                + "Level: " + levels + "\n"
+                + "Blocks placed: " + blocksPlaced;
+    }
+
+    // Main method which plays a tournament of the search agent, taking in the number of games, most blocks per game, search depth, beam width and time budget of each search in microseconds
+    // Every game is added to the leaderboard log set with the tetris.leaderboard property, if it's set
+    public static void main(String[] args) throws IOException {
+        int numGames = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int maxBlocks = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int beamWidth = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        long budgetNanos = (args.length > 4 ? Long.parseLong(args[4]) : 1000) * 1000;
+
+        // The searches of each game run on the same pool as the games, so the games and searches share the cores
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        Tournament tournament = new Tournament(pool, () -> new SearchAgent(new LookaheadSearch(pool, depth, beamWidth), budgetNanos), maxBlocks, 0);
+        String leaderboardFile = System.getProperty("tetris.leaderboard");
+
+        // The leaderboard is closed even if the tournament fails, so every game added to it is written to the disk
+        try(Leaderboard leaderboard = leaderboardFile == null ? null : new Leaderboard(new File(leaderboardFile))){
+            tournament.setLeaderboard(leaderboard);
+
+            long start = System.nanoTime();
+            tournament.run(numGames);
+            System.out.println(tournament);
+            if(leaderboard != null){
+                System.out.println("Best games of " + leaderboardFile + ":");
+                for(Leaderboard.Entry entry : leaderboard.getBest()) System.out.println(entry);
+            }
+            System.out.printf("Played %d games in %.1f s on %d threads%n", numGames, (System.nanoTime() - start) / 1e9, pool.getParallelism());
+        }
+    }
+}
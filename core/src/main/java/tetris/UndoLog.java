@@ -0,0 +1,82 @@
+// UndoLog.java
+// Gordon Lin
+// Class which stores what's needed to undo each block played on a board (and a game), so a search can play a block, look at the board, and take the block back without copying the board
+// Each block played pushes one record of only what it changed, which is popped in the reverse order it was pushed to undo it, so the log is a stack of ints and bytes
+// The arrays only grow until they fit the deepest search, so nothing is created once a search has warmed up, and each thread searching needs its own log
+
+package tetris;
+
+import java.util.Arrays;
+
+public class UndoLog {
+    // Values and bytes pushed, and the number of each pushed
+    private int[] ints;
+    private byte[] bytes;
+    private int numInts, numBytes;
+    // Number of records pushed, which is the number of blocks that can be undone
+    private int depth;
+
+    // Constructor which creates an empty log
+    public UndoLog(){
+        ints = new int[64];
+        bytes = new byte[64];
+    }
+
+    // Getter methods for the number of blocks that can be undone, and if there are none
+    public int getDepth() { return depth; }
+    public boolean isEmpty() { return depth == 0; }
+
+    // Forgets every record, without undoing them
+    public void clear(){
+        numInts = 0;
+        numBytes = 0;
+        depth = 0;
+    }
+
+    // Starts a record, after the values it has are pushed
+    void pushRecord(){
+        depth++;
+    }
+
+    // Ends a record, before the values it has are popped
+    void popRecord(){
+        if(depth == 0) throw new IllegalStateException("Nothing to undo");
+        depth--;
+    }
+
+    // Pushes a value
+    void pushInt(int value){
+        if(numInts == ints.length) ints = Arrays.copyOf(ints, ints.length * 2);
+        ints[numInts++] = value;
+    }
+
+    // Pops the last value pushed
+    int popInt(){
+        return ints[--numInts];
+    }
+
+    // Pushes a long as two values
+    void pushLong(long value){
+        pushInt((int) value);
+        pushInt((int) (value >>> Integer.SIZE));
+    }
+
+    // Pops a long pushed by pushLong
+    long popLong(){
+        long high = popInt();
+        return high << Integer.SIZE | popInt() & 0xFFFFFFFFL;
+    }
+
+    // Pushes length bytes of the array from the index from
+    void pushBytes(byte[] array, int from, int length){
+        if(numBytes + length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, numBytes + length));
+        System.arraycopy(array, from, bytes, numBytes, length);
+        numBytes += length;
+    }
+
+    // Pops the last length bytes pushed into the array at the index from
+    void popBytes(byte[] array, int from, int length){
+        numBytes -= length;
+        System.arraycopy(bytes, numBytes, array, from, length);
+    }
+}
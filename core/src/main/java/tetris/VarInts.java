@@ -0,0 +1,107 @@
+// VarInts.java
+// Gordon Lin
+// Class which writes and reads integers in as few bytes as they need, 7 bits a byte with the top bit set on every byte but the last
+// Signed integers are zigzagged first (0, -1, 1, -2, ... become 0, 1, 2, 3, ...), so small negative numbers also take a single byte
+// Can write to and read from streams, or straight to and from buffers for frames that are sent without a stream around them
+
+package tetris;
+
+import java.io.*;
+import java.nio.*;
+
+public class VarInts {
+    // Constants for the bits of each byte that store the number, and the bit set on every byte but the last
+    public static final int PAYLOAD_BITS = 7, PAYLOAD_MASK = 0x7F, CONTINUE_BIT = 0x80;
+
+    // Writes an integer, taking 1 byte from 0 to 127, and up to 5 bytes (negative integers always take 5)
+    public static void writeInt(DataOutput out, int value) throws IOException {
+        while((value & ~PAYLOAD_MASK) != 0){
+            out.writeByte((value & PAYLOAD_MASK) | CONTINUE_BIT);
+            value >>>= PAYLOAD_BITS;
+        }
+        out.writeByte(value);
+    }
+
+    // Reads an integer written by writeInt
+    public static int readInt(DataInput in) throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < Integer.SIZE; shift += PAYLOAD_BITS){
+            int b = in.readUnsignedByte();
+            value |= (b & PAYLOAD_MASK) << shift;
+            if((b & CONTINUE_BIT) == 0) return value;
+        }
+        throw new IOException("Variable length integer is too long");
+    }
+
+    // Writes a long the same way, taking up to 10 bytes
+    public static void writeLong(DataOutput out, long value) throws IOException {
+        while((value & ~PAYLOAD_MASK) != 0){
+            out.writeByte((int) (value & PAYLOAD_MASK) | CONTINUE_BIT);
+            value >>>= PAYLOAD_BITS;
+        }
+        out.writeByte((int) value);
+    }
+
+    // Reads a long written by writeLong
+    public static long readLong(DataInput in) throws IOException {
+        long value = 0;
+        for(int shift = 0; shift < Long.SIZE; shift += PAYLOAD_BITS){
+            int b = in.readUnsignedByte();
+            value |= (long) (b & PAYLOAD_MASK) << shift;
+            if((b & CONTINUE_BIT) == 0) return value;
+        }
+        throw new IOException("Variable length long is too long");
+    }
+
+    // Writes a signed integer, zigzagged so numbers close to 0 take the fewest bytes
+    public static void writeSignedInt(DataOutput out, int value) throws IOException {
+        writeInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    // Reads a signed integer written by writeSignedInt
+    public static int readSignedInt(DataInput in) throws IOException {
+        int value = readInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Gets the number of bytes an integer takes when it's written
+    public static int size(int value){
+        int size = 1;
+        while((value & ~PAYLOAD_MASK) != 0){
+            size++;
+            value >>>= PAYLOAD_BITS;
+        }
+        return size;
+    }
+
+    // Writes an integer into a buffer the same way as writeInt
+    public static void putInt(ByteBuffer buffer, int value){
+        while((value & ~PAYLOAD_MASK) != 0){
+            buffer.put((byte) ((value & PAYLOAD_MASK) | CONTINUE_BIT));
+            value >>>= PAYLOAD_BITS;
+        }
+        buffer.put((byte) value);
+    }
+
+    // Reads an integer written by putInt (or writeInt) from a buffer
+    public static int getInt(ByteBuffer buffer){
+        int value = 0;
+        for(int shift = 0; shift < Integer.SIZE; shift += PAYLOAD_BITS){
+            int b = buffer.get() & 0xFF;
+            value |= (b & PAYLOAD_MASK) << shift;
+            if((b & CONTINUE_BIT) == 0) return value;
+        }
+        throw new IllegalArgumentException("Variable length integer is too long");
+    }
+
+    // Writes a signed integer into a buffer the same way as writeSignedInt
+    public static void putSignedInt(ByteBuffer buffer, int value){
+        putInt(buffer, (value << 1) ^ (value >> 31));
+    }
+
+    // Reads a signed integer written by putSignedInt (or writeSignedInt) from a buffer
+    public static int getSignedInt(ByteBuffer buffer){
+        int value = getInt(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
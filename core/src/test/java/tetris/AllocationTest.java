@@ -0,0 +1,107 @@
+// AllocationTest.java
+// Gordon Lin
+// Tests that once the game has warmed up, stepping it and drawing the board and score creates nothing, so the garbage collector never pauses the game while it's played
+// Bytes allocated are counted for the thread playing the game by the JVM, before and after a long stretch of steps
+
+package tetris;
+
+import org.junit.jupiter.api.*;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+class AllocationTest {
+    // Constants which store the number of steps played to warm up, the number of steps each measured stretch is, and the most stretches measured
+    private static final int WARM_UP_STEPS = 400_000, MEASURED_STEPS = 200_000, MAX_STRETCHES = 5;
+    // Constant which stores the number of steps between each frame drawn (a frame every 4 steps)
+    private static final int STEPS_PER_FRAME = 4;
+    // Constant which stores the seed the game and its inputs are made from
+    private static final long SEED = 42;
+
+    // Threads of the JVM, which count the bytes allocated by each thread
+    private static com.sun.management.ThreadMXBean threads;
+    // Inputs played on each step, made before anything is measured, repeated as the game goes on
+    private static int[] inputs;
+
+    @BeforeAll
+    static void setUp(){
+        // Only JVMs that can count the bytes allocated by a thread can run the tests
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean, "JVM can't count bytes allocated");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "JVM can't count bytes allocated");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // Moves left and right, soft drops, rotates, holds and hard drops at random, so every path of the engine is played
+        SplittableRandom random = new SplittableRandom(SEED);
+        inputs = new int[1 << 16];
+        for(int i = 0; i < inputs.length; i++){
+            int input = 0, move = random.nextInt(10);
+            if(move < 3) input |= GameEngine.INPUT_LEFT;
+            else if(move < 6) input |= GameEngine.INPUT_RIGHT;
+            else if(move == 6) input |= GameEngine.INPUT_SOFT_DROP;
+            if(random.nextInt(20) == 0) input |= GameEngine.INPUT_HARD_DROP;
+            if(random.nextInt(8) == 0) input |= GameEngine.INPUT_ROTATE_CLOCKWISE;
+            if(random.nextInt(16) == 0) input |= GameEngine.INPUT_ROTATE_COUNTERCLOCKWISE;
+            if(random.nextInt(30) == 0) input |= GameEngine.INPUT_HOLD;
+            inputs[i] = input;
+        }
+    }
+
+    @Test
+    void stepAllocatesNothing(){
+        GameEngine engine = new GameEngine(SEED);
+        engine.start(SEED);
+        assertEquals(0, measure(engine, null, null, null));
+    }
+
+    @Test
+    void stepAndDrawAllocatesNothing(){
+        // Squares are drawn from their images, so they're loaded before anything is measured
+        Square.loadImages().join();
+        Board board = new Board(GameEngine.BOARD_WIDTH * 25, GameEngine.BOARD_HEIGHT * 25, 25, GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT);
+        Score score = new Score(25, 25, new Font(Font.MONOSPACED, Font.PLAIN, 12), 12f);
+        GameEngine engine = new GameEngine(board, score, new PieceGenerator(SEED, false, GameEngine.DEFAULT_PREVIEW_DEPTH));
+        engine.start(SEED);
+
+        BufferedImage image = new BufferedImage(GameEngine.BOARD_WIDTH * 50, GameEngine.BOARD_HEIGHT * 50, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        try{
+            assertEquals(0, measure(engine, board, score, g2d));
+        } finally{
+            g2d.dispose();
+        }
+    }
+
+    // Plays the game until it's warmed up, then gets the fewest bytes allocated by any stretch of steps, stopping at the first stretch that allocates nothing
+    // A stretch can allocate while the JIT is still compiling what it plays, so a few are measured before the game is said to allocate
+    // Draws the board with the current block and its ghost, and the score, every few steps if there's something to draw on
+    private static long measure(GameEngine engine, Board board, Score score, Graphics2D g2d){
+        long thread = Thread.currentThread().getId();
+        play(engine, board, score, g2d, WARM_UP_STEPS);
+        long fewest = Long.MAX_VALUE;
+        for(int stretch = 0; stretch < MAX_STRETCHES && fewest > 0; stretch++){
+            long before = threads.getThreadAllocatedBytes(thread);
+            play(engine, board, score, g2d, MEASURED_STEPS);
+            fewest = Math.min(fewest, threads.getThreadAllocatedBytes(thread) - before);
+        }
+        return fewest;
+    }
+
+    // Plays the number of steps, starting a new game whenever one is over
+    private static void play(GameEngine engine, Board board, Score score, Graphics2D g2d, int steps){
+        for(int step = 0; step < steps; step++){
+            if((engine.step(inputs[step & (inputs.length - 1)]) & GameEngine.RESULT_GAME_OVER) != 0) engine.start();
+            if(g2d != null && step % STEPS_PER_FRAME == 0){
+                board.drawSquares(g2d, null);
+                board.drawGhost(g2d, engine.getCurrentBlock(), engine.getLandingY(), null);
+                board.drawBlock(g2d, engine.getCurrentBlock(), 0, 0, null);
+                score.draw(g2d);
+            }
+        }
+    }
+}
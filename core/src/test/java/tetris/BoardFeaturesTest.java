@@ -0,0 +1,97 @@
+// BoardFeaturesTest.java
+// Gordon Lin
+// Tests that the features the board keeps up to date (heights, holes, wells, transitions, bumpiness) are the same as counting them again from every square
+// Checked after every way the board changes: adding blocks, clearing rows, making and unmaking blocks, adding garbage, loading, copying and resetting
+
+package tetris;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+import java.io.*;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardFeaturesTest {
+    // Constant which stores the number of random changes made to each board
+    private static final int CHANGES = 20_000;
+    // Constant which stores the seed the changes are made from
+    private static final long SEED = 10;
+
+    // Boards of the default size, a narrow board that clears rows often, and the widest board, where a full row has every bit of the long set
+    @ParameterizedTest
+    @CsvSource({"10, 24", "4, 12", "64, 40"})
+    void featuresMatchCountingAgain(int width, int height) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED + width);
+        Board board = new Board(width, height), other = new Board(width, height);
+        Boards.assertCounted(board);
+        UndoLog log = new UndoLog();
+        int[] placement = new int[4];
+        int rowsCleared = 0, garbageOverflows = 0;
+
+        for(int change = 0; change < CHANGES; change++){
+            int kind = random.nextInt(10);
+            if(kind < 6){
+                if(!Boards.randomPlacement(board, random, placement)){
+                    board.reset();
+                    Boards.assertCounted(board);
+                    continue;
+                }
+                int tetrominoNum = placement[0], rotate = placement[1], x = placement[2], y = placement[3];
+                if(kind < 2){
+                    // Adds the block then clears only the rows it covers, as the game does, checking the full rows are counted before they're cleared
+                    board.addBlock(tetrominoNum, rotate, x, y);
+                    Boards.assertCounted(board);
+                    int top = y + Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate];
+                    rowsCleared += board.clearRows(top, top + Tetrominoes.TETROMINO_ROW_MASKS[tetrominoNum][rotate].length - 1);
+                }
+                else if(kind < 4){
+                    board.addBlock(tetrominoNum, rotate, x, y);
+                    rowsCleared += board.clearRows();
+                }
+                else{
+                    // Makes the block, and sometimes unmakes it, which puts back the features without counting them
+                    rowsCleared += board.make(tetrominoNum, rotate, x, y, log);
+                    Boards.assertCounted(board);
+                    if(random.nextBoolean()) board.unmake(log);
+                    else log.clear();
+                }
+            }
+            // Adds garbage, which can push squares off the top of the board
+            else if(kind < 8){
+                if(!board.addGarbage(1 + random.nextInt(4), random.nextInt(width))) garbageOverflows++;
+            }
+            // Saves and loads the board onto another board, and copies it back
+            else if(kind == 8){
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                board.save(new DataOutputStream(bytes));
+                other.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+                Boards.assertCounted(other);
+                Boards.assertSameBoard(board, other);
+                board.copyFrom(other);
+            }
+            else{
+                other.copyFrom(board);
+                Boards.assertCounted(other);
+            }
+            Boards.assertCounted(board);
+        }
+        assertTrue(rowsCleared > 0, "no rows were cleared");
+        assertTrue(garbageOverflows > 0, "garbage never pushed squares off the top");
+    }
+
+    @Test
+    void emptyBoardHasNoFeatures(){
+        Board board = new Board(GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT);
+        Board.Features features = board.getFeatures();
+        assertEquals(0, features.getAggregateHeight());
+        assertEquals(0, features.getHoles());
+        assertEquals(0, features.getRowTransitions());
+        assertEquals(0, features.getBumpiness());
+        // The walls are as high as the board, but every column is only as deep as the lower of its sides, which is an empty column beside it
+        assertEquals(0, features.getWellDepths());
+        Boards.assertCounted(board);
+    }
+}
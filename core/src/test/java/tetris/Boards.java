@@ -0,0 +1,161 @@
+// Boards.java
+// Gordon Lin
+// Class which helps the tests of the board, by dropping random blocks onto boards, and reading the squares and features of a board into arrays so two boards can be compared
+// The features are also counted again from every square of the board, without anything the board keeps up to date, so what the board keeps can be checked against them
+
+package tetris;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class Boards {
+    // Constant which stores the number of random blocks and columns tried before a board is said to have no room for a block
+    private static final int TRIES = 20;
+
+    // Only has static methods
+    private Boards(){}
+
+    // Finds a random block and rotation dropped from the top of the board in a random column, and stores its tetrominoNum, rotation, x and y (of the top left of its boundary) into placement
+    // Returns false if none of the blocks tried fit at the top of the board
+    static boolean randomPlacement(Board board, SplittableRandom random, int[] placement){
+        for(int i = 0; i < TRIES; i++){
+            int tetrominoNum = random.nextInt(Tetrominoes.TOTAL_NUM_OF_TETROMINOES), rotate = random.nextInt(Tetrominoes.NUM_ROTATIONS);
+            int x = random.nextInt(board.getWidth() - Tetrominoes.TETROMINO_SPAN_X[tetrominoNum][rotate] + 1) - Tetrominoes.TETROMINO_MIN_X[tetrominoNum][rotate];
+            int y = -Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate];
+            if(board.isCollide(tetrominoNum, rotate, x, y)) continue;
+            placement[0] = tetrominoNum;
+            placement[1] = rotate;
+            placement[2] = x;
+            placement[3] = y + board.drop(tetrominoNum, rotate, x, y);
+            return true;
+        }
+        return false;
+    }
+
+    // Finds the lowest of a few random placements, the same way as randomPlacement, so the rows fill and clear as they would when played well
+    static boolean lowPlacement(Board board, SplittableRandom random, int[] placement){
+        int lowest = Integer.MIN_VALUE;
+        int[] tried = new int[4];
+        for(int i = 0; i < TRIES; i++){
+            if(!randomPlacement(board, random, tried)) break;
+            int bottom = tried[3] + Tetrominoes.TETROMINO_MIN_Y[tried[0]][tried[1]] + Tetrominoes.TETROMINO_ROW_MASKS[tried[0]][tried[1]].length;
+            if(bottom <= lowest) continue;
+            lowest = bottom;
+            System.arraycopy(tried, 0, placement, 0, tried.length);
+        }
+        return lowest != Integer.MIN_VALUE;
+    }
+
+    // Drops the number of random blocks onto the board, clearing the rows they fill, until a block doesn't fit
+    static void fill(Board board, SplittableRandom random, int numBlocks){
+        int[] placement = new int[4];
+        for(int i = 0; i < numBlocks && randomPlacement(board, random, placement); i++){
+            board.addBlock(placement[0], placement[1], placement[2], placement[3]);
+            board.clearRows();
+        }
+    }
+
+    // Checks if the squares, rows and features of the two boards are the same
+    static void assertSameBoard(Board expected, Board actual){
+        assertArrayEquals(squares(expected), squares(actual), "squares");
+        assertArrayEquals(rows(expected), rows(actual), "rows");
+        assertArrayEquals(features(expected), features(actual), "features");
+    }
+
+    // Checks if the rows and features the board keeps up to date are the same as counting them again from its squares
+    static void assertCounted(Board board){
+        long[] rows = new long[board.getHeight()];
+        for(int y = 0; y < board.getHeight(); y++){
+            for(int x = 0; x < board.getWidth(); x++) if(board.getSquare(x, y) != Board.EMPTY) rows[y] |= 1L << x;
+        }
+        assertArrayEquals(rows, rows(board), "rows");
+        assertArrayEquals(count(board), features(board), "features");
+    }
+
+    // Gets the colour of every square of the board, row by row
+    static byte[] squares(Board board){
+        byte[] squares = new byte[board.getWidth() * board.getHeight()];
+        for(int y = 0; y < board.getHeight(); y++){
+            for(int x = 0; x < board.getWidth(); x++) squares[y * board.getWidth() + x] = (byte) board.getSquare(x, y);
+        }
+        return squares;
+    }
+
+    // Gets every row of the board
+    static long[] rows(Board board){
+        long[] rows = new long[board.getHeight()];
+        for(int y = 0; y < board.getHeight(); y++) rows[y] = board.getRow(y);
+        return rows;
+    }
+
+    // Gets the features the board keeps: the height, holes and well depth of each column, the transitions of each row, then the totals
+    static int[] features(Board board){
+        Board.Features features = board.getFeatures();
+        int width = board.getWidth(), height = board.getHeight();
+        int[] values = new int[width * 3 + height + 6];
+        int i = 0;
+        for(int x = 0; x < width; x++){
+            values[i++] = features.getColumnHeight(x);
+            values[i++] = features.getColumnHoles(x);
+            values[i++] = features.getWellDepth(x);
+        }
+        for(int y = 0; y < height; y++) values[i++] = features.getRowTransitions(y);
+        values[i++] = features.getAggregateHeight();
+        values[i++] = features.getMaxHeight();
+        values[i++] = features.getHoles();
+        values[i++] = features.getWellDepths();
+        values[i++] = features.getRowTransitions();
+        values[i] = features.getBumpiness();
+        return values;
+    }
+
+    // Counts the features of the board from its squares, in the same order as features
+    static int[] count(Board board){
+        int width = board.getWidth(), height = board.getHeight();
+        int[] heights = new int[width], holes = new int[width];
+        for(int x = 0; x < width; x++){
+            // The height is from the bottom to the topmost square, and every empty square below it is a hole
+            for(int y = height - 1; y >= 0; y--){
+                if(board.getSquare(x, y) == Board.EMPTY) holes[x]++;
+                else heights[x] = height - y;
+            }
+            holes[x] -= height - heights[x];
+        }
+
+        int[] values = new int[width * 3 + height + 6];
+        int i = 0, aggregateHeight = 0, maxHeight = 0, totalHoles = 0, wellDepths = 0, totalTransitions = 0, bumpiness = 0;
+        for(int x = 0; x < width; x++){
+            int leftHeight = x == 0 ? height : heights[x - 1], rightHeight = x == width - 1 ? height : heights[x + 1];
+            int wellDepth = Math.max(0, Math.min(leftHeight, rightHeight) - heights[x]);
+            values[i++] = heights[x];
+            values[i++] = holes[x];
+            values[i++] = wellDepth;
+            aggregateHeight += heights[x];
+            maxHeight = Math.max(maxHeight, heights[x]);
+            totalHoles += holes[x];
+            wellDepths += wellDepth;
+            if(x < width - 1) bumpiness += Math.abs(heights[x] - heights[x + 1]);
+        }
+        for(int y = 0; y < height; y++){
+            // Counts the changes along the row between the walls, which are occupied, or none for an empty row
+            int transitions = 0;
+            boolean empty = true, last = true;
+            for(int x = 0; x <= width; x++){
+                boolean occupied = x == width || board.getSquare(x, y) != Board.EMPTY;
+                if(x < width && occupied) empty = false;
+                if(occupied != last) transitions++;
+                last = occupied;
+            }
+            values[i++] = empty ? 0 : transitions;
+            totalTransitions += empty ? 0 : transitions;
+        }
+        values[i++] = aggregateHeight;
+        values[i++] = maxHeight;
+        values[i++] = totalHoles;
+        values[i++] = wellDepths;
+        values[i++] = totalTransitions;
+        values[i] = bumpiness;
+        return values;
+    }
+}
@@ -0,0 +1,179 @@
+// LeaderboardTest.java
+// Gordon Lin
+// Tests that the best games and the best game of each day are the same as sorting every game added, both while the log is open and once it's opened again
+// Also tests games added by many threads across segments, records that were claimed but never written, and files that aren't leaderboard logs
+
+package tetris;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+    // Constants which store the number of best games kept, and the number of games added
+    private static final int TOP = 10, GAMES = 5000;
+    // Constant which stores the time the games start ending at, and the time zone of their days
+    private static final long START = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+    // Constant which stores the seed the games are made from
+    private static final long SEED = 25;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void bestGamesMatchSortingEveryGame() throws IOException {
+        File file = directory.resolve("games.log").toFile();
+        List<Leaderboard.Entry> games = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(SEED);
+        try(Leaderboard leaderboard = new Leaderboard(file, TOP, ZONE)){
+            for(int i = 0; i < GAMES; i++){
+                // Scores are from a small range, so many games have the same score and are ordered by when they were added
+                long endTime = START + random.nextLong(Duration.ofDays(7).toMillis());
+                int score = random.nextInt(500), rowsCleared = random.nextInt(100), level = random.nextInt(10), duration = random.nextInt(1_000_000);
+                long seed = random.nextLong();
+                assertEquals(i, leaderboard.add(endTime, seed, score, rowsCleared, level, duration));
+                games.add(new Leaderboard.Entry(i, seed, endTime, score, rowsCleared, level, duration));
+            }
+            assertMatches(games, leaderboard);
+        }
+        // Opening the log again finds the same games from the records alone
+        try(Leaderboard leaderboard = new Leaderboard(file, TOP, ZONE)){
+            assertEquals(GAMES, leaderboard.size());
+            assertMatches(games, leaderboard);
+        }
+    }
+
+    @Test
+    void gamesAddedAtOnceAcrossSegmentsAreKept() throws Exception {
+        File file = directory.resolve("tournament.log").toFile();
+        int threads = 8, perThread = Leaderboard.SEGMENT_RECORDS * 3 / threads + 1;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try(Leaderboard leaderboard = new Leaderboard(file, TOP, ZONE)){
+            List<Future<?>> tasks = new ArrayList<>();
+            for(int t = 0; t < threads; t++){
+                long seed = SEED + t;
+                tasks.add(pool.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    for(int i = 0; i < perThread; i++) leaderboard.add(START + random.nextLong(Duration.ofDays(3).toMillis()), seed, random.nextInt(1_000_000), 0, 0, 0);
+                }));
+            }
+            for(Future<?> task : tasks) task.get();
+        } finally{
+            pool.shutdown();
+        }
+
+        // Every record is read back from the file once it's closed, across more than one segment
+        int total = threads * perThread;
+        assertTrue(total > Leaderboard.SEGMENT_RECORDS * 2);
+        List<Leaderboard.Entry> games = new ArrayList<>(total);
+        try(Leaderboard leaderboard = new Leaderboard(file, TOP, ZONE)){
+            assertEquals(total, leaderboard.size());
+            for(int i = 0; i < total; i++){
+                int index = i;
+                Leaderboard.Entry entry = leaderboard.get(index);
+                assertNotNull(entry, () -> "record " + index + " wasn't written");
+                games.add(entry);
+            }
+            assertMatches(games, leaderboard);
+        }
+    }
+
+    @Test
+    void recordsClaimedButNeverWrittenAreSkipped() throws IOException {
+        File file = directory.resolve("closed.log").toFile();
+        List<Leaderboard.Entry> games = new ArrayList<>();
+        try(Leaderboard leaderboard = new Leaderboard(file, TOP, ZONE)){
+            for(int i = 0; i < 20; i++){
+                leaderboard.add(START + i, i, 100 + i, 0, 0, 0);
+                games.add(leaderboard.get(i));
+            }
+        }
+        // Zeroes the time the two last games (the best games) and a game in the middle ended, as if the game was closed while they were being added
+        int[] unwritten = {19, 18, 5};
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+            for(int index : unwritten){
+                raf.seek(Leaderboard.HEADER_BYTES + (long) index * Leaderboard.RECORD_BYTES);
+                raf.writeLong(0);
+            }
+        }
+        for(int index : unwritten) games.remove(index);
+        try(Leaderboard leaderboard = new Leaderboard(file, TOP, ZONE)){
+            // The size ends at the last record written, and the records in the middle are only skipped
+            assertEquals(18, leaderboard.size());
+            assertNull(leaderboard.get(5));
+            assertMatches(games, leaderboard);
+            // The next game is added after the last record that was written
+            assertEquals(18, leaderboard.add(START + 100, 0, 1, 0, 0, 0));
+        }
+    }
+
+    @Test
+    void rejectsFilesThatArentLogs() throws IOException {
+        Path notLog = directory.resolve("not.log");
+        Files.write(notLog, new byte[Leaderboard.HEADER_BYTES]);
+        assertThrows(IOException.class, () -> new Leaderboard(notLog.toFile()));
+
+        Path shortLog = directory.resolve("short.log");
+        Files.write(shortLog, new byte[]{0x54, 0x4C});
+        assertThrows(IOException.class, () -> new Leaderboard(shortLog.toFile()));
+
+        // A log of another version is rejected instead of being read with the wrong layout
+        File file = directory.resolve("version.log").toFile();
+        new Leaderboard(file).close();
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+            raf.seek(4);
+            raf.writeInt(Leaderboard.VERSION + 1);
+        }
+        assertThrows(IOException.class, () -> new Leaderboard(file));
+    }
+
+    @Test
+    void closingTwiceDoesNothing() throws IOException {
+        Leaderboard leaderboard = new Leaderboard(directory.resolve("twice.log").toFile());
+        leaderboard.add(START, 0, 1, 0, 0, 0);
+        leaderboard.close();
+        leaderboard.close();
+    }
+
+    // Checks the best games, and the number and best game of each day, are the same as sorting every game, and every game can be read back
+    private static void assertMatches(List<Leaderboard.Entry> games, Leaderboard leaderboard){
+        // Higher scores first, then the game added first
+        Comparator<Leaderboard.Entry> order = Comparator.comparingInt(Leaderboard.Entry::getScore).reversed().thenComparingInt(Leaderboard.Entry::getIndex);
+        List<Leaderboard.Entry> sorted = new ArrayList<>(games);
+        sorted.sort(order);
+        assertEquals(indexes(sorted.subList(0, Math.min(TOP, sorted.size()))), indexes(leaderboard.getBest()));
+
+        TreeMap<LocalDate, List<Leaderboard.Entry>> days = new TreeMap<>();
+        for(Leaderboard.Entry game : games) days.computeIfAbsent(Instant.ofEpochMilli(game.getEndTime()).atZone(ZONE).toLocalDate(), date -> new ArrayList<>()).add(game);
+        List<Leaderboard.Day> found = leaderboard.getDays();
+        assertEquals(new ArrayList<>(days.keySet()), found.stream().map(Leaderboard.Day::getDate).toList());
+        for(Leaderboard.Day day : found){
+            List<Leaderboard.Entry> dayGames = days.get(day.getDate());
+            assertEquals(dayGames.size(), day.getGames());
+            assertEquals(Collections.min(dayGames, order).getIndex(), leaderboard.getBest(day.getDate()).getIndex());
+        }
+
+        for(Leaderboard.Entry game : games){
+            Leaderboard.Entry entry = leaderboard.get(game.getIndex());
+            assertEquals(game.getSeed(), entry.getSeed());
+            assertEquals(game.getEndTime(), entry.getEndTime());
+            assertEquals(game.getScore(), entry.getScore());
+            assertEquals(game.getRowsCleared(), entry.getRowsCleared());
+            assertEquals(game.getLevel(), entry.getLevel());
+            assertEquals(game.getDuration(), entry.getDuration());
+        }
+    }
+
+    // Gets the index of each entry
+    private static List<Integer> indexes(List<Leaderboard.Entry> entries){
+        return entries.stream().map(Leaderboard.Entry::getIndex).toList();
+    }
+}
@@ -0,0 +1,241 @@
+// MatchServerTest.java
+// Gordon Lin
+// Tests the match server with clients connected over loopback: two clients are paired into a match, are sent its start, states, the garbage they send each other, and its end
+// Also tests that a client leaving in the middle of a match loses it, and that the server won't start with settings its messages can't carry
+
+package tetris;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchServerTest {
+    // Constants which store the steps per second and size of the boards of every match, narrow and short so rows are cleared often and matches end quickly
+    private static final int TICK_RATE = 240, BOARD_WIDTH = 4, BOARD_HEIGHT = 16;
+    // Constant which stores the steps per second of a match no one plays, slow so it's still being played when a client leaves
+    private static final int SLOW_TICK_RATE = 10;
+    // Constant which stores the longest a test waits for the server, in nanoseconds
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+    // Server being tested, on a port picked by the system
+    private MatchServer server;
+    private final InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    @AfterEach
+    void stopServer() throws IOException {
+        if(server != null) server.close();
+    }
+
+    @Test
+    void playsMatchWithGarbageToItsEnd() throws IOException {
+        startServer(TICK_RATE);
+        // Both players draw the same blocks, so they play differently or the garbage they send would cancel out
+        Player firstPlayer = new Player(Player.STACKING), secondPlayer = new Player(Player.CLEARING);
+        try(Selector selector = Selector.open(); MatchClient first = connect(selector, firstPlayer); MatchClient second = connect(selector, secondPlayer)){
+            first.join();
+            second.join();
+
+            // Plays matches until one has sent garbage, as which blocks are drawn depends on the seed the server picks
+            long deadline = System.nanoTime() + TIMEOUT;
+            int matches = 0;
+            while(true){
+                pump(selector, deadline, () -> firstPlayer.ended && secondPlayer.ended);
+                matches++;
+
+                // Both players are told the same match started, with a different index each, and the settings of the server
+                assertEquals(first.getSeed(), second.getSeed());
+                assertEquals(1, first.getPlayer() + second.getPlayer());
+                for(MatchClient client : new MatchClient[]{first, second}){
+                    assertEquals(TICK_RATE, client.getTickRate());
+                    assertEquals(BOARD_WIDTH, client.getBoardWidth());
+                    assertEquals(BOARD_HEIGHT, client.getBoardHeight());
+                    assertFalse(client.isPlaying());
+                }
+                assertTrue(firstPlayer.started && secondPlayer.started);
+                assertTrue(firstPlayer.states > 0 && secondPlayer.states > 0, "no states were sent");
+                // Both are told the same winner, which is a player of the match or a draw
+                assertEquals(firstPlayer.winner, secondPlayer.winner);
+                assertTrue(firstPlayer.winner >= -1 && firstPlayer.winner < Match.NUM_PLAYERS);
+
+                firstPlayer.reset();
+                secondPlayer.reset();
+                if(firstPlayer.garbageSeen && secondPlayer.garbageSeen) break;
+                first.join();
+                second.join();
+            }
+            // The server counts the match after sending its end
+            int played = matches;
+            pump(selector, deadline, () -> server.getMatchesPlayed() >= played);
+        }
+    }
+
+    @Test
+    void leavingForfeitsTheMatch() throws IOException {
+        startServer(SLOW_TICK_RATE);
+        // Neither player moves, so the match only ends by someone leaving
+        Player firstPlayer = new Player(Player.IDLE), secondPlayer = new Player(Player.IDLE);
+        try(Selector selector = Selector.open(); MatchClient first = connect(selector, firstPlayer); MatchClient second = connect(selector, secondPlayer)){
+            first.join();
+            second.join();
+            long deadline = System.nanoTime() + TIMEOUT;
+            pump(selector, deadline, () -> firstPlayer.states > 0 && secondPlayer.states > 0);
+            assertTrue(first.isPlaying() && second.isPlaying());
+
+            // The player left is told it won
+            first.close();
+            pump(selector, deadline, () -> secondPlayer.ended);
+            assertEquals(second.getPlayer(), secondPlayer.winner);
+            assertFalse(firstPlayer.ended);
+        }
+    }
+
+    @Test
+    void rejectsSettingsStartCantCarry(){
+        assertThrows(IllegalArgumentException.class, () -> new MatchServer(loopback, 1, 0, BOARD_WIDTH, BOARD_HEIGHT));
+        assertThrows(IllegalArgumentException.class, () -> new MatchServer(loopback, 1, Protocol.MAX_TICK_RATE + 1, BOARD_WIDTH, BOARD_HEIGHT));
+        assertThrows(IllegalArgumentException.class, () -> new MatchServer(loopback, 1, TICK_RATE, Protocol.MAX_BOARD_WIDTH + 1, BOARD_HEIGHT));
+        assertThrows(IllegalArgumentException.class, () -> new MatchServer(loopback, 1, TICK_RATE, BOARD_WIDTH, Protocol.MAX_BOARD_HEIGHT + 1));
+        assertThrows(IllegalArgumentException.class, () -> new MatchServer(loopback, 0, TICK_RATE, BOARD_WIDTH, BOARD_HEIGHT));
+    }
+
+    // Starts a server with two workers, so the two players of a match can be connected to different workers
+    private void startServer(int tickRate) throws IOException {
+        server = new MatchServer(loopback, 2, tickRate, BOARD_WIDTH, BOARD_HEIGHT);
+        server.start();
+    }
+
+    // Connects a client to the server for the player, without blocking so both clients can be read on this thread
+    private MatchClient connect(Selector selector, Player player) throws IOException {
+        MatchClient client = MatchClient.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        client.getChannel().configureBlocking(false);
+        client.getChannel().register(selector, SelectionKey.OP_READ, player);
+        player.client = client;
+        return client;
+    }
+
+    // Interface for what the test waits for
+    private interface Condition {
+        boolean met();
+    }
+
+    // Reads what the server sends both clients until the condition is met, failing if it isn't by the deadline
+    private static void pump(Selector selector, long deadline, Condition condition) throws IOException {
+        while(!condition.met()){
+            assertTrue(System.nanoTime() - deadline < 0, "timed out waiting for the server");
+            selector.select(10);
+            for(SelectionKey key : selector.selectedKeys()){
+                if(!key.isValid()) continue;
+                Player player = (Player) key.attachment();
+                assertTrue(player.client.read(player) >= 0, "server closed the connection");
+            }
+            selector.selectedKeys().clear();
+        }
+    }
+
+    // Class which counts what a client is told, and plays its blocks unless it's idle
+    // Plays each block by rotating and moving it one input a state to the best column, then hard dropping it
+    // A stacking player holds off clearing single rows to clear rows together, which sends garbage, while a clearing player clears rows as soon as it can
+    // Only moves that fit are sent, as a move that doesn't changes nothing, so no state would be sent to play the next input on
+    private static class Player implements MatchClient.Listener {
+        // Constants which store how the player plays
+        static final int IDLE = 0, CLEARING = 1, STACKING = 2;
+        final int style;
+        MatchClient client;
+        // What the client was told in the match being played, and if it was ever told either player had garbage waiting
+        boolean started, ended, garbageSeen;
+        int states, winner, lastTick;
+        // Board the client's player is playing on, read from the rows in each state, and a board each placement is tried on
+        Board board, tried;
+
+        Player(int style){
+            this.style = style;
+            reset();
+        }
+
+        // Forgets the match that ended
+        void reset(){
+            started = false;
+            ended = false;
+            states = 0;
+            winner = -2;
+            lastTick = 0;
+        }
+
+        @Override
+        public void started(MatchClient client){
+            assertFalse(started, "match started twice");
+            started = true;
+            board = new Board(client.getBoardWidth(), client.getBoardHeight());
+            tried = new Board(client.getBoardWidth(), client.getBoardHeight());
+        }
+
+        @Override
+        public void state(MatchClient client){
+            assertTrue(started, "state before the match started");
+            assertTrue(client.getTick() > lastTick, "states out of order");
+            lastTick = client.getTick();
+            states++;
+            for(int player = 0; player < Match.NUM_PLAYERS; player++) if(client.getGarbage(player) > 0) garbageSeen = true;
+            if(style == IDLE) return;
+            try{
+                client.sendInputs(nextInputs(client));
+            } catch(IOException e){
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void ended(MatchClient client, int winner){
+            assertTrue(started, "match ended before it started");
+            ended = true;
+            this.winner = winner;
+        }
+
+        // Gets the inputs that move the block one step closer to the best placement found for it
+        private int nextInputs(MatchClient client) throws IOException {
+            int player = client.getPlayer(), tetrominoNum = client.getBlock(player), rotate = client.getRotate(player), x = client.getColumn(player), y = client.getRow(player);
+            readBoard(client, player);
+
+            // Finds the placement dropped straight down from the row the block is on that's worth the most for the rows it clears, then leaves the fewest holes and lowest stack
+            // Only rotations that fit in place on the way (the O block doesn't turn), and columns the block can be moved to along the row, are tried
+            int bestRotate = rotate, bestX = x, rotations = tetrominoNum == Tetrominoes.O_BLOCK_VALUE ? 1 : Tetrominoes.NUM_ROTATIONS;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for(int turns = 0, r = rotate; turns < rotations && !board.isCollide(tetrominoNum, r, x, y); turns++, r = (r + 1) % Tetrominoes.NUM_ROTATIONS){
+                for(int direction = -1; direction <= 1; direction += 2){
+                    for(int column = x; !board.isCollide(tetrominoNum, r, column, y); column += direction){
+                        tried.copyFrom(board);
+                        tried.addBlock(tetrominoNum, r, column, y + tried.drop(tetrominoNum, r, column, y));
+                        int rowsCleared = tried.clearRows();
+                        double value = (style == CLEARING || rowsCleared >= 2 ? 100 * rowsCleared : -5 * rowsCleared) - 20 * tried.getFeatures().getHoles() - tried.getFeatures().getMaxHeight();
+                        if(value > bestValue){
+                            bestValue = value;
+                            bestRotate = r;
+                            bestX = column;
+                        }
+                    }
+                }
+            }
+            if(rotate != bestRotate) return GameEngine.INPUT_ROTATE_CLOCKWISE;
+            if(x < bestX) return GameEngine.INPUT_RIGHT;
+            if(x > bestX) return GameEngine.INPUT_LEFT;
+            return GameEngine.INPUT_HARD_DROP;
+        }
+
+        // Reads the board of the player from the rows in the last state, through the format Board.load reads
+        private void readBoard(MatchClient client, int player) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for(int y = 0; y < board.getHeight(); y++){
+                long row = client.getBoardRow(player, y);
+                VarInts.writeLong(out, row);
+                for(int i = Long.bitCount(row); i > 0; i--) out.writeByte(Square.GRAY);
+            }
+            board.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        }
+    }
+}
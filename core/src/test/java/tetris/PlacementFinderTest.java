@@ -0,0 +1,125 @@
+// PlacementFinderTest.java
+// Gordon Lin
+// Tests that the finder finds the same placements as a plain breadth first search that checks every move with Board.isCollide, on random boards of different sizes
+// Also tests that the moves to every placement play the block to where it rests, without a soft drop locking it on the way when soft drops lock
+
+package tetris;
+
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacementFinderTest {
+    // Constant which stores the number of random boards searched for each size
+    private static final int BOARDS = 300;
+    // Constant which stores the seed the boards are made from
+    private static final long SEED = 8;
+
+    // Boards of the default size, tall boards with many open rows above the stack, and boards too wide for the finder to work out collisions before searching
+    @ParameterizedTest
+    @CsvSource({"10, 24", "10, 60", "6, 16", "64, 30"})
+    void findsSamePlacementsAsSearchingEveryMove(int width, int height){
+        SplittableRandom random = new SplittableRandom(SEED + width * 31L + height);
+        PlacementFinder finder = new PlacementFinder(), locking = new PlacementFinder();
+        locking.setSoftDropLocks(true);
+        Board board = new Board(width, height);
+        byte[] moves = new byte[Tetrominoes.NUM_ROTATIONS * (width + PlacementFinder.OUTSIDE * 2) * (height + PlacementFinder.OUTSIDE * 2)];
+        int placements = 0, kicks = 0;
+
+        for(int i = 0; i < BOARDS; i++){
+            // Fills a random part of the board, over garbage with holes so blocks can be tucked and spun under overhangs
+            board.reset();
+            board.addGarbage(random.nextInt(height / 3), random.nextInt(width));
+            Boards.fill(board, random, random.nextInt(width * height / 8 + 1));
+
+            for(int tetrominoNum = 0; tetrominoNum < Tetrominoes.TOTAL_NUM_OF_TETROMINOES; tetrominoNum++){
+                // Starts where the game places a block, moving it up 1 if it collides as the game does
+                int x = width / 2 - Tetrominoes.TETROMINO_BOUNDARY_WIDTH_HEIGHT[tetrominoNum] / 2, y = board.isCollide(tetrominoNum, 0, x, 0) ? -1 : 0;
+                Set<Integer> expected = searchEveryMove(board, tetrominoNum, 0, x, y);
+
+                int count = finder.find(board, tetrominoNum, 0, x, y);
+                Set<Integer> found = new HashSet<>();
+                for(int j = 0; j < count; j++){
+                    assertTrue(found.add(key(finder.getX(j), finder.getY(j), finder.getRotate(j))), "placement found twice");
+                    kicks += replay(board, finder, j, tetrominoNum, 0, x, y, moves, false);
+                }
+                assertEquals(expected, found);
+                placements += count;
+
+                // Locking on soft drops can only find fewer placements, each still reached without a soft drop locking on the way
+                count = locking.find(board, tetrominoNum, 0, x, y);
+                for(int j = 0; j < count; j++){
+                    assertTrue(expected.contains(key(locking.getX(j), locking.getY(j), locking.getRotate(j))), "placement can't be reached");
+                    replay(board, locking, j, tetrominoNum, 0, x, y, moves, true);
+                }
+            }
+        }
+        assertTrue(placements > 0, "no placements were found");
+        assertTrue(kicks > 0, "no path wall kicked");
+    }
+
+    // Finds every position the block rests at that can be reached from the start with left, right, down and rotation moves, checking each move with Board.isCollide
+    private static Set<Integer> searchEveryMove(Board board, int tetrominoNum, int startRotate, int startX, int startY){
+        Set<Integer> placements = new HashSet<>(), visited = new HashSet<>();
+        if(board.isCollide(tetrominoNum, startRotate, startX, startY)) return placements;
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{startX, startY, startRotate});
+        visited.add(key(startX, startY, startRotate));
+        while(!queue.isEmpty()){
+            int[] position = queue.poll();
+            int x = position[0], y = position[1], rotate = position[2];
+            if(board.isCollide(tetrominoNum, rotate, x, y + 1)) placements.add(key(x, y, rotate));
+            for(byte move = PlacementFinder.MOVE_LEFT; move <= PlacementFinder.MOVE_ROTATE_COUNTERCLOCKWISE; move++){
+                int[] next = move(board, tetrominoNum, x, y, rotate, move);
+                if(next != null && visited.add(key(next[0], next[1], next[2]))) queue.add(next);
+            }
+        }
+        return placements;
+    }
+
+    // Plays the moves to the placement from the start, checking each move can be played and the block lands on the placement once it's hard dropped, and returns 1 if a move wall kicked
+    // When soft drops lock, checks the block isn't resting after a soft drop before the last move, as the game would have locked it there
+    private static int replay(Board board, PlacementFinder finder, int i, int tetrominoNum, int rotate, int x, int y, byte[] moves, boolean softDropLocks){
+        int length = finder.getPath(i, moves), kicked = 0;
+        for(int j = 0; j < length; j++){
+            int[] next = move(board, tetrominoNum, x, y, rotate, moves[j]);
+            assertNotNull(next, "move can't be played");
+            // A rotation that moves the block was a wall kick
+            if(moves[j] >= PlacementFinder.MOVE_ROTATE_CLOCKWISE && (next[0] != x || next[1] != y)) kicked = 1;
+            x = next[0];
+            y = next[1];
+            rotate = next[2];
+            if(softDropLocks && moves[j] == PlacementFinder.MOVE_DOWN && j < length - 1) assertFalse(board.isCollide(tetrominoNum, rotate, x, y + 1), "soft drop locks before the placement");
+        }
+        y += board.drop(tetrominoNum, rotate, x, y);
+        assertEquals(key(finder.getX(i), finder.getY(i), finder.getRotate(i)), key(x, y, rotate), "moves don't play to the placement");
+        return kicked;
+    }
+
+    // Plays a move from the position the way GameEngine does, rotating with the first wall kick that fits, and gets the new position, or null if the move can't be played
+    private static int[] move(Board board, int tetrominoNum, int x, int y, int rotate, byte move){
+        switch(move){
+            case PlacementFinder.MOVE_LEFT: return board.isCollide(tetrominoNum, rotate, x - 1, y) ? null : new int[]{x - 1, y, rotate};
+            case PlacementFinder.MOVE_RIGHT: return board.isCollide(tetrominoNum, rotate, x + 1, y) ? null : new int[]{x + 1, y, rotate};
+            case PlacementFinder.MOVE_DOWN: return board.isCollide(tetrominoNum, rotate, x, y + 1) ? null : new int[]{x, y + 1, rotate};
+        }
+        if(tetrominoNum == Tetrominoes.O_BLOCK_VALUE) return null;
+        int direction = move == PlacementFinder.MOVE_ROTATE_CLOCKWISE ? 1 : -1;
+        int[][][][] translations = direction == 1 ? Tetrominoes.TETROMINO_CLOCKWISE_ROTATION_TRANSLATION : Tetrominoes.TETROMINO_COUNTERCLOCKWISE_ROTATION_TRANSLATION;
+        int translationIndex = tetrominoNum == Tetrominoes.I_BLOCK_VALUE ? Tetrominoes.I_BLOCK_VALUE : Tetrominoes.NON_I_BLOCK_ROTATION_TRANSLATION_INDEX;
+        int newRotate = (rotate + direction + Tetrominoes.NUM_ROTATIONS) % Tetrominoes.NUM_ROTATIONS;
+        if(!board.isCollide(tetrominoNum, newRotate, x, y)) return new int[]{x, y, newRotate};
+        for(int[] translation : translations[translationIndex][rotate]){
+            if(!board.isCollide(tetrominoNum, newRotate, x + translation[0], y + translation[1])) return new int[]{x + translation[0], y + translation[1], newRotate};
+        }
+        return null;
+    }
+
+    // Gets a number for the position that's the same for every board searched
+    private static int key(int x, int y, int rotate){
+        return ((y + PlacementFinder.OUTSIDE) * 1024 + x + PlacementFinder.OUTSIDE) * Tetrominoes.NUM_ROTATIONS + rotate;
+    }
+}
@@ -0,0 +1,175 @@
+// ReplayTest.java
+// Gordon Lin
+// Tests that a recorded game is written and read back the same, verifies to its score, and seeks to every step the same as playing it straight through
+// Also tests that a replay changed after it was written fails to verify, or can't be read
+
+package tetris;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+    // Constants which store the most steps recorded, the steps between each keyframe, the number of blocks previewed, and the steps played per second
+    private static final int MAX_TICKS = 4000, KEYFRAME_INTERVAL = 50, PREVIEW_DEPTH = 3;
+    private static final double TICK_RATE = 60;
+    // Constant which stores the seed the game and its inputs are made from
+    private static final long SEED = 13;
+
+    // Replay recorded, the bytes it was written as, the state of the game before each step (and after the last), and the score the game ended with
+    private static Replay replay;
+    private static byte[] file;
+    private static byte[][] states;
+    private static int finalScore;
+
+    @BeforeAll
+    static void record() throws IOException {
+        GameEngine engine = newEngine();
+        engine.start(SEED);
+        engine.setTickRate(TICK_RATE);
+        Replay.Recorder recorder = new Replay.Recorder(engine, SEED, TICK_RATE, KEYFRAME_INTERVAL);
+
+        // Plays runs of random inputs until the game is over, stopping the recording there as the game does
+        SplittableRandom random = new SplittableRandom(SEED);
+        states = new byte[MAX_TICKS + 1][];
+        int ticks = 0;
+        while(ticks < MAX_TICKS && !engine.isGameOver()){
+            int inputs = randomInputs(random);
+            for(int run = 1 + random.nextInt(6); run > 0 && ticks < MAX_TICKS && !engine.isGameOver(); run--){
+                states[ticks++] = save(engine);
+                recorder.record(inputs);
+                engine.step(inputs);
+                // Hard drops and holds are only played on the step they're pressed
+                inputs &= GameEngine.HELD_INPUTS;
+            }
+        }
+        states[ticks] = save(engine);
+        finalScore = engine.isGameOver() ? engine.getFinalScore() : engine.getScore().getScore();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.finish().write(out);
+        file = out.toByteArray();
+        replay = Replay.read(new ByteArrayInputStream(file));
+    }
+
+    @Test
+    void readsWhatWasRecorded(){
+        assertTrue(replay.getTicks() > KEYFRAME_INTERVAL * 4, "game was too short to have many keyframes");
+        assertEquals(SEED, replay.getSeed());
+        assertEquals(TICK_RATE, replay.getTickRate());
+        assertEquals(KEYFRAME_INTERVAL, replay.getKeyframeInterval());
+        assertEquals(PREVIEW_DEPTH, replay.getPreviewDepth());
+        assertTrue(replay.isSevenBag());
+        assertNotNull(states[replay.getTicks()]);
+    }
+
+    @Test
+    void verifiesToFinalScore(){
+        assertEquals(finalScore, replay.verify());
+    }
+
+    @Test
+    void playsEveryStepAsRecorded() throws IOException {
+        Replay.Player player = new Replay.Player(replay, newEngine());
+        assertArrayEquals(states[0], save(player.getEngine()));
+        while(player.hasNext()){
+            player.step();
+            assertArrayEquals(states[player.getTick()], save(player.getEngine()), () -> "step " + player.getTick());
+        }
+    }
+
+    @Test
+    void seeksToAnyStep() throws IOException {
+        Replay.Player player = new Replay.Player(replay, newEngine());
+        // Seeks backwards and forwards, to keyframes, the steps either side of them, and the end
+        SplittableRandom random = new SplittableRandom(SEED);
+        int ticks = replay.getTicks();
+        int[] targets = {ticks, 0, KEYFRAME_INTERVAL, KEYFRAME_INTERVAL - 1, KEYFRAME_INTERVAL + 1, ticks - 1, ticks / 2};
+        for(int i = 0; i < targets.length + 200; i++){
+            int target = i < targets.length ? targets[i] : random.nextInt(ticks + 1);
+            player.seek(target);
+            assertEquals(target, player.getTick());
+            assertArrayEquals(states[target], save(player.getEngine()), () -> "seek to " + target);
+        }
+        // Seeking past either end stops at the end
+        player.seek(ticks + 100);
+        assertEquals(ticks, player.getTick());
+        player.seek(-1);
+        assertEquals(0, player.getTick());
+    }
+
+    @Test
+    void changedKeyframeFailsToVerify() throws IOException {
+        // Changes a square of the board in the keyframe of the second segment
+        byte[] keyframe = states[KEYFRAME_INTERVAL];
+        int offset = indexOf(file, keyframe);
+        assertTrue(offset >= 0, "keyframe not found in the file");
+        byte[] changed = file.clone();
+        changed[offset + keyframe.length / 2] ^= 1;
+        assertEquals(-1, Replay.read(new ByteArrayInputStream(changed)).verify());
+    }
+
+    @Test
+    void changedInputsFailToVerify() throws IOException {
+        // Changes the first run of inputs, which follow the first keyframe, to move the other way
+        int offset = indexOf(file, states[0]) + states[0].length;
+        byte[] changed = file.clone();
+        changed[offset] ^= GameEngine.INPUT_LEFT | GameEngine.INPUT_RIGHT;
+        assertEquals(-1, Replay.read(new ByteArrayInputStream(changed)).verify());
+    }
+
+    @Test
+    void rejectsCorruptFiles(){
+        byte[] badMagic = file.clone();
+        badMagic[0] ^= 1;
+        assertThrows(IOException.class, () -> Replay.read(new ByteArrayInputStream(badMagic)));
+        byte[] badVersion = file.clone();
+        badVersion[4]++;
+        assertThrows(IOException.class, () -> Replay.read(new ByteArrayInputStream(badVersion)));
+        byte[] cutOff = Arrays.copyOf(file, file.length - 1);
+        assertThrows(IOException.class, () -> Replay.read(new ByteArrayInputStream(cutOff)));
+    }
+
+    @Test
+    void rejectsEngineThatDrawsBlocksDifferently(){
+        assertThrows(IllegalArgumentException.class, () -> new Replay.Player(replay, new GameEngine(new Board(GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT), new Score(), new PieceGenerator(SEED, false, PREVIEW_DEPTH))));
+        assertThrows(IllegalArgumentException.class, () -> new Replay.Player(replay, new GameEngine(new Board(GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT), new Score(), new PieceGenerator(SEED, true, PREVIEW_DEPTH + 1))));
+        assertThrows(IllegalArgumentException.class, () -> new Replay.Player(replay, new GameEngine(new Board(GameEngine.BOARD_WIDTH + 1, GameEngine.BOARD_HEIGHT), new Score(), new PieceGenerator(SEED, true, PREVIEW_DEPTH))));
+    }
+
+    // Creates an engine drawing blocks from a 7-bag with the preview depth, the way the game is recorded
+    private static GameEngine newEngine(){
+        return new GameEngine(new Board(GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT), new Score(), new PieceGenerator(SEED, true, PREVIEW_DEPTH));
+    }
+
+    // Gets random inputs, moving and rotating most of the time, and sometimes dropping or holding
+    private static int randomInputs(SplittableRandom random){
+        int inputs = 0, move = random.nextInt(8);
+        if(move < 3) inputs |= GameEngine.INPUT_LEFT;
+        else if(move < 6) inputs |= GameEngine.INPUT_RIGHT;
+        else if(move == 6) inputs |= GameEngine.INPUT_SOFT_DROP;
+        if(random.nextInt(10) == 0) inputs |= GameEngine.INPUT_HARD_DROP;
+        if(random.nextInt(5) == 0) inputs |= random.nextBoolean() ? GameEngine.INPUT_ROTATE_CLOCKWISE : GameEngine.INPUT_ROTATE_COUNTERCLOCKWISE;
+        if(random.nextInt(25) == 0) inputs |= GameEngine.INPUT_HOLD;
+        return inputs;
+    }
+
+    // Gets the whole state of the game as it's saved in a keyframe
+    private static byte[] save(GameEngine engine) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.save(new DataOutputStream(out));
+        return out.toByteArray();
+    }
+
+    // Finds where the bytes start in the array, or -1 if they aren't in it
+    private static int indexOf(byte[] array, byte[] bytes){
+        for(int i = 0; i + bytes.length <= array.length; i++){
+            if(Arrays.equals(array, i, i + bytes.length, bytes, 0, bytes.length)) return i;
+        }
+        return -1;
+    }
+}
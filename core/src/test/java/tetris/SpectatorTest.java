@@ -0,0 +1,187 @@
+// SpectatorTest.java
+// Gordon Lin
+// Tests that a spectator reading every frame of a game sees the same board, blocks, preview and score as the game after every step, including one that starts watching in the middle
+// Also tests that a spectator that misses a frame waits for the next snapshot, and that frames go back to the pool to be reused once every holder released them
+
+package tetris;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorTest {
+    // Constants which store the most steps played, the steps between each snapshot, the number of blocks previewed, and the step a spectator starts watching at
+    private static final int MAX_TICKS = 6000, SNAPSHOT_INTERVAL = 50, PREVIEW_DEPTH = 3, JOIN_TICK = 777;
+    // Constant which stores the seed the games and their inputs are made from
+    private static final long SEED = 21;
+
+    @Test
+    void viewsMatchGameAfterEveryStep(){
+        GameEngine engine = newEngine();
+        SpectatorEncoder encoder = new SpectatorEncoder(engine, SNAPSHOT_INTERVAL);
+        SpectatorView first = new SpectatorView(), late = new SpectatorView();
+        encoder.subscribe(first);
+        SplittableRandom random = new SplittableRandom(SEED);
+        int games = 1;
+
+        for(int tick = 0; tick < MAX_TICKS; tick++){
+            // The late spectator starts in the middle of the game, and is sent a snapshot with the next frame
+            if(tick == JOIN_TICK) encoder.subscribe(late);
+            // A game that's over starts again, which the spectators see as the game no longer being over
+            if(engine.isGameOver() && random.nextInt(20) == 0){
+                engine.start(SEED + games++);
+            }
+            else engine.step(randomInputs(random));
+            encoder.encode();
+
+            assertMatches(engine, first, tick);
+            if(tick >= JOIN_TICK) assertMatches(engine, late, tick);
+        }
+        assertTrue(games > 1, "no game ended");
+        assertEquals(0, first.getFramesSkipped());
+        assertEquals(0, late.getFramesSkipped());
+        assertTrue(late.getFramesRead() < first.getFramesRead());
+        assertEquals(2, encoder.getSpectators());
+        // A snapshot is sent for each spectator starting and at every interval, and the rest are deltas
+        assertTrue(encoder.getSnapshotsEncoded() >= MAX_TICKS / SNAPSHOT_INTERVAL);
+        assertTrue(encoder.getFramesEncoded() > encoder.getSnapshotsEncoded());
+    }
+
+    @Test
+    void missedFrameWaitsForSnapshot(){
+        GameEngine engine = newEngine();
+        SpectatorEncoder encoder = new SpectatorEncoder(engine, SNAPSHOT_INTERVAL);
+        SpectatorView view = new SpectatorView();
+        // Drops one frame, as a spectator whose connection fell behind would, which the view can't know about until it reads the next frame
+        int[] frames = {0};
+        boolean[] dropped = {false};
+        encoder.subscribe(frame -> {
+            dropped[0] = frames[0]++ == 5;
+            if(dropped[0]) frame.release();
+            else view.frame(frame);
+        });
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        boolean missed = false, caughtUp = false;
+        for(int tick = 0; tick < SNAPSHOT_INTERVAL * 3 && !engine.isGameOver(); tick++){
+            engine.step(randomInputs(random));
+            encoder.encode();
+            if(dropped[0]) continue;
+            if(!view.isSynced()) missed = true;
+            else{
+                if(missed) caughtUp = true;
+                assertMatches(engine, view, tick);
+            }
+        }
+        assertTrue(missed, "missed frame wasn't noticed");
+        assertTrue(caughtUp, "view didn't catch up at the next snapshot");
+        assertTrue(view.getFramesSkipped() > 0);
+    }
+
+    @Test
+    void framesGoBackToPoolOnceReleased(){
+        GameEngine engine = newEngine();
+        SpectatorEncoder encoder = new SpectatorEncoder(engine, SNAPSHOT_INTERVAL);
+        // Two spectators which hold every frame until they're told to release them
+        List<SharedFrame> firstHeld = new ArrayList<>(), secondHeld = new ArrayList<>();
+        SpectatorEncoder.Spectator first = firstHeld::add, second = secondHeld::add;
+        encoder.subscribe(first);
+        encoder.subscribe(second);
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        // Frames held by both are never given out again, so each frame encoded is a new one
+        Set<SharedFrame> created = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(int tick = 0; tick < 100 && !engine.isGameOver(); tick++){
+            engine.step(randomInputs(random));
+            encoder.encode();
+        }
+        assertEquals(encoder.getFramesEncoded(), firstHeld.size());
+        assertEquals(firstHeld, secondHeld);
+        created.addAll(firstHeld);
+        assertEquals(firstHeld.size(), created.size());
+        for(SharedFrame frame : created) assertEquals(2, frame.getRefs());
+
+        // Frames released by only one spectator are still held by the other
+        for(SharedFrame frame : firstHeld) frame.release();
+        firstHeld.clear();
+        for(SharedFrame frame : created) assertEquals(1, frame.getRefs());
+        for(SharedFrame frame : secondHeld) frame.release();
+        secondHeld.clear();
+        for(SharedFrame frame : created) assertEquals(0, frame.getRefs());
+        assertThrows(IllegalStateException.class, () -> created.iterator().next().retain());
+
+        // Once every spectator releases each frame as soon as it's given, the encoder only reuses the frames in the pool
+        encoder.unsubscribe(first);
+        encoder.unsubscribe(second);
+        SpectatorView view = new SpectatorView();
+        encoder.subscribe(view);
+        encoder.subscribe(frame -> {
+            assertTrue(created.contains(frame), "a new frame was created while frames were in the pool");
+            frame.release();
+        });
+        long framesEncoded = encoder.getFramesEncoded();
+        for(int tick = 0; tick < 500 && !engine.isGameOver(); tick++){
+            engine.step(randomInputs(random));
+            encoder.encode();
+            assertMatches(engine, view, tick);
+        }
+        assertTrue(encoder.getFramesEncoded() > framesEncoded, "no frames were encoded");
+        for(SharedFrame frame : created) assertEquals(0, frame.getRefs());
+    }
+
+    @Test
+    void releasingTooManyTimesThrows(){
+        SharedFrame frame = new SharedFrame(16, new ArrayDeque<>());
+        frame.open();
+        frame.publish();
+        frame.release();
+        assertThrows(IllegalStateException.class, frame::release);
+    }
+
+    // Checks the spectator sees the same game as the engine
+    private static void assertMatches(GameEngine engine, SpectatorView view, int tick){
+        assertTrue(view.isSynced(), () -> "not synced at step " + tick);
+        Board board = engine.getBoard();
+        assertEquals(board.getWidth(), view.getWidth());
+        assertEquals(board.getHeight(), view.getHeight());
+        for(int y = 0; y < board.getHeight(); y++){
+            for(int x = 0; x < board.getWidth(); x++){
+                if(board.getSquare(x, y) != view.getSquare(x, y)) fail("square " + x + ", " + y + " differs at step " + tick);
+            }
+        }
+        Tetrominoes block = engine.getCurrentBlock();
+        assertEquals(block.getTetrominoNum(), view.getBlock());
+        assertEquals(block.getRotate(), view.getRotate());
+        assertEquals(block.getX(), view.getX());
+        assertEquals((int) Math.floor(block.getY()), view.getY());
+        assertEquals(engine.getHeldBlock() == null ? SpectatorEncoder.NO_BLOCK : engine.getHeldBlock().getTetrominoNum(), view.getHold());
+        assertEquals(engine.getPreviewDepth(), view.getPreviewDepth());
+        for(int i = 0; i < engine.getPreviewDepth(); i++) assertEquals(engine.getPreview(i), view.getPreview(i));
+        Score score = engine.getScore();
+        assertEquals(score.getScore(), view.getScore(), () -> "score differs at step " + tick);
+        assertEquals(score.getLevel(), view.getLevel());
+        assertEquals(score.getRowsCleared(), view.getRowsCleared());
+        assertEquals(engine.isGameOver(), view.isGameOver());
+    }
+
+    // Creates an engine drawing blocks from a 7-bag with the preview depth
+    private static GameEngine newEngine(){
+        GameEngine engine = new GameEngine(new Board(GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT), new Score(), new PieceGenerator(SEED, true, PREVIEW_DEPTH));
+        engine.start(SEED);
+        return engine;
+    }
+
+    // Gets random inputs, moving and rotating most of the time, and sometimes dropping or holding
+    private static int randomInputs(SplittableRandom random){
+        int inputs = 0, move = random.nextInt(8);
+        if(move < 3) inputs |= GameEngine.INPUT_LEFT;
+        else if(move < 6) inputs |= GameEngine.INPUT_RIGHT;
+        else if(move == 6) inputs |= GameEngine.INPUT_SOFT_DROP;
+        if(random.nextInt(10) == 0) inputs |= GameEngine.INPUT_HARD_DROP;
+        if(random.nextInt(5) == 0) inputs |= random.nextBoolean() ? GameEngine.INPUT_ROTATE_CLOCKWISE : GameEngine.INPUT_ROTATE_COUNTERCLOCKWISE;
+        if(random.nextInt(25) == 0) inputs |= GameEngine.INPUT_HOLD;
+        return inputs;
+    }
+}
@@ -0,0 +1,125 @@
+// UndoTest.java
+// Gordon Lin
+// Tests that playing a block with make is the same as adding it and clearing rows, and that unmake puts the board (and the score, level and speed of a game) back exactly as they were
+// Blocks are made and unmade in a random walk, so blocks are undone at every depth, after rows are cleared and levels are gained, and on boards of different sizes
+
+package tetris;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UndoTest {
+    // Constants which store the number of steps of each random walk, and the most blocks made before the log is forgotten and the board kept as it is
+    private static final int STEPS = 20_000, MAX_DEPTH = 24;
+    // Constant which stores the seed the blocks are chosen from
+    private static final long SEED = 22;
+
+    @ParameterizedTest
+    @CsvSource({"10, 24", "6, 16", "64, 40"})
+    void boardMakeMatchesAddBlockAndUnmakeRestores(int width, int height){
+        SplittableRandom random = new SplittableRandom(SEED + width);
+        Board board = new Board(width, height), expected = new Board(width, height);
+        // Boards before each block made, to check each unmake against
+        Board[] before = new Board[MAX_DEPTH];
+        for(int i = 0; i < MAX_DEPTH; i++) before[i] = new Board(width, height);
+        UndoLog log = new UndoLog();
+        int[] placement = new int[4];
+        int depth = 0, rowsCleared = 0;
+
+        for(int step = 0; step < STEPS; step++){
+            // Garbage can't be undone, so it's only added while there's nothing to undo
+            if(depth == 0 && random.nextInt(8) == 0) board.addGarbage(1 + random.nextInt(3), random.nextInt(width));
+
+            if(random.nextInt(5) < 3 && Boards.randomPlacement(board, random, placement)){
+                before[depth].copyFrom(board);
+                expected.copyFrom(board);
+                expected.addBlock(placement[0], placement[1], placement[2], placement[3]);
+                int expectedCleared = expected.clearRows();
+                assertEquals(expectedCleared, board.make(placement[0], placement[1], placement[2], placement[3], log));
+                Boards.assertSameBoard(expected, board);
+                rowsCleared += expectedCleared;
+                // Keeps the board as it is once the log is deep enough, so the walk goes on past the depth
+                if(++depth == MAX_DEPTH){
+                    log.clear();
+                    depth = 0;
+                }
+            }
+            else if(depth > 0){
+                board.unmake(log);
+                Boards.assertSameBoard(before[--depth], board);
+            }
+            // Starts again once there's no room for a block and nothing to undo
+            else board.reset();
+        }
+
+        // Unmakes every block left, back to the board the log started from
+        while(depth > 0){
+            board.unmake(log);
+            Boards.assertSameBoard(before[--depth], board);
+        }
+        assertTrue(log.isEmpty());
+        assertTrue(rowsCleared > 0, "no rows were cleared");
+    }
+
+    @Test
+    void engineUnmakeRestoresScoreLevelAndSpeed(){
+        SplittableRandom random = new SplittableRandom(SEED);
+        GameEngine engine = new GameEngine(SEED);
+        engine.start(SEED);
+        Board board = engine.getBoard();
+        Score score = engine.getScore();
+        // Board, score, level, rows cleared and speed before each block made
+        Board[] before = new Board[MAX_DEPTH];
+        for(int i = 0; i < MAX_DEPTH; i++) before[i] = new Board(board.getWidth(), board.getHeight());
+        int[][] scoreBefore = new int[MAX_DEPTH][3];
+        double[] speedBefore = new double[MAX_DEPTH];
+        Board expected = new Board(board.getWidth(), board.getHeight());
+        UndoLog log = new UndoLog();
+        int[] placement = new int[4];
+        int depth = 0, levelsGained = 0;
+
+        for(int step = 0; step < STEPS; step++){
+            if(depth == 0 && random.nextInt(8) == 0 && engine.addGarbage(1 + random.nextInt(2), random.nextInt(board.getWidth())) != 0) engine.start(SEED + step);
+
+            if(random.nextInt(5) < 3 && Boards.lowPlacement(board, random, placement)){
+                before[depth].copyFrom(board);
+                scoreBefore[depth][0] = score.getScore();
+                scoreBefore[depth][1] = score.getLevel();
+                scoreBefore[depth][2] = score.getRowsCleared();
+                speedBefore[depth] = engine.getBlockDropSpeed();
+                expected.copyFrom(board);
+                expected.addBlock(placement[0], placement[1], placement[2], placement[3]);
+                int expectedCleared = expected.clearRows();
+
+                int result = engine.make(placement[0], placement[1], placement[2], placement[3], log);
+                assertNotEquals(0, result & GameEngine.RESULT_LOCKED);
+                assertEquals(expectedCleared, GameEngine.rowsCleared(result));
+                assertEquals(scoreBefore[depth][2] + expectedCleared, score.getRowsCleared());
+                Boards.assertSameBoard(expected, board);
+                if((result & GameEngine.RESULT_LEVEL_UP) != 0){
+                    levelsGained++;
+                    assertEquals(scoreBefore[depth][1] + 1, score.getLevel());
+                }
+                if(++depth == MAX_DEPTH){
+                    log.clear();
+                    depth = 0;
+                }
+            }
+            else if(depth > 0){
+                engine.unmake(log);
+                depth--;
+                Boards.assertSameBoard(before[depth], board);
+                assertArrayEquals(scoreBefore[depth], new int[]{score.getScore(), score.getLevel(), score.getRowsCleared()});
+                // The speed is compared exactly, as it's restored and not worked out again
+                assertEquals(Double.doubleToRawLongBits(speedBefore[depth]), Double.doubleToRawLongBits(engine.getBlockDropSpeed()));
+            }
+            else engine.start(SEED + step);
+        }
+        assertTrue(levelsGained > 0, "no levels were gained");
+    }
+}
@@ -0,0 +1,132 @@
+// BoardBenchmark.java
+// Gordon Lin
+// JMH benchmarks of the Board methods used on every step of the game: collisions, hard drop distance, adding blocks and clearing rows
+// Adding blocks and clearing rows change the board, so they copy the stack first, and copying the stack is measured on its own to take away from them
+// Making and unmaking a block changes the stack and puts it back, so it's measured without copying, the way a search plays each placement
+
+package tetris;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    // Constants for the number of random blocks in each stack, the number of positions each benchmark cycles through, and the seed the stacks and positions are made from
+    private static final int STACK_BLOCKS = 20, NUM_POSITIONS = 1024;
+    private static final long SEED = 2021;
+
+    // State which stores a stack with no full rows, and positions of blocks on it to check for collisions, drop, and add
+    @State(Scope.Thread)
+    public static class Positions {
+        Board stack, board;
+        // Blocks at the top of the board to drop, and the block, rotation and position of blocks that do and don't collide
+        Tetrominoes[] blocks;
+        int[] tetrominoNums, rotations, xs, ys;
+        // Placements on the stack (where a block lands when dropped) to add
+        int[] placedNums, placedRotations, placedXs, placedYs;
+        int next;
+        // Log the blocks made on the stack are undone from
+        UndoLog log;
+
+        @Setup
+        public void setup(){
+            stack = Stacks.build(0, STACK_BLOCKS, SEED);
+            board = new Board(stack.getWidth(), stack.getHeight());
+            log = new UndoLog();
+            SplittableRandom random = new SplittableRandom(SEED);
+
+            blocks = new Tetrominoes[NUM_POSITIONS];
+            tetrominoNums = new int[NUM_POSITIONS];
+            rotations = new int[NUM_POSITIONS];
+            xs = new int[NUM_POSITIONS];
+            ys = new int[NUM_POSITIONS];
+            placedNums = new int[NUM_POSITIONS];
+            placedRotations = new int[NUM_POSITIONS];
+            placedXs = new int[NUM_POSITIONS];
+            placedYs = new int[NUM_POSITIONS];
+            for(int i = 0; i < NUM_POSITIONS; i++){
+                // Random positions anywhere on the board, some in the stack and some above it
+                tetrominoNums[i] = random.nextInt(Tetrominoes.TOTAL_NUM_OF_TETROMINOES);
+                rotations[i] = random.nextInt(Tetrominoes.NUM_ROTATIONS);
+                xs[i] = random.nextInt(-1, stack.getWidth() - 1);
+                ys[i] = random.nextInt(-1, stack.getHeight() - 1);
+
+                // Blocks at the top centre of the board, where each block starts, and where they land
+                blocks[i] = new Tetrominoes(tetrominoNums[i]);
+                blocks[i].rotate(rotations[i]);
+                blocks[i].setTopCentrePos(stack.getWidth() / 2 + random.nextInt(-3, 3), 0);
+                while(stack.isCollide(blocks[i])) blocks[i].setX(blocks[i].getX() + (blocks[i].getX() < 0 ? 1 : -1));
+                placedNums[i] = tetrominoNums[i];
+                placedRotations[i] = rotations[i];
+                placedXs[i] = blocks[i].getX();
+                placedYs[i] = (int) blocks[i].getY() + stack.drop(blocks[i]);
+            }
+        }
+
+        // Gets the index of the next position, cycling through every position
+        int next(){
+            next = (next + 1) & (NUM_POSITIONS - 1);
+            return next;
+        }
+    }
+
+    // State which stores a stack with a number of full rows at the bottom, which are cleared by clearRows
+    @State(Scope.Thread)
+    public static class FullRows {
+        @Param({"0", "1", "2", "3", "4"})
+        public int rowsCleared;
+
+        Board stack, board;
+
+        @Setup
+        public void setup(){
+            stack = Stacks.build(rowsCleared, STACK_BLOCKS, SEED);
+            board = new Board(stack.getWidth(), stack.getHeight());
+        }
+    }
+
+    @Benchmark
+    public boolean isCollide(Positions positions){
+        int i = positions.next();
+        return positions.stack.isCollide(positions.tetrominoNums[i], positions.rotations[i], positions.xs[i], positions.ys[i]);
+    }
+
+    @Benchmark
+    public int drop(Positions positions){
+        return positions.stack.drop(positions.blocks[positions.next()]);
+    }
+
+    @Benchmark
+    public Board copyFrom(Positions positions){
+        positions.board.copyFrom(positions.stack);
+        return positions.board;
+    }
+
+    @Benchmark
+    public Board addBlock(Positions positions){
+        int i = positions.next();
+        positions.board.copyFrom(positions.stack);
+        positions.board.addBlock(positions.placedNums[i], positions.placedRotations[i], positions.placedXs[i], positions.placedYs[i]);
+        return positions.board;
+    }
+
+    @Benchmark
+    public Board makeUnmake(Positions positions){
+        int i = positions.next();
+        positions.stack.make(positions.placedNums[i], positions.placedRotations[i], positions.placedXs[i], positions.placedYs[i], positions.log);
+        positions.stack.unmake(positions.log);
+        return positions.stack;
+    }
+
+    @Benchmark
+    public int clearRows(FullRows fullRows){
+        fullRows.board.copyFrom(fullRows.stack);
+        return fullRows.board.clearRows();
+    }
+}
@@ -0,0 +1,64 @@
+// BoardScalingBenchmark.java
+// Gordon Lin
+// JMH benchmark of clearing rows on boards of different sizes, from the normal board up to the tall and wide boards used for training
+// Each board has a stack of garbage half as high as the board, with rows full apart from a well in the leftmost column on top, and an I block dropped down the well clears them
+// Making and unmaking the I block puts the stack back each time without copying it, so the time measured is only adding the block, clearing the rows, and undoing both
+
+package tetris;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardScalingBenchmark {
+    // Constant which stores the seed the holes of the garbage are made from
+    private static final long SEED = 2021;
+    // Constant which stores the rotation of the I block standing up
+    private static final int STANDING = 1;
+
+    @Param({"10", "40", "64"})
+    public int width;
+    @Param({"24", "100", "400"})
+    public int height;
+    @Param({"1", "4"})
+    public int rowsCleared;
+
+    // Board with the stack, the position the I block lands at in the well, and the log it's undone from
+    private Board board;
+    private int x, y;
+    private UndoLog log;
+
+    @Setup
+    public void setup(){
+        board = new Board(width, height);
+        log = new UndoLog();
+        SplittableRandom random = new SplittableRandom(SEED);
+        // Garbage is pushed in from the bottom, so the rows with the well go in first to end up at the top of the stack, and the rest have their holes anywhere but the well
+        board.addGarbage(rowsCleared, 0);
+        for(int row = rowsCleared; row < height / 2; row++) board.addGarbage(1, random.nextInt(1, width));
+
+        // Drops the I block standing up down the well
+        Tetrominoes block = new Tetrominoes(Tetrominoes.I_BLOCK_VALUE);
+        block.rotate(STANDING);
+        block.setLeftCornerPos(-Tetrominoes.TETROMINO_MIN_X[Tetrominoes.I_BLOCK_VALUE][STANDING], -Tetrominoes.TETROMINO_MIN_Y[Tetrominoes.I_BLOCK_VALUE][STANDING]);
+        block.move(0, board.drop(block));
+        x = block.getX();
+        y = (int) block.getY();
+        if(board.make(Tetrominoes.I_BLOCK_VALUE, STANDING, x, y, log) != rowsCleared) throw new IllegalStateException("I block doesn't clear " + rowsCleared + " rows");
+        board.unmake(log);
+    }
+
+    @Benchmark
+    public Board makeUnmake(){
+        board.make(Tetrominoes.I_BLOCK_VALUE, STANDING, x, y, log);
+        board.unmake(log);
+        return board;
+    }
+}
@@ -0,0 +1,67 @@
+// GameBenchmark.java
+// Gordon Lin
+// JMH benchmarks of whole games without a screen, measured in blocks placed per second
+// Games are played by an agent that moves each block randomly before hard dropping it, or by the lookahead search, and start again once they're over
+
+package tetris;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+    // Constants for the seed of the games, the most random moves made with each block, and the time budget of each search in nanoseconds
+    private static final long SEED = 2021;
+    private static final int MAX_RANDOM_MOVES = 4;
+    private static final long SEARCH_BUDGET = TimeUnit.MILLISECONDS.toNanos(10);
+    // Constant which stores the inputs the random agent moves each block with
+    private static final int[] RANDOM_INPUTS = {
+            GameEngine.INPUT_LEFT, GameEngine.INPUT_RIGHT, GameEngine.INPUT_ROTATE_CLOCKWISE, GameEngine.INPUT_ROTATE_COUNTERCLOCKWISE, 0
+    };
+
+    private GameEngine engine;
+    private SplittableRandom random;
+    private LookaheadSearch search;
+
+    @Setup
+    public void setup(){
+        engine = new GameEngine(SEED);
+        engine.start();
+        random = new SplittableRandom(SEED);
+        search = new LookaheadSearch(1, 4);
+    }
+
+    // Places one block, moving it randomly then hard dropping it
+    @Benchmark
+    public int randomBlock(){
+        int moves = random.nextInt(MAX_RANDOM_MOVES + 1);
+        for(int i = 0; i < moves; i++) engine.step(RANDOM_INPUTS[random.nextInt(RANDOM_INPUTS.length)]);
+        return finish(engine.step(GameEngine.INPUT_HARD_DROP));
+    }
+
+    // Places one block at the best placement found by the lookahead search, searching once per block
+    @Benchmark
+    public int searchedBlock(){
+        int result = 0;
+        for(int input : search.search(engine, SEARCH_BUDGET)){
+            result = engine.step(input);
+            if((result & (GameEngine.RESULT_LOCKED | GameEngine.RESULT_GAME_OVER)) != 0) break;
+        }
+        // Hard drops the block if it didn't lock, as the block can fall sooner than planned
+        if((result & (GameEngine.RESULT_LOCKED | GameEngine.RESULT_GAME_OVER)) == 0) result = engine.step(GameEngine.INPUT_HARD_DROP);
+        return finish(result);
+    }
+
+    // Starts a new game if the last one is over, and returns the result of the step
+    private int finish(int result){
+        if(engine.isGameOver()) engine.start();
+        return result;
+    }
+}
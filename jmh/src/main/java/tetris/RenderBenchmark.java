@@ -0,0 +1,55 @@
+// RenderBenchmark.java
+// Gordon Lin
+// JMH benchmark of drawing the whole screen of the game with TetrisPanel.paint into an image, while playing and on the main menu
+// Runs without a screen, so it can run on the same machines as the other benchmarks
+
+package tetris;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class RenderBenchmark {
+    // Constant which stores the number of blocks hard dropped before drawing, so the board has a stack on it
+    private static final int STACK_BLOCKS = 20;
+
+    // Screen that's drawn
+    @Param({"playing", "menu"})
+    public String screen;
+
+    private TetrisPanel panel;
+    private BufferedImage image;
+    private Graphics2D g2d;
+
+    @Setup
+    public void setup() throws Exception {
+        panel = new TetrisPanel();
+        // Plays the game for a few blocks, moving every other block to the side, without the game loop
+        if(screen.equals("playing")){
+            GameEngine engine = panel.getEngine();
+            engine.start();
+            for(int i = 0; i < STACK_BLOCKS; i++) engine.step(GameEngine.INPUT_HARD_DROP | (i % 2 == 0 ? GameEngine.INPUT_LEFT : GameEngine.INPUT_RIGHT));
+        }
+        image = new BufferedImage(TetrisPanel.WIDTH, TetrisPanel.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g2d = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown(){
+        g2d.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint(){
+        panel.paint(g2d);
+        return image;
+    }
+}
@@ -0,0 +1,57 @@
+// Stacks.java
+// Gordon Lin
+// Class which builds boards with stacks of blocks like the ones reached while playing, for the benchmarks
+// Each stack is built from the same seed every time, so every run of a benchmark measures the same boards
+
+package tetris;
+
+import java.util.SplittableRandom;
+
+public class Stacks {
+    // Constant which stores the most tries at building a stack before giving up
+    private static final int MAX_TRIES = 1000;
+
+    // Builds a board of the default size with the number of full rows at the bottom, and the number of random blocks dropped on top of them without clearing any more rows
+    public static Board build(int fullRows, int blocks, long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        Board board = new Board(GameEngine.BOARD_WIDTH, GameEngine.BOARD_HEIGHT);
+        Tetrominoes block = new Tetrominoes(0);
+
+        for(int tries = 0; tries < MAX_TRIES; tries++){
+            board.reset();
+            // Fills each full row with two I blocks lying down, and the last two columns with O blocks
+            for(int row = 0; row < fullRows; row++){
+                drop(board, block, Tetrominoes.I_BLOCK_VALUE, 0, 0);
+                drop(board, block, Tetrominoes.I_BLOCK_VALUE, 0, 4);
+            }
+            for(int row = 0; row < fullRows; row += 2) drop(board, block, Tetrominoes.O_BLOCK_VALUE, 0, 8);
+
+            // Drops random blocks on top at random rotations and columns
+            for(int i = 0; i < blocks; i++){
+                int tetrominoNum = random.nextInt(Tetrominoes.TOTAL_NUM_OF_TETROMINOES), rotate = random.nextInt(Tetrominoes.NUM_ROTATIONS);
+                int span = Tetrominoes.TETROMINO_SPAN_X[tetrominoNum][rotate];
+                drop(board, block, tetrominoNum, rotate, random.nextInt(GameEngine.BOARD_WIDTH - span + 1));
+            }
+
+            // Keeps the stack if only the rows meant to be full are full, and the stack isn't over the top
+            if(countFullRows(board) == fullRows && board.getFeatures().getMaxHeight() < GameEngine.BOARD_HEIGHT - Tetrominoes.NUM_ROTATIONS) return board;
+        }
+        throw new IllegalStateException("Couldn't build a stack with " + fullRows + " full rows");
+    }
+
+    // Drops a block with its leftmost square at the column from the top of the board onto the stack
+    private static void drop(Board board, Tetrominoes block, int tetrominoNum, int rotate, int column){
+        block.reset(tetrominoNum);
+        block.rotate(rotate);
+        block.setLeftCornerPos(column - Tetrominoes.TETROMINO_MIN_X[tetrominoNum][rotate], -Tetrominoes.TETROMINO_MIN_Y[tetrominoNum][rotate]);
+        block.move(0, board.drop(block));
+        board.addBlock(block);
+    }
+
+    // Counts the rows of the board that are full
+    private static int countFullRows(Board board){
+        int count = 0;
+        for(int y = 0; y < board.getHeight(); y++) if(board.isRowFull(y)) count++;
+        return count;
+    }
+}
@@ -0,0 +1,77 @@
+// DirtyRegions.java
+// Gordon Lin
+// Class which keeps track of the regions of the screen that have changed since the last frame, so only those regions are drawn again
+
+package tetris;
+
+import java.awt.*;
+
+public class DirtyRegions {
+    // Constant which stores the most regions kept before regions are merged together
+    public static final int MAX_REGIONS = 16;
+
+    // Rectangles of the regions that have changed, which are reused every frame
+    private final Rectangle[] regions;
+    // Number of regions that have changed
+    private int count;
+    // Boolean which stores if the whole screen has changed
+    private boolean all;
+
+    // Constructor which creates the rectangles that are reused for each region
+    public DirtyRegions(){
+        regions = new Rectangle[MAX_REGIONS];
+        for(int i = 0; i < MAX_REGIONS; i++) regions[i] = new Rectangle();
+        // The whole screen needs to be drawn on the first frame
+        all = true;
+    }
+
+    // Getter methods which get if the whole screen has changed, if nothing has changed, the number of regions, and each region
+    public boolean isAll() { return all; }
+    public boolean isEmpty() { return !all && count == 0; }
+    public int getCount() { return count; }
+    public Rectangle get(int i) { return regions[i]; }
+
+    // Marks the whole screen as changed
+    public void markAll(){
+        all = true;
+    }
+
+    // Marks the region as changed
+    public void add(int x, int y, int width, int height){
+        // Ignores empty regions, or any region while the whole screen has changed
+        if(all || width <= 0 || height <= 0) return;
+
+        // Merges the region into a region it overlaps with, so the same pixels aren't drawn twice
+        for(int i = 0; i < count; i++){
+            Rectangle region = regions[i];
+            if(region.intersects(x, y, width, height)){
+                union(region, x, y, width, height);
+                return;
+            }
+        }
+
+        // If there's no space for a new region, merges it into the last region
+        if(count == MAX_REGIONS){
+            union(regions[count - 1], x, y, width, height);
+            return;
+        }
+        regions[count++].setBounds(x, y, width, height);
+    }
+
+    // Grows the region to also cover the rectangle at x, y, by adding its top left and bottom right corners
+    private static void union(Rectangle region, int x, int y, int width, int height){
+        region.add(x, y);
+        region.add(x + width, y + height);
+    }
+
+    // Marks the rectangle as changed
+    public void add(Rectangle rectangle){
+        add(rectangle.x, rectangle.y, rectangle.width, rectangle.height);
+    }
+
+    // Clears the changed regions after they've been drawn
+    public void clear(){
+        all = false;
+        count = 0;
+    }
+}
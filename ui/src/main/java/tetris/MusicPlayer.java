@@ -0,0 +1,131 @@
+// MusicPlayer.java
+// Gordon Lin
+// Class which plays a track of music on a loop, reading and decoding it a little at a time as it's played instead of all at once
+// Only one small buffer is used the whole time, so the memory used doesn't grow with the length of the track
+// Compressed tracks are decoded as they're read by whichever decoder is installed for their format, and the track starts again right after it ends so the loop has no gap
+
+package tetris;
+
+import javax.sound.sampled.*;
+import java.io.*;
+
+public class MusicPlayer implements Runnable {
+    // Constant which stores how much of the track is kept ahead of what's playing, in milliseconds
+    public static final int BUFFER_MILLIS = 250;
+
+    // Path of the track in the assets
+    private final String path;
+    // Track being read, decoded to PCM, and the format it's decoded to
+    private AudioInputStream track;
+    private AudioFormat format;
+    // Boolean which stores if the music should keep playing, and the thread it plays on
+    private volatile boolean playing;
+    private Thread thread;
+
+    // Constructor which takes in the path of the track in the assets
+    public MusicPlayer(String path){
+        this.path = path;
+    }
+
+    // Starts playing the music on its own thread, which doesn't stop the program from closing
+    public synchronized void start(){
+        if(playing) return;
+        playing = true;
+        thread = new Thread(this, "Music");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stops the music, and waits for its thread to finish writing the part of the track it's on
+    public void stop(){
+        Thread stopped;
+        synchronized(this){
+            playing = false;
+            stopped = thread;
+            thread = null;
+        }
+        if(stopped == null) return;
+        try{
+            stopped.join();
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run(){
+        SourceDataLine line = null;
+        try{
+            // Opens the track first, so the line is opened in the format of the track
+            openTrack();
+            line = AudioSystem.getSourceDataLine(format);
+            // The line holds the part of the track ahead of what's playing, and the buffer fills a quarter of it each time
+            int frameSize = format.getFrameSize();
+            int lineBytes = (int) (format.getFrameRate() * BUFFER_MILLIS / 1000) * frameSize;
+            line.open(format, lineBytes);
+            byte[] buffer = new byte[Math.max(frameSize, line.getBufferSize() / 4 / frameSize * frameSize)];
+            line.start();
+
+            // Keeps the line filled until the music is stopped, which blocks while the line is full
+            while(playing){
+                int read = read(buffer, buffer.length);
+                if(read < 0) break;
+                line.write(buffer, 0, read);
+            }
+        } catch(IOException | UnsupportedAudioFileException | LineUnavailableException | IllegalArgumentException e){
+            // The game carries on without music
+            System.err.println("Couldn't play music " + path + ": " + e);
+        } finally{
+            if(line != null){
+                line.stop();
+                line.close();
+            }
+            closeTrack();
+        }
+    }
+
+    // Reads the next part of the track into the buffer, starting the track again from the start when it ends
+    // Returns the number of bytes read, which is a whole number of frames, or -1 if the track has nothing in it
+    // Used without a line, so the track can be read without a sound device
+    int read(byte[] buffer, int length) throws IOException, UnsupportedAudioFileException {
+        if(track == null) openTrack();
+        int read = track.read(buffer, 0, length);
+        if(read < 0){
+            // Starts the track again, and reads its start straight after its end
+            closeTrack();
+            openTrack();
+            read = track.read(buffer, 0, length);
+        }
+        return read;
+    }
+
+    // Gets the format the track is decoded to, once it's opened
+    AudioFormat getFormat() { return format; }
+
+    // Opens the track from the assets, decoding it to PCM as it's read if it's compressed
+    private void openTrack() throws IOException, UnsupportedAudioFileException {
+        // Reading the format needs to mark the stream and go back, so the stream is buffered
+        AudioInputStream stream = AudioSystem.getAudioInputStream(new BufferedInputStream(Assets.open(path)));
+        AudioFormat source = stream.getFormat();
+        AudioFormat.Encoding encoding = source.getEncoding();
+        if(!encoding.equals(AudioFormat.Encoding.PCM_SIGNED) && !encoding.equals(AudioFormat.Encoding.PCM_UNSIGNED)){
+            // Decodes to 16 bit PCM with the same rate and channels
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, source.getSampleRate(), 16, source.getChannels(), source.getChannels() * 2, source.getSampleRate(), false);
+            stream = AudioSystem.getAudioInputStream(pcm, stream);
+        }
+        track = stream;
+        // Every time the track is opened, it's the same track, so the format stays the same
+        if(format == null) format = stream.getFormat();
+    }
+
+    // Closes the track being read, if there is one
+    private void closeTrack(){
+        if(track == null) return;
+        try{
+            track.close();
+        } catch(IOException e){
+            // Nothing is read from it again
+        }
+        track = null;
+    }
+}
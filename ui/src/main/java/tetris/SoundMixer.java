@@ -0,0 +1,200 @@
+// SoundMixer.java
+// Gordon Lin
+// Class which plays the sound effects of the game by mixing them itself into one line to the sound device, on its own thread
+// Every sound is made once when the mixer is created and kept as 16 bit samples outside the heap, and a fixed number of voices play them, so playing a sound creates nothing
+// The line only holds a few milliseconds ahead of what's playing, so a sound is heard well within a frame of when it's played
+
+package tetris;
+
+import javax.sound.sampled.*;
+import java.nio.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class SoundMixer implements Runnable {
+    // Constants for each sound, and the number of sounds
+    public static final int SOUND_ROTATE = 0, SOUND_LOCK = 1, SOUND_HARD_DROP = 2, SOUND_CLEAR = 3, SOUND_TETRIS = 4, SOUND_LEVEL_UP = 5, SOUND_GAME_OVER = 6, NUM_SOUNDS = 7;
+    // Constants which store the sample rate of the sounds, the number of samples mixed at a time, and the number of sounds that can play at once
+    public static final int SAMPLE_RATE = 44100, CHUNK_FRAMES = 128, NUM_VOICES = 16;
+    // Constant which stores how much is kept in the line ahead of what's playing, in milliseconds, set with the tetris.soundBufferMillis property
+    public static final int BUFFER_MILLIS = Integer.getInteger("tetris.soundBufferMillis", 10);
+    // Constant which stores the format of the line: 16 bit signed mono samples, little-endian
+    public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+
+    // Samples of each sound, stored outside the heap
+    private final ByteBuffer[] samples;
+    // Number of times each sound was played since the mixer last started voices, written by any thread
+    private final AtomicIntegerArray pending;
+    // Sound each voice is playing (-1 for none), and the next sample it plays, only used by the mixing thread
+    private final int[] voiceSound, voicePosition;
+    // Sum of the voices for each sample of the chunk being mixed, and the chunk as bytes for the line
+    private final int[] mix;
+    private final byte[] chunk;
+    // Boolean which stores if the mixer is playing, and the thread it mixes on
+    private volatile boolean playing;
+    private volatile Thread thread;
+
+    // Constructor which makes every sound
+    public SoundMixer(){
+        samples = new ByteBuffer[NUM_SOUNDS];
+        samples[SOUND_ROTATE] = toBuffer(notes(0.12, 25, 880));
+        samples[SOUND_LOCK] = toBuffer(sweep(0.25, 40, 180, 90));
+        samples[SOUND_HARD_DROP] = toBuffer(sweep(0.4, 90, 220, 50));
+        samples[SOUND_CLEAR] = toBuffer(notes(0.18, 50, 523.25, 659.25, 783.99));
+        samples[SOUND_TETRIS] = toBuffer(notes(0.18, 60, 523.25, 659.25, 783.99, 1046.5));
+        samples[SOUND_LEVEL_UP] = toBuffer(notes(0.18, 70, 392, 523.25, 659.25, 783.99, 1046.5));
+        samples[SOUND_GAME_OVER] = toBuffer(notes(0.2, 160, 392, 349.23, 311.13, 261.63));
+
+        pending = new AtomicIntegerArray(NUM_SOUNDS);
+        voiceSound = new int[NUM_VOICES];
+        voicePosition = new int[NUM_VOICES];
+        for(int voice = 0; voice < NUM_VOICES; voice++) voiceSound[voice] = -1;
+        mix = new int[CHUNK_FRAMES];
+        chunk = new byte[CHUNK_FRAMES * FORMAT.getFrameSize()];
+    }
+
+    // Starts mixing on its own thread, which doesn't stop the program from closing
+    public synchronized void start(){
+        if(playing) return;
+        playing = true;
+        Thread mixer = new Thread(this, "Sound Mixer");
+        mixer.setDaemon(true);
+        // Mixing late is heard straight away, so the mixer runs before the game's threads
+        mixer.setPriority(Thread.MAX_PRIORITY);
+        thread = mixer;
+        mixer.start();
+    }
+
+    // Stops mixing, and lets the thread finish
+    public synchronized void stop(){
+        playing = false;
+        Thread mixer = thread;
+        thread = null;
+        if(mixer != null) LockSupport.unpark(mixer);
+    }
+
+    // Plays a sound, from any thread, starting on the next chunk mixed
+    // Playing the same sound more than once before the next chunk only plays it once
+    public void play(int sound){
+        if(!playing) return;
+        pending.incrementAndGet(sound);
+        Thread mixer = thread;
+        if(mixer != null) LockSupport.unpark(mixer);
+    }
+
+    @Override
+    public void run(){
+        SourceDataLine line = null;
+        try{
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            // Asks for a line that only holds a few milliseconds, but at least two chunks so it doesn't run out while the next one is mixed
+            int lineBytes = Math.max(2 * chunk.length, (int) (SAMPLE_RATE * FORMAT.getFrameSize() * (long) BUFFER_MILLIS / 1000));
+            line.open(FORMAT, lineBytes);
+            line.start();
+
+            while(playing){
+                // Waits while nothing is playing, until a sound is played
+                if(!mix(chunk)){
+                    LockSupport.park(this);
+                    continue;
+                }
+                // Blocks until the line has room for the chunk
+                line.write(chunk, 0, chunk.length);
+            }
+        } catch(LineUnavailableException | IllegalArgumentException e){
+            // The game carries on without sound effects
+            System.err.println("Couldn't play sound effects: " + e);
+            playing = false;
+        } finally{
+            if(line != null){
+                line.stop();
+                line.close();
+            }
+        }
+    }
+
+    // Mixes the next chunk of every voice into the bytes given, starting the sounds played since the last chunk
+    // Returns false without mixing if nothing is playing
+    // Used without a line, so the sounds can be mixed without a sound device
+    boolean mix(byte[] out){
+        // Starts a voice for each sound played
+        for(int sound = 0; sound < NUM_SOUNDS; sound++){
+            if(pending.get(sound) != 0 && pending.getAndSet(sound, 0) != 0) startVoice(sound);
+        }
+
+        // Adds the next chunk of each voice playing together
+        boolean any = false;
+        for(int i = 0; i < CHUNK_FRAMES; i++) mix[i] = 0;
+        for(int voice = 0; voice < NUM_VOICES; voice++){
+            int sound = voiceSound[voice];
+            if(sound < 0) continue;
+            any = true;
+            ByteBuffer buffer = samples[sound];
+            int position = voicePosition[voice], length = buffer.capacity() >> 1;
+            int count = Math.min(CHUNK_FRAMES, length - position);
+            for(int i = 0; i < count; i++) mix[i] += buffer.getShort((position + i) << 1);
+            // Frees the voice once its sound has finished
+            if(position + count == length) voiceSound[voice] = -1;
+            else voicePosition[voice] = position + count;
+        }
+        if(!any) return false;
+
+        // Writes the sum as little-endian samples, cut off at the loudest sample so loud sums don't wrap around
+        for(int i = 0; i < CHUNK_FRAMES; i++){
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[i << 1] = (byte) sample;
+            out[(i << 1) + 1] = (byte) (sample >> 8);
+        }
+        return true;
+    }
+
+    // Starts the sound on a free voice, or on the voice furthest through its sound if none are free
+    private void startVoice(int sound){
+        int chosen = 0;
+        for(int voice = 0; voice < NUM_VOICES; voice++){
+            if(voiceSound[voice] < 0){
+                chosen = voice;
+                break;
+            }
+            if(voicePosition[voice] > voicePosition[chosen]) chosen = voice;
+        }
+        voiceSound[chosen] = sound;
+        voicePosition[chosen] = 0;
+    }
+
+    // Makes a sound of square wave notes played one after another, each fading out, at the volume given (0 to 1)
+    private static short[] notes(double volume, int noteMillis, double... frequencies){
+        int noteSamples = SAMPLE_RATE * noteMillis / 1000;
+        short[] sound = new short[noteSamples * frequencies.length];
+        for(int note = 0; note < frequencies.length; note++){
+            for(int i = 0; i < noteSamples; i++){
+                // Square wave, fading out linearly so each note ends without a click
+                double wave = Math.sin(2 * Math.PI * frequencies[note] * i / SAMPLE_RATE) >= 0 ? 1 : -1;
+                double fade = 1 - (double) i / noteSamples;
+                sound[note * noteSamples + i] = (short) (wave * fade * volume * Short.MAX_VALUE);
+            }
+        }
+        return sound;
+    }
+
+    // Makes a thud of a sine wave falling from one frequency to another while fading out, at the volume given (0 to 1)
+    private static short[] sweep(double volume, int millis, double startFrequency, double endFrequency){
+        int length = SAMPLE_RATE * millis / 1000;
+        short[] sound = new short[length];
+        double phase = 0;
+        for(int i = 0; i < length; i++){
+            double progress = (double) i / length;
+            phase += 2 * Math.PI * (startFrequency + (endFrequency - startFrequency) * progress) / SAMPLE_RATE;
+            double fade = (1 - progress) * (1 - progress);
+            sound[i] = (short) (Math.sin(phase) * fade * volume * Short.MAX_VALUE);
+        }
+        return sound;
+    }
+
+    // Copies the samples of a sound outside the heap in the format of the line
+    private static ByteBuffer toBuffer(short[] sound){
+        ByteBuffer buffer = ByteBuffer.allocateDirect(sound.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asShortBuffer().put(sound);
+        return buffer;
+    }
+}
@@ -0,0 +1,61 @@
+// StaticLayer.java
+// Gordon Lin
+// Class which stores the parts of the screen that don't change while playing (background, frames of the boards, labels) drawn together in one image
+// The image is only drawn again when the size or scale of the screen changes, or what's on it changes
+
+package tetris;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+
+public class StaticLayer {
+    // Interface for what draws the contents of the layer
+    public interface Painter {
+        void paint(Graphics2D g2d);
+    }
+
+    // Painter which draws the contents of the layer
+    private final Painter painter;
+    // Width and height of the layer
+    private final int width, height;
+
+    // Image the layer was drawn into
+    private BufferedImage image;
+    // Screen the layer was drawn for, and the value of what's on the layer when it was drawn
+    private GraphicsConfiguration configuration;
+    private int key;
+
+    // Constructor which takes in the painter of the layer, and its width and height
+    public StaticLayer(Painter painter, int width, int height){
+        this.painter = painter;
+        this.width = width;
+        this.height = height;
+    }
+
+    // Draws the layer at the top left of the screen, drawing the layer again first if the screen changed
+    public void draw(Graphics2D g2d){
+        draw(g2d, 0);
+    }
+
+    // Draws the layer at the top left of the screen, drawing the layer again first if the screen changed or the key of what's on it changed
+    public void draw(Graphics2D g2d, int key){
+        GraphicsConfiguration configuration = g2d.getDeviceConfiguration();
+        if(image == null || configuration != this.configuration || key != this.key){
+            this.configuration = configuration;
+            this.key = key;
+            build();
+        }
+        g2d.drawImage(image, 0, 0, width, height, null);
+    }
+
+    // Draws the contents of the layer into a new image in the format of the screen, scaled to the screen so it has as many pixels as it takes up
+    private void build(){
+        AffineTransform transform = configuration.getDefaultTransform();
+        image = configuration.createCompatibleImage((int) Math.ceil(width * transform.getScaleX()), (int) Math.ceil(height * transform.getScaleY()), Transparency.OPAQUE);
+        Graphics2D g2d = image.createGraphics();
+        g2d.scale(transform.getScaleX(), transform.getScaleY());
+        painter.paint(g2d);
+        g2d.dispose();
+    }
+}
@@ -0,0 +1,92 @@
+// Tetris.java
+// Gordon Lin
+// Simple Tetris game (block stacking game with tetrominoes)
+// Includes most features from the standard game, including wall kicking, hard dropping (drops the block immediately to the bottom), soft dropping (drops the block 1 square)
+
+package tetris;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.*;
+import java.util.concurrent.*;
+
+// Main JFrame class
+public class Tetris extends JFrame{
+    // Version of the window, as every Swing component is serializable (the window is never serialized)
+    private static final long serialVersionUID = 1L;
+    // Constant which stores the path of the music in the assets
+    public static final String THEME = "/assets/music/theme.wav";
+
+    // Label shown while the assets load, and the game once they're loaded
+    private final JLabel loading;
+    // Player which streams the music while the window is open, and the mixer which plays the sound effects of the game
+    private final MusicPlayer music;
+    private final SoundMixer sounds;
+    TetrisPanel game;
+
+    public Tetris() {
+        super("Tetris");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Closes the game before the window exits (or when it's disposed), so its leaderboard is written to the disk
+        addWindowListener(new WindowAdapter(){
+            @Override
+            public void windowClosing(WindowEvent e) { closeGame(); }
+            @Override
+            public void windowClosed(WindowEvent e) { closeGame(); }
+        });
+        // Shows the metrics of the game through JMX, if they're recorded
+        Metrics.register();
+
+        // Shows the window straight away with a loading screen the size of the game
+        loading = new JLabel("Loading...", SwingConstants.CENTER);
+        loading.setPreferredSize(new Dimension(TetrisPanel.WIDTH, TetrisPanel.HEIGHT));
+        loading.setOpaque(true);
+        loading.setBackground(Color.BLACK);
+        loading.setForeground(Color.WHITE);
+        add(loading);
+        pack();
+        setResizable(false);
+        setVisible(true);
+
+        // Starts loading the font, background and squares at the same time, and shows the game on the Swing thread once all of them are loaded
+        CompletableFuture<Font> font = Assets.font(TetrisPanel.FONT);
+        CompletableFuture<BufferedImage> back = Assets.image(TetrisPanel.BACKGROUND);
+        CompletableFuture.allOf(font, back, Square.loadImages())
+                .thenRunAsync(() -> showGame(font.join(), back.join()), SwingUtilities::invokeLater)
+                .exceptionally(e -> {
+                    // The game can't be played without them, so the loading screen says why
+                    System.err.println("Couldn't load the game: " + e.getCause());
+                    SwingUtilities.invokeLater(() -> loading.setText("Couldn't load the game: " + e.getCause()));
+                    return null;
+                });
+
+        // Streams the music on its own thread, as the game doesn't wait for it, and plays without it if it can't be played
+        // Done by the window so the panel can be drawn without a sound device
+        music = new MusicPlayer(THEME);
+        music.start();
+        sounds = new SoundMixer();
+        sounds.start();
+    }
+
+    // Replaces the loading screen with the game, and lets it take keys
+    private void showGame(Font font, Image back){
+        game = new TetrisPanel(font, back);
+        game.setSounds(sounds);
+        remove(loading);
+        add(game);
+        pack();
+        game.requestFocusInWindow();
+    }
+
+    // Closes the game, if it was shown
+    private void closeGame(){
+        if(game != null) game.close();
+    }
+
+    public static void main(String[] args) {
+        // Creates the window on the Swing thread
+        SwingUtilities.invokeLater(Tetris::new);
+    }
+
+}
@@ -0,0 +1,665 @@
+// TetrisPanel.java
+// Gordon Lin
+// Canvas which plays the Tetris game from the keyboard on the game loop, and draws the board, blocks, score and menus of the game
+
+package tetris;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Main Canvas Class, which is drawn actively from the game loop
+class TetrisPanel extends Canvas implements GameLoop.Listener, KeyListener{
+    // Version of the panel, as every AWT component is serializable (the panel is never serialized)
+    private static final long serialVersionUID = 1L;
+    // Constant integers which store, in order:
+    // - Width of Canvas by pixel
+    // - Height of Canvas by pixel
+    // - Width of the Tetris board by square size, set with the tetris.boardWidth property (up to Board.MAX_WIDTH)
+    // - Height of the Tetris board by square size, set with the tetris.boardHeight property
+    // - Pixel size of each block on the board, as large as the normal board's but small enough for the board and its border to fit in the 300 by 650 pixels the normal board takes
+    // - Width/Height of the board that shows only a singular block by square size
+    public static final int WIDTH = 750, HEIGHT=750, BOARD_WIDTH = Integer.getInteger("tetris.boardWidth", GameEngine.BOARD_WIDTH), BOARD_HEIGHT = Integer.getInteger("tetris.boardHeight", GameEngine.BOARD_HEIGHT),
+            SQUARE_SIZE = Math.max(1, Math.min(25, Math.min(300 / (BOARD_WIDTH + Board.PLUS_BORDER), 650 / (BOARD_HEIGHT + Board.PLUS_BORDER)))), SINGLE_BLOCK_BOARD_WIDTH_HEIGHT = GameEngine.SINGLE_BLOCK_BOARD_WIDTH_HEIGHT;
+    // Constant which stores the pixel size of each block on the boards that show the held and next block, which stay the same size whatever the size of the main board
+    public static final int PREVIEW_SQUARE_SIZE = 25;
+    // Constant integers which store the number of steps of the game per second, and the number of frames rendered per second, which can be set with the tetris.tickRate and tetris.frameRate properties
+    public static final int TICK_RATE = Integer.getInteger("tetris.tickRate", 60), FRAME_RATE = Integer.getInteger("tetris.frameRate", 60);
+    // Constant which stores if the blocks are drawn from a 7-bag instead of each at random, set with the tetris.sevenBag property
+    public static final boolean SEVEN_BAG = Boolean.getBoolean("tetris.sevenBag");
+    // Constant which stores the folder the replay of each game is saved in when it's over, set with the tetris.replayDir property (no replays are saved if it isn't set)
+    public static final String REPLAY_DIR = System.getProperty("tetris.replayDir");
+    // Constant which stores the log file every finished game is added to, set with the tetris.leaderboard property (no games are kept if it isn't set)
+    public static final String LEADERBOARD = System.getProperty("tetris.leaderboard");
+    // Constants which store the path of the font and the background image in the assets
+    public static final String FONT = "/assets/font/font.ttf", BACKGROUND = "/assets/images/background.png";
+    // Constant floats which store each respective font size
+    public static final float SMALL_FONT = 12f, LARGE_FONT = 36f, VERY_LARGE_FONT = 72f;
+
+    // Constants for the delayed auto-shift and auto-repeat rate while left or right is held, in milliseconds
+    public static final long DAS = Long.getLong("tetris.das", TimeUnit.NANOSECONDS.toMillis(InputHandler.DEFAULT_DAS)), ARR = Long.getLong("tetris.arr", TimeUnit.NANOSECONDS.toMillis(InputHandler.DEFAULT_ARR));
+
+    // Constant which stores the key that shows and hides the overlay of the metrics, when they're recorded
+    public static final int METRICS_KEY = KeyEvent.VK_F3;
+    // Constants which store the histograms shown on the overlay with their labels, and the percentiles shown of each
+    public static final Histogram[] METRICS_HISTOGRAMS = {Metrics.TICK, Metrics.MOVE, Metrics.PAINT, Metrics.FRAME_JITTER, Metrics.CLEAR_ROWS};
+    public static final String[] METRICS_LABELS = {"Tick", "Move", "Paint", "Jitter", "Clear"};
+    public static final double[] METRICS_PERCENTILES = {50, 99};
+    // Constant which stores the colour behind the overlay, so it can be read over the background
+    public static final Color METRICS_BACKGROUND = new Color(0, 0, 0, 200);
+    // Constant which stores how the ghost of the current block is drawn, faded over the board
+    public static final AlphaComposite GHOST_COMPOSITE = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.3f);
+
+    // Queue of timestamped presses and releases from the keyboard, and the handler which turns them into the inputs of each step
+    private final InputQueue inputQueue;
+    private final InputHandler inputHandler;
+    // Boolean array that stores which actions are held, so the keyboard's own repeat of a held key isn't queued as another press
+    private final boolean[] actionsHeld;
+
+    // Board object that stores the main board of the Tetris game, as well as the board that displays the held block and next block
+    private final Board board, holdingBoard, nextBoard;
+    // GameEngine object that plays the rules of the game on the main board
+    private final GameEngine engine;
+    // Tetrominoes object which shows the next block in the game's preview on the board that shows the next block
+    private final Tetrominoes nextBlock;
+    // Font object that stores the font of the game
+    private final Font font;
+    // HudText objects that store the font of the game derived at each font size, with their measurements
+    private final HudText smallText, largeText, veryLargeText;
+    // Score object that keeps track of score, number of rows cleared, and current level the game is on
+    private final Score score;
+    // GameLoop object that steps the game at a fixed rate and renders it on its own thread
+    private final GameLoop gameLoop;
+    // Mixer which plays the sound effects of what happens each step, or null to play none
+    private volatile SoundMixer sounds;
+    // Recorder which records the inputs of each step of the game being played, and the seed the game was started with
+    private Replay.Recorder recorder;
+    private long seed;
+    // Leaderboard which keeps every finished game and the best of them, or null if there isn't one
+    private final Leaderboard leaderboard;
+    // Background image of the game
+    private final Image back;
+    // StaticLayer objects which store the screen while playing without the blocks and score, and the main menu screen, so they aren't drawn again every frame
+    private final StaticLayer playLayer, menuLayer;
+
+    // Stores the position of the current block before the last step, and if the current block can be drawn in between that position and its current one
+    private int previousX, previousRow, previousRotate;
+    private boolean interpolate;
+    // Stores how far the game is in between the last step and the next one for the frame being rendered, and the offset of the current block for that frame
+    private volatile double interpolation;
+    private int offsetX, offsetY;
+
+    // DirtyRegions object which stores the regions of the screen that have changed since the last frame
+    private final DirtyRegions dirtyRegions;
+    // Rectangles which store the region the current block was last drawn in, and the region it's drawn in for the current frame, and the same for its ghost
+    private final Rectangle drawnBlockBounds, blockBounds, drawnGhostBounds, ghostBounds;
+    // Stores the held and next block last drawn (-1 for no block), the rotation of the current block last drawn, and the block its ghost was last drawn for
+    private int drawnHeldNum, drawnNextNum, drawnRotate, drawnGhostNum;
+    // Stores if the main menu was last drawn
+    private boolean drawnGameOver;
+    // Boolean which stores if the back buffer keeps what was drawn on it after being shown, so only the changed regions need to be drawn again
+    private boolean keepsContents;
+
+    // Boolean which stores if the overlay of the metrics is shown, which is set from the Swing thread, and if it was last drawn
+    private volatile boolean showMetrics;
+    private boolean drawnMetrics;
+    // Boolean which stores if the metrics shown changed since the overlay was last drawn, and the region of the screen the overlay is drawn in
+    private boolean metricsChanged;
+    private final Rectangle metricsBounds;
+    // Percentiles of each histogram shown on the overlay, in nanoseconds, found once a second so nothing is created each frame
+    private final long[] metricsValues, metricsPercentiles;
+
+    // Constructor which waits for the font, background and squares to load, for when the game is drawn without a window (as the renderer benchmark does)
+    public TetrisPanel() {
+        this(Assets.font(FONT).join(), Assets.image(BACKGROUND).join());
+        Square.loadImages().join();
+    }
+
+    // Constructor which takes in the font and background image of the game, already loaded
+    public TetrisPanel(Font font, Image back) {
+        // Sets dimensions of the panel, adds keyListener, and gets focus
+        setPreferredSize(new Dimension(WIDTH, HEIGHT));
+        addKeyListener(this);
+        setFocusable(true);
+        requestFocus();
+
+        // Stores the font for the game, and derives it at each size once
+        this.font = font;
+        smallText = new HudText(font, SMALL_FONT);
+        largeText = new HudText(font, LARGE_FONT);
+        veryLargeText = new HudText(font, VERY_LARGE_FONT);
+
+        // Stores the background image of the game
+        this.back = back;
+
+        // Creates the queue the keyboard writes to, the handler the game loop reads it with, and the array of held actions
+        inputQueue = new InputQueue();
+        inputHandler = new InputHandler(inputQueue, TimeUnit.MILLISECONDS.toNanos(DAS), TimeUnit.MILLISECONDS.toNanos(ARR), InputHandler.DEFAULT_SOFT_DROP_INTERVAL);
+        actionsHeld = new boolean[Action.values().length];
+
+        // Initializes the Board with their respective positions and their respective widths and heights
+        board = new Board(WIDTH/2, HEIGHT/2, SQUARE_SIZE, BOARD_WIDTH, BOARD_HEIGHT);
+        // Only the main board is timed for the metrics
+        board.setMetered(true);
+        holdingBoard = new Board(WIDTH - (PREVIEW_SQUARE_SIZE * SINGLE_BLOCK_BOARD_WIDTH_HEIGHT), HEIGHT / 2 - (PREVIEW_SQUARE_SIZE * SINGLE_BLOCK_BOARD_WIDTH_HEIGHT), PREVIEW_SQUARE_SIZE, SINGLE_BLOCK_BOARD_WIDTH_HEIGHT, SINGLE_BLOCK_BOARD_WIDTH_HEIGHT);
+        nextBoard = new Board(WIDTH - (PREVIEW_SQUARE_SIZE * SINGLE_BLOCK_BOARD_WIDTH_HEIGHT), HEIGHT / 2 + (PREVIEW_SQUARE_SIZE * SINGLE_BLOCK_BOARD_WIDTH_HEIGHT), PREVIEW_SQUARE_SIZE, SINGLE_BLOCK_BOARD_WIDTH_HEIGHT, SINGLE_BLOCK_BOARD_WIDTH_HEIGHT);
+
+        // Creates a new score object, and sets the position to 1 square size from the edge of the screen, and below the top of the board, using the font and font size of small
+        score = new Score(SQUARE_SIZE, HEIGHT/2 - BOARD_HEIGHT * SQUARE_SIZE / 2, font, SMALL_FONT);
+
+        // Creates the engine that plays the game on the board and score, seeded from the current time, at the tick rate of the game
+        engine = new GameEngine(board, score, new PieceGenerator(System.nanoTime(), SEVEN_BAG, GameEngine.DEFAULT_PREVIEW_DEPTH));
+        nextBlock = new Tetrominoes(0);
+        engine.setTickRate(TICK_RATE);
+        // The input handler repeats held keys itself with DAS and ARR, so the engine doesn't repeat them again
+        engine.setRepeatHeldInputs(false);
+
+        // Creates the loop that steps and renders the game
+        gameLoop = new GameLoop(this, TICK_RATE, FRAME_RATE);
+        // Opens the leaderboard, which finds the best games already in its log
+        leaderboard = openLeaderboard();
+
+        // Creates the layers of what doesn't change on the screen
+        playLayer = new StaticLayer(this::paintPlayLayer, WIDTH, HEIGHT);
+        menuLayer = new StaticLayer(this::paintMenuLayer, WIDTH, HEIGHT);
+
+        // The whole screen is drawn on the first frame, starting from the main menu
+        dirtyRegions = new DirtyRegions();
+        drawnBlockBounds = new Rectangle();
+        blockBounds = new Rectangle();
+        drawnGhostBounds = new Rectangle();
+        ghostBounds = new Rectangle();
+        drawnHeldNum = -1;
+        drawnNextNum = -1;
+        drawnGameOver = true;
+
+        // The overlay is drawn in the bottom left corner, beside the board, with a line for each histogram, the rates, and the headings
+        int lineHeight = smallText.getHeight(), metricsHeight = lineHeight * (METRICS_LABELS.length + 3) + SQUARE_SIZE / 2;
+        metricsBounds = new Rectangle(0, HEIGHT - metricsHeight, WIDTH / 2 - BOARD_WIDTH * SQUARE_SIZE / 2 - SQUARE_SIZE, metricsHeight);
+        metricsValues = new long[METRICS_HISTOGRAMS.length * METRICS_PERCENTILES.length];
+        metricsPercentiles = new long[METRICS_PERCENTILES.length];
+    }
+
+    // Gets the engine that plays the game, so the game can be played and drawn without the game loop (as the renderer benchmark does)
+    GameEngine getEngine() { return engine; }
+
+    // Sets the mixer which plays the sound effects, which is done by the window so the panel can be drawn without a sound device
+    void setSounds(SoundMixer sounds) { this.sounds = sounds; }
+
+    // Main move method that reads the keys pressed and held by the user up to the end of the step, and plays them as one step of the game
+    public void move(long stepEnd){
+        // Stores when the step started, for the metrics
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        // Stores the inputs of the step, taken from the presses and releases in the order they happened
+        int inputs = inputHandler.inputs(stepEnd);
+
+        // Stores the position of the current block before the step
+        Tetrominoes currentBlock = engine.getCurrentBlock();
+        previousX = currentBlock.getX();
+        previousRow = (int) currentBlock.getY();
+        previousRotate = currentBlock.getRotate();
+
+        // Records and plays the step
+        recorder.record(inputs);
+        int result = engine.step(inputs);
+
+        // The current block is only drawn in between its positions if it's the same block and wasn't rotated
+        boolean sameBlock = (result & (GameEngine.RESULT_LOCKED | GameEngine.RESULT_HELD | GameEngine.RESULT_GAME_OVER)) == 0;
+        interpolate = sameBlock && previousRotate == currentBlock.getRotate();
+
+        // Plays the sounds of what happened on the step
+        SoundMixer sounds = this.sounds;
+        if(sounds != null) playSounds(sounds, inputs, result, sameBlock && previousRotate != currentBlock.getRotate());
+
+        // Records the time the step took, and the piece if it was locked
+        if(Metrics.ENABLED) Metrics.move(start, System.nanoTime(), (result & GameEngine.RESULT_LOCKED) != 0);
+
+        // Stops the loop and shows the main menu if the game is over
+        if((result & GameEngine.RESULT_GAME_OVER) != 0){
+            gameLoop.stop();
+            saveReplay();
+            addToLeaderboard();
+            renderFrame();
+        }
+    }
+
+    // Plays the sound of each thing that happened on a step, from its inputs and result, and if the block was rotated
+    private static void playSounds(SoundMixer sounds, int inputs, int result, boolean rotated){
+        if((result & GameEngine.RESULT_GAME_OVER) != 0){
+            sounds.play(SoundMixer.SOUND_GAME_OVER);
+            return;
+        }
+        if(rotated) sounds.play(SoundMixer.SOUND_ROTATE);
+        if((result & GameEngine.RESULT_LOCKED) != 0){
+            // Hard drops land harder than blocks that fall into place
+            sounds.play((inputs & GameEngine.INPUT_HARD_DROP) != 0 ? SoundMixer.SOUND_HARD_DROP : SoundMixer.SOUND_LOCK);
+            int rowsCleared = result & GameEngine.RESULT_ROWS_CLEARED_MASK;
+            if(rowsCleared == 4) sounds.play(SoundMixer.SOUND_TETRIS);
+            else if(rowsCleared > 0) sounds.play(SoundMixer.SOUND_CLEAR);
+        }
+        if((result & GameEngine.RESULT_LEVEL_UP) != 0) sounds.play(SoundMixer.SOUND_LEVEL_UP);
+    }
+
+    // Saves the replay of the game that just ended in the replay folder, if there is one
+    private void saveReplay(){
+        if(REPLAY_DIR == null) return;
+        File file = new File(REPLAY_DIR, "tetris-" + Long.toHexString(seed) + ".replay");
+        try(OutputStream out = new FileOutputStream(file)){
+            recorder.finish().write(out);
+        } catch(IOException e){
+            // The game carries on without the replay
+            System.err.println("Couldn't save replay " + file + ": " + e);
+        }
+    }
+
+    // Opens the leaderboard log, if there is one
+    private static Leaderboard openLeaderboard(){
+        if(LEADERBOARD == null) return null;
+        try{
+            return new Leaderboard(new File(LEADERBOARD));
+        } catch(IOException e){
+            // The game is played without keeping the games
+            System.err.println("Couldn't open leaderboard " + LEADERBOARD + ": " + e);
+            return null;
+        }
+    }
+
+    // Stops the game and closes the leaderboard, if there is one, so every game added to it is written to the disk, called when the window is closed
+    void close(){
+        // Stops the loop while it isn't stepping, so no game is added once the leaderboard is closed
+        synchronized(engine){
+            gameLoop.stop();
+        }
+        if(leaderboard == null) return;
+        try{
+            leaderboard.close();
+        } catch(IOException e){
+            System.err.println("Couldn't close leaderboard " + LEADERBOARD + ": " + e);
+        }
+    }
+
+    // Adds the game that just ended to the leaderboard, if there is one, with how long it lasted from the number of steps played
+    private void addToLeaderboard(){
+        if(leaderboard == null) return;
+        int duration = (int) Math.min(recorder.getTicks() * 1000L / TICK_RATE, Integer.MAX_VALUE);
+        leaderboard.add(seed, engine.getFinalScore(), engine.getFinalRowsCleared(), engine.getFinalLevel(), duration);
+    }
+
+    @Override
+    public void addNotify(){
+        super.addNotify();
+        // Creates the back buffer once the canvas can be shown, and checks if it keeps what was drawn on it after being shown (instead of flipping)
+        createBufferStrategy(2);
+        BufferCapabilities capabilities = getBufferStrategy().getCapabilities();
+        keepsContents = !capabilities.isPageFlipping() || capabilities.getFlipContents() == BufferCapabilities.FlipContents.COPIED;
+    }
+
+    @Override
+    public void update(Graphics g){
+        // Draws over the screen without clearing it first
+        paint(g);
+    }
+
+    @Override
+    public void paint(Graphics g){
+        // Stops the game from being stepped while it's being drawn
+        synchronized(engine){
+            // Draws directly if there's no back buffer yet
+            if(getBufferStrategy() == null){
+                updateBlockOffset();
+                paintGame(g);
+                return;
+            }
+            // The screen was uncovered or resized, so the whole screen is drawn again
+            dirtyRegions.markAll();
+            renderFrame();
+        }
+    }
+
+    // Draws the frame, timing it for the metrics when they're recorded
+    private void renderFrame(){
+        if(!Metrics.ENABLED){
+            drawFrame();
+            return;
+        }
+        long start = System.nanoTime();
+        drawFrame();
+        Metrics.paint(start, System.nanoTime());
+    }
+
+    // Actively draws the regions of the screen that changed since the last frame onto the back buffer, and shows it
+    private void drawFrame(){
+        BufferStrategy strategy = getBufferStrategy();
+        if(strategy == null) return;
+
+        // Stops the game from being stepped while it's being drawn
+        synchronized(engine){
+            updateBlockOffset();
+            // Finds the regions that changed, and doesn't show anything if nothing has changed
+            collectDirtyRegions();
+            if(dirtyRegions.isEmpty()) return;
+
+            do{
+                do{
+                    Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+                    drawDirtyRegions(g2d);
+                    g2d.dispose();
+                    // If the back buffer is lost, the whole screen is drawn again
+                    dirtyRegions.markAll();
+                } while(strategy.contentsRestored());
+                strategy.show();
+            } while(strategy.contentsLost());
+
+            dirtyRegions.clear();
+            // Makes sure the frame is shown straight away on systems that buffer graphics
+            Toolkit.getDefaultToolkit().sync();
+        }
+    }
+
+    // Gets the offset of the current block in between its last position and current position for the frame
+    private void updateBlockOffset(){
+        offsetX = 0;
+        offsetY = 0;
+        if(interpolate && !engine.isGameOver()){
+            Tetrominoes currentBlock = engine.getCurrentBlock();
+            double remaining = 1 - interpolation;
+            offsetX = (int) ((previousX - currentBlock.getX()) * remaining * SQUARE_SIZE);
+            offsetY = (int) ((previousRow - (int) currentBlock.getY()) * remaining * SQUARE_SIZE);
+        }
+    }
+
+    // Finds the regions of the screen that changed since the last frame: rows of the board, the current block, the held and next blocks, and the score
+    private void collectDirtyRegions(){
+        // If the back buffer doesn't keep what was drawn on it, or the game switched between the main menu and playing, the whole screen is drawn
+        boolean gameOver = engine.isGameOver();
+        if(!keepsContents || gameOver != drawnGameOver){
+            dirtyRegions.markAll();
+            drawnGameOver = gameOver;
+        }
+        // Nothing changes on the main menu
+        if(gameOver) return;
+
+        // Adds the rows of the board that changed
+        int squareSize = board.getSquareSize();
+        if(board.isDirty()){
+            dirtyRegions.add(board.getTopLeftX(), board.getTopLeftY() + board.getDirtyTop() * squareSize, board.getWidth() * squareSize, (board.getDirtyBottom() - board.getDirtyTop() + 1) * squareSize);
+            board.clearDirty();
+        }
+
+        // Adds the region the current block was last drawn in and where it's drawn now if it moved
+        Tetrominoes currentBlock = engine.getCurrentBlock();
+        int boundary = Tetrominoes.TETROMINO_BOUNDARY_WIDTH_HEIGHT[currentBlock.getTetrominoNum()] * squareSize;
+        blockBounds.setBounds(board.getTopLeftX() + currentBlock.getX() * squareSize + offsetX, board.getTopLeftY() + (int) currentBlock.getY() * squareSize + offsetY, boundary, boundary);
+        // Adds the region the ghost was last drawn in and where it's drawn now if where the block lands changed, which is found again only when the block moves sideways, rotates, or the board changes
+        ghostBounds.setBounds(board.getTopLeftX() + currentBlock.getX() * squareSize, board.getTopLeftY() + engine.getLandingY() * squareSize, boundary, boundary);
+        if(!ghostBounds.equals(drawnGhostBounds) || currentBlock.getRotate() != drawnRotate || currentBlock.getTetrominoNum() != drawnGhostNum){
+            dirtyRegions.add(drawnGhostBounds);
+            dirtyRegions.add(ghostBounds);
+            drawnGhostBounds.setBounds(ghostBounds);
+            drawnGhostNum = currentBlock.getTetrominoNum();
+        }
+        if(!blockBounds.equals(drawnBlockBounds) || currentBlock.getRotate() != drawnRotate){
+            dirtyRegions.add(drawnBlockBounds);
+            dirtyRegions.add(blockBounds);
+            drawnBlockBounds.setBounds(blockBounds);
+            drawnRotate = currentBlock.getRotate();
+        }
+
+        // Adds the held and next boards if their blocks changed
+        int heldNum = engine.getHeldBlock() == null ? -1 : engine.getHeldBlock().getTetrominoNum(), nextNum = engine.getPreview(0);
+        if(heldNum != drawnHeldNum){
+            dirtyRegions.add(holdingBoard.getTopLeftX(), holdingBoard.getTopLeftY(), holdingBoard.getWidth() * holdingBoard.getSquareSize(), holdingBoard.getHeight() * holdingBoard.getSquareSize());
+            drawnHeldNum = heldNum;
+        }
+        if(nextNum != drawnNextNum){
+            dirtyRegions.add(nextBoard.getTopLeftX(), nextBoard.getTopLeftY(), nextBoard.getWidth() * nextBoard.getSquareSize(), nextBoard.getHeight() * nextBoard.getSquareSize());
+            drawnNextNum = nextNum;
+        }
+
+        // Adds the score if any of its values changed
+        if(score.isChanged()) dirtyRegions.add(score.getBounds());
+
+        // Adds the overlay if it was shown or hidden, or the metrics on it changed
+        boolean showMetrics = this.showMetrics;
+        if(showMetrics != drawnMetrics || (showMetrics && metricsChanged)){
+            dirtyRegions.add(metricsBounds);
+            drawnMetrics = showMetrics;
+            metricsChanged = false;
+        }
+    }
+
+    // Draws the game in each region that changed, or the whole screen
+    private void drawDirtyRegions(Graphics2D g2d){
+        if(dirtyRegions.isAll()){
+            paintGame(g2d);
+            return;
+        }
+        // Clips the drawing to each region, so only the pixels in the region are drawn again
+        for(int i = 0; i < dirtyRegions.getCount(); i++){
+            g2d.setClip(dirtyRegions.get(i));
+            paintGame(g2d);
+        }
+    }
+
+    // Draws the game, while the game isn't being stepped
+    private void paintGame(Graphics g){
+        // Graphics2D object from Graphics object
+        Graphics2D g2d = (Graphics2D)g.create();
+
+        // If the game is not over (when the game is being played)
+        if(!engine.isGameOver()){
+            // Draws the background, frames of the boards and labels, which don't change while playing
+            playLayer.draw(g2d);
+
+            // Draws the squares of the board with the currentBlock offset in between its positions for this frame and its ghost where it lands, the holdingBoard with heldBlock, and nextBoard with the next block from the preview
+            board.drawSquares(g2d, this);
+            // Draws the ghost faded under the block, in case they overlap
+            Composite composite = g2d.getComposite();
+            g2d.setComposite(GHOST_COMPOSITE);
+            board.drawGhost(g2d, engine.getCurrentBlock(), engine.getLandingY(), this);
+            g2d.setComposite(composite);
+            board.drawBlock(g2d, engine.getCurrentBlock(), offsetX, offsetY, this);
+            holdingBoard.drawSquares(g2d, engine.getHeldBlock(), 0, 0, this);
+            nextBlock.reset(engine.getPreview(0));
+            nextBlock.setCentrePos(SINGLE_BLOCK_BOARD_WIDTH_HEIGHT / 2, SINGLE_BLOCK_BOARD_WIDTH_HEIGHT / 2);
+            nextBoard.drawSquares(g2d, nextBlock, 0, 0, this);
+
+            // Draws the score (with level and number of rows cleared)
+            score.draw(g2d);
+
+            // Draws the overlay of the metrics on top, if it's shown
+            if(Metrics.ENABLED && showMetrics) paintMetrics(g2d);
+        }
+        // Else if the game is not being played, draws the main menu screen, which only changes with the final score of the last game
+        else menuLayer.draw(g2d, engine.getFinalScore());
+
+        g2d.dispose();
+    }
+
+    // Draws the overlay of the metrics: the percentiles of each histogram in microseconds, the pieces locked each second, and the kilobytes allocated by the game loop each second
+    // Only draws constant text and numbers from the images of the digits, so the overlay doesn't create anything each frame
+    private void paintMetrics(Graphics2D g2d){
+        g2d.setColor(METRICS_BACKGROUND);
+        g2d.fill(metricsBounds);
+        g2d.setColor(Color.WHITE);
+
+        // Columns of the labels, and the value of each percentile after the widest label, with each value right aligned to the end of its column
+        int lineHeight = smallText.getHeight(), labelX = SQUARE_SIZE / 4, valueX = labelX + smallText.stringWidth("Jitter");
+        int columnWidth = (metricsBounds.width - SQUARE_SIZE / 4 - valueX) / METRICS_PERCENTILES.length;
+        int y = metricsBounds.y + SQUARE_SIZE / 4 + smallText.getAscent();
+
+        // Headings of the percentiles
+        smallText.drawString(g2d, "us", labelX, y);
+        smallText.drawString(g2d, "p50", valueX + columnWidth - smallText.stringWidth("p50"), y);
+        smallText.drawString(g2d, "p99", valueX + columnWidth * 2 - smallText.stringWidth("p99"), y);
+        y += lineHeight;
+
+        // Each histogram, with each of its percentiles converted to microseconds
+        for(int i = 0; i < METRICS_HISTOGRAMS.length; i++, y += lineHeight){
+            smallText.drawString(g2d, METRICS_LABELS[i], labelX, y);
+            for(int p = 0; p < METRICS_PERCENTILES.length; p++){
+                int micros = (int) Math.min(Integer.MAX_VALUE, metricsValues[i * METRICS_PERCENTILES.length + p] / 1000);
+                smallText.drawNumber(g2d, micros, valueX + columnWidth * (p + 1) - smallText.numberWidth(micros), y);
+            }
+        }
+
+        // Pieces locked each second (PPS) to one decimal place, and kilobytes allocated each second
+        double piecesPerSecond = Metrics.piecesPerSecond();
+        smallText.drawString(g2d, "PPS", labelX, y);
+        int x = valueX + smallText.drawNumber(g2d, (int) piecesPerSecond, valueX, y);
+        smallText.drawString(g2d, ".", x, y);
+        smallText.drawNumber(g2d, (int) (piecesPerSecond * 10) % 10, x + smallText.stringWidth("."), y);
+        y += lineHeight;
+        smallText.drawString(g2d, "KB/s", labelX, y);
+        smallText.drawNumber(g2d, (int) (Metrics.allocatedBytesPerSecond() / 1024), valueX, y);
+    }
+
+    // Finds the percentiles of each histogram shown on the overlay
+    private void updateMetrics(){
+        for(int i = 0; i < METRICS_HISTOGRAMS.length; i++){
+            METRICS_HISTOGRAMS[i].getPercentiles(METRICS_PERCENTILES, metricsPercentiles);
+            System.arraycopy(metricsPercentiles, 0, metricsValues, i * METRICS_PERCENTILES.length, METRICS_PERCENTILES.length);
+        }
+    }
+
+    // Draws what doesn't change while playing: the background, the frames of each board, and the labels of the held and next boards
+    private void paintPlayLayer(Graphics2D g2d){
+        // Renders the background image
+        g2d.drawImage(back, 0, 0, this);
+
+        // Draws the frames of the board, holdingBoard, and nextBoard
+        board.drawFrame(g2d, this);
+        holdingBoard.drawFrame(g2d, this);
+        nextBoard.drawFrame(g2d, this);
+
+        // Sets the colour to Color.WHITE
+        g2d.setColor(Color.WHITE);
+
+        // Displays "Held Block" directly above the holdingBoard, centred to the holdingBoard
+        smallText.drawCentred(g2d, "Held Block", WIDTH - (PREVIEW_SQUARE_SIZE * SINGLE_BLOCK_BOARD_WIDTH_HEIGHT), HEIGHT / 2 - (PREVIEW_SQUARE_SIZE * SINGLE_BLOCK_BOARD_WIDTH_HEIGHT) * 2);
+        // Displays "Next Block" directly below the nextBoard, centred to the nextBoard
+        smallText.drawCentred(g2d, "Next Block", WIDTH - (PREVIEW_SQUARE_SIZE * SINGLE_BLOCK_BOARD_WIDTH_HEIGHT), HEIGHT / 2 + (PREVIEW_SQUARE_SIZE * SINGLE_BLOCK_BOARD_WIDTH_HEIGHT) * 2);
+    }
+
+    // Draws the main menu screen, with the final score of the last game if there was one
+    private void paintMenuLayer(Graphics2D g2d){
+        // Renders the background image
+        g2d.drawImage(back, 0, 0, this);
+
+        // Sets the colour of the next drawn graphics to white
+        g2d.setColor(Color.WHITE);
+        // Displays TETRIS centred to the screen, on the top of the screen, with the very large font
+        veryLargeText.drawCentred(g2d, "TETRIS", WIDTH / 2, HEIGHT/2 - BOARD_HEIGHT * SQUARE_SIZE / 2 + veryLargeText.getHeight());
+
+        // Gets the final score of the last played game
+        int finalScore = engine.getFinalScore();
+        // Checks if there was last played game with a final score
+        if(finalScore >= 0) {
+            // Displays Game Over on the centre of the screen with the score of the user, with the large font
+            largeText.drawCentred(g2d, "Game Over", WIDTH / 2, HEIGHT / 2 - largeText.getHeight());
+            // Draws the score after its label, both centred together
+            int scoreWidth = largeText.stringWidth(Score.LABELS[0]) + largeText.numberWidth(finalScore);
+            largeText.drawString(g2d, Score.LABELS[0], (WIDTH - scoreWidth) / 2, HEIGHT / 2 + largeText.getHeight());
+            largeText.drawNumber(g2d, finalScore, (WIDTH - scoreWidth) / 2 + largeText.stringWidth(Score.LABELS[0]), HEIGHT / 2 + largeText.getHeight());
+        }
+
+        // Displays the best score kept by the leaderboard below the score, with the small font
+        // The best score only changes when a game beats it, which changes the final score the layer is drawn again for
+        List<Leaderboard.Entry> best = leaderboard == null ? List.of() : leaderboard.getBest();
+        if(!best.isEmpty()) smallText.drawCentred(g2d, "Best: " + best.get(0).getScore(), WIDTH / 2, HEIGHT / 2 + largeText.getHeight() * 2);
+
+        // Displays information to get started playing, centred to the bottom of the screen, with the small font
+        smallText.drawCentred(g2d, "Press any button to play", WIDTH / 2, HEIGHT/2 + BOARD_HEIGHT * SQUARE_SIZE / 2 - smallText.getHeight());
+
+        // Displays the controls of the game centred to the bottom of the screen below the instructions to get started playing
+        smallText.drawCentred(g2d, "Left/Right Arrows - Left/Right Movement", WIDTH / 2, HEIGHT - smallText.getHeight() * 5);
+        smallText.drawCentred(g2d, "Z - Rotate Left, Up Arrow - Rotate Right", WIDTH / 2, HEIGHT - smallText.getHeight() * 3);
+        smallText.drawCentred(g2d, "Down Arrow - Soft Drop, Space - Hard Drop, Shift - Hold", WIDTH / 2, HEIGHT - smallText.getHeight());
+    }
+
+    @Override
+    public void tick(long stepEnd) {
+        // Stores when the step started, including waiting for the frame being drawn, for the metrics
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        // Stops the game from being drawn while the step is played
+        synchronized(engine){
+            // Calls the move method to move the blocks
+            move(stepEnd);
+        }
+        if(Metrics.ENABLED) Metrics.tick(start, System.nanoTime());
+    }
+
+    @Override
+    public void render(double interpolation) {
+        // Records how evenly the frames are shown, and finds the metrics shown on the overlay again once a second
+        if(Metrics.ENABLED){
+            long now = System.nanoTime();
+            Metrics.frame(now, GameLoop.NANOS_PER_SECOND / FRAME_RATE);
+            if(Metrics.sample(now) && showMetrics){
+                updateMetrics();
+                metricsChanged = true;
+            }
+        }
+        // Stores how far the frame is in between steps and draws the regions that changed
+        this.interpolation = interpolation;
+        renderFrame();
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {}
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        // Shows or hides the overlay of the metrics, if they're recorded, without starting a game
+        if(Metrics.ENABLED && e.getKeyCode() == METRICS_KEY){
+            showMetrics = !showMetrics;
+            return;
+        }
+        // If the game is over, sets gameOver to false, as the game is no longer over, and starts the game loop
+        synchronized(engine){
+            if(engine.isGameOver()){
+                // Starts the game from a new seed, and records it from the start
+                seed = System.nanoTime();
+                engine.start(seed);
+                recorder = new Replay.Recorder(engine, seed, TICK_RATE);
+                // Throws away the keys pressed before the new game
+                inputHandler.discardBefore(System.nanoTime());
+                gameLoop.start();
+                return;
+            }
+        }
+        // Returns if the key isn't used, or is already held (the keyboard repeating a held key)
+        Action action = toAction(e.getKeyCode());
+        if(action == null || actionsHeld[action.ordinal()]) return;
+        // Sets the action as held, and queues the press with the time it happened
+        actionsHeld[action.ordinal()] = true;
+        inputQueue.offer(action, true, System.nanoTime());
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        // Returns if the key isn't used, or wasn't held
+        Action action = toAction(e.getKeyCode());
+        if(action == null || !actionsHeld[action.ordinal()]) return;
+        // Sets the action as no longer held, and queues the release with the time it happened
+        actionsHeld[action.ordinal()] = false;
+        inputQueue.offer(action, false, System.nanoTime());
+    }
+
+    // Gets the action of a key, or null if the key isn't used
+    private static Action toAction(int keyCode){
+        switch(keyCode){
+            case KeyEvent.VK_LEFT: return Action.LEFT;
+            case KeyEvent.VK_RIGHT: return Action.RIGHT;
+            case KeyEvent.VK_DOWN: return Action.SOFT_DROP;
+            case KeyEvent.VK_SPACE: return Action.HARD_DROP;
+            case KeyEvent.VK_UP: return Action.ROTATE_CLOCKWISE;
+            case KeyEvent.VK_Z: return Action.ROTATE_COUNTERCLOCKWISE;
+            case KeyEvent.VK_SHIFT: return Action.HOLD;
+            default: return null;
+        }
+    }
+}